@@ -1,30 +1,59 @@
 package com.jawnz.back.aop.logging;
 
+import com.jawnz.back.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.AfterThrowing;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.Profiles;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 import tech.jhipster.config.JHipsterConstants;
 
 /**
  * Aspect for logging execution of service and repository Spring components.
  *
- * By default, it only runs with the "dev" profile.
+ * With the "dev" profile, it logs the invocations at debug level and the exceptions with their stack trace. In every
+ * profile, rather than logging, it times a sample of the invocations into the {@code method.invocations} histogram, tagged by class, method and
+ * outcome; methods returning a {@link Mono} or a {@link Flux} are timed from the subscription to the termination of their
+ * result, rather than for the assembly of the publisher, a cancelled subscription having the {@code cancel} outcome.
+ * <p>
+ * The logger, name and timers of a method are resolved on its first invocation and looked up by {@link Method} afterwards.
  */
 @Aspect
 public class LoggingAspect {
 
-    private final Environment env;
+    private final boolean development;
 
-    public LoggingAspect(Environment env) {
-        this.env = env;
+    private final boolean timing;
+
+    private final double sampleRate;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Method, MethodLog> methodLogs = new ConcurrentHashMap<>();
+
+    public LoggingAspect(Environment env, ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.development = env.acceptsProfiles(Profiles.of(JHipsterConstants.SPRING_PROFILE_DEVELOPMENT));
+        ApplicationProperties.MethodTiming methodTiming = applicationProperties.getMethodTiming();
+        this.timing = methodTiming.isEnabled() && methodTiming.getSampleRate() > 0;
+        this.sampleRate = methodTiming.getSampleRate();
+        this.meterRegistry = meterRegistry;
     }
 
     /**
@@ -48,44 +77,44 @@ public class LoggingAspect {
     }
 
     /**
-     * Retrieves the {@link Logger} associated to the given {@link JoinPoint}.
+     * Retrieves the {@link MethodLog} of the method of the given {@link JoinPoint}.
      *
-     * @param joinPoint join point we want the logger for.
-     * @return {@link Logger} associated to the given {@link JoinPoint}.
+     * @param joinPoint join point we want the method log for.
+     * @return {@link MethodLog} of the method of the given {@link JoinPoint}.
      */
-    private Logger logger(JoinPoint joinPoint) {
-        return LoggerFactory.getLogger(joinPoint.getSignature().getDeclaringTypeName());
+    private MethodLog methodLog(JoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        MethodLog methodLog = methodLogs.get(method);
+        if (methodLog == null) {
+            methodLog = methodLogs.computeIfAbsent(method, MethodLog::new);
+        }
+        return methodLog;
     }
 
     /**
-     * Advice that logs methods throwing exceptions.
+     * Advice that logs methods throwing exceptions, with the "dev" profile; otherwise the exceptions are only recorded as
+     * the {@code error} outcome of the timers, client errors included.
      *
      * @param joinPoint join point for advice.
      * @param e exception.
      */
     @AfterThrowing(pointcut = "applicationPackagePointcut() && springBeanPointcut()", throwing = "e")
     public void logAfterThrowing(JoinPoint joinPoint, Throwable e) {
-        if (env.acceptsProfiles(Profiles.of(JHipsterConstants.SPRING_PROFILE_DEVELOPMENT))) {
-            logger(joinPoint)
-                .error(
-                    "Exception in {}() with cause = '{}' and exception = '{}'",
-                    joinPoint.getSignature().getName(),
-                    e.getCause() != null ? e.getCause() : "NULL",
-                    e.getMessage(),
-                    e
-                );
-        } else {
-            logger(joinPoint)
-                .error(
-                    "Exception in {}() with cause = {}",
-                    joinPoint.getSignature().getName(),
-                    e.getCause() != null ? e.getCause() : "NULL"
-                );
+        if (!development) {
+            return;
         }
+        MethodLog methodLog = methodLog(joinPoint);
+        methodLog.log.error(
+            "Exception in {}() with cause = '{}' and exception = '{}'",
+            methodLog.name,
+            e.getCause() != null ? e.getCause() : "NULL",
+            e.getMessage(),
+            e
+        );
     }
 
     /**
-     * Advice that logs when a method is entered and exited.
+     * Advice that logs when a method is entered and exited, and times a sample of the invocations.
      *
      * @param joinPoint join point for advice.
      * @return result.
@@ -93,19 +122,129 @@ public class LoggingAspect {
      */
     @Around("applicationPackagePointcut() && springBeanPointcut()")
     public Object logAround(ProceedingJoinPoint joinPoint) throws Throwable {
-        Logger log = logger(joinPoint);
-        if (log.isDebugEnabled()) {
-            log.debug("Enter: {}() with argument[s] = {}", joinPoint.getSignature().getName(), Arrays.toString(joinPoint.getArgs()));
+        boolean sampled = timing && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+        if (!sampled && !development) {
+            return joinPoint.proceed();
+        }
+        MethodLog methodLog = methodLog(joinPoint);
+        Logger log = methodLog.log;
+        if (development && log.isDebugEnabled()) {
+            log.debug("Enter: {}() with argument[s] = {}", methodLog.name, Arrays.toString(joinPoint.getArgs()));
         }
+        long start = System.nanoTime();
+        Object result;
         try {
-            Object result = joinPoint.proceed();
-            if (log.isDebugEnabled()) {
-                log.debug("Exit: {}() with result = {}", joinPoint.getSignature().getName(), result);
-            }
-            return result;
+            result = joinPoint.proceed();
         } catch (IllegalArgumentException e) {
-            log.error("Illegal argument: {} in {}()", Arrays.toString(joinPoint.getArgs()), joinPoint.getSignature().getName());
+            if (development) {
+                log.error("Illegal argument: {} in {}()", Arrays.toString(joinPoint.getArgs()), methodLog.name);
+            }
+            if (sampled) {
+                methodLog.record(start, SignalType.ON_ERROR);
+            }
+            throw e;
+        } catch (Throwable e) {
+            if (sampled) {
+                methodLog.record(start, SignalType.ON_ERROR);
+            }
             throw e;
         }
+        if (result instanceof Mono) {
+            return measured((Mono<?>) result, methodLog, sampled);
+        }
+        if (result instanceof Flux) {
+            return measured((Flux<?>) result, methodLog, sampled);
+        }
+        if (sampled) {
+            methodLog.record(start, SignalType.ON_COMPLETE);
+        }
+        if (development && log.isDebugEnabled()) {
+            log.debug("Exit: {}() with result = {}", methodLog.name, result);
+        }
+        return result;
+    }
+
+    private <T> Mono<T> measured(Mono<T> mono, MethodLog methodLog, boolean sampled) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            Mono<T> logged = development ? mono.doOnSuccess(value -> methodLog.exit(start, value)) : mono;
+            return sampled ? logged.doFinally(signal -> methodLog.record(start, signal)) : logged;
+        });
+    }
+
+    private <T> Flux<T> measured(Flux<T> flux, MethodLog methodLog, boolean sampled) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            Flux<T> logged = development ? flux.doOnComplete(() -> methodLog.exit(start, null)) : flux;
+            return sampled ? logged.doFinally(signal -> methodLog.record(start, signal)) : logged;
+        });
+    }
+
+    /**
+     * The logger, name and timers of a method.
+     */
+    private final class MethodLog {
+
+        private final Logger log;
+
+        private final String name;
+
+        private final Method method;
+
+        private volatile Timer successTimer;
+
+        private volatile Timer errorTimer;
+
+        private volatile Timer cancelTimer;
+
+        private MethodLog(Method method) {
+            this.log = LoggerFactory.getLogger(method.getDeclaringClass());
+            this.name = method.getName();
+            this.method = method;
+        }
+
+        private void exit(long start, Object result) {
+            if (log.isDebugEnabled()) {
+                log.debug("Exit: {}() in {} ms with result = {}", name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), result);
+            }
+        }
+
+        private void record(long start, SignalType signal) {
+            long duration = System.nanoTime() - start;
+            timer(signal).record(duration, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * The timer of an outcome, registered on its first use; the registry returns the same timer to racing threads.
+         */
+        private Timer timer(SignalType signal) {
+            switch (signal) {
+                case ON_COMPLETE:
+                    if (successTimer == null) {
+                        successTimer = timer("success");
+                    }
+                    return successTimer;
+                case ON_ERROR:
+                    if (errorTimer == null) {
+                        errorTimer = timer("error");
+                    }
+                    return errorTimer;
+                default:
+                    if (cancelTimer == null) {
+                        cancelTimer = timer("cancel");
+                    }
+                    return cancelTimer;
+            }
+        }
+
+        private Timer timer(String outcome) {
+            return Timer
+                .builder("method.invocations")
+                .description("Time of a sample of the invocations of the application methods")
+                .tag("class", method.getDeclaringClass().getSimpleName())
+                .tag("method", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+        }
     }
 }
@@ -1,5 +1,6 @@
 package com.jawnz.back.config;
 
+import java.time.Duration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -10,7 +11,1059 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final Search search = new Search();
+
+    private final Stream stream = new Stream();
+
+    private final UserEvents userEvents = new UserEvents();
+
+    private final MethodTiming methodTiming = new MethodTiming();
+
+    private final Reactor reactor = new Reactor();
+
+    private final Metrics metrics = new Metrics();
+
     // jhipster-needle-application-properties-property
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public Stream getStream() {
+        return stream;
+    }
+
+    public UserEvents getUserEvents() {
+        return userEvents;
+    }
+
+    public MethodTiming getMethodTiming() {
+        return methodTiming;
+    }
+
+    public Reactor getReactor() {
+        return reactor;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
     // jhipster-needle-application-properties-property-getter
+
+    /**
+     * Cardinality limits of the meters, see {@link UriTagLimiter}.
+     */
+    public static class Metrics {
+
+        /**
+         * Distinct {@code uri} tag values kept per meter, below {@code management.metrics.web.*.max-uri-tags}; the server
+         * requests keep the route templates instead.
+         */
+        private int maxUriTags = 50;
+
+        public int getMaxUriTags() {
+            return maxUriTags;
+        }
+
+        public void setMaxUriTags(int maxUriTags) {
+            this.maxUriTags = maxUriTags;
+        }
+    }
+
+    /**
+     * Debugging of the Reactor pipelines, see {@link ReactorConfiguration}.
+     */
+    public static class Reactor {
+
+        private DebugMode debug = DebugMode.CHECKPOINT;
+
+        public DebugMode getDebug() {
+            return debug;
+        }
+
+        public void setDebug(DebugMode debug) {
+            this.debug = debug;
+        }
+
+        /**
+         * Whether the {@code checkpoint()} operators of the pipelines are applied, in every mode but {@link DebugMode#OFF}.
+         */
+        public boolean isCheckpointEnabled() {
+            return debug != DebugMode.OFF;
+        }
+
+        public enum DebugMode {
+            /**
+             * No assembly information, the {@code checkpoint()} operators of the pipelines are not applied.
+             */
+            OFF,
+            /**
+             * Only the {@code checkpoint()} operators of the pipelines add assembly information to the errors.
+             */
+            CHECKPOINT,
+            /**
+             * The {@code ReactorDebugAgent} of {@code reactor-tools} instruments the operators when their classes are
+             * loaded, adding the assembly information for about the cost of a checkpoint per operator.
+             */
+            AGENT,
+            /**
+             * {@code Hooks.onOperatorDebug()} captures a stack trace at every operator assembly; slow.
+             */
+            FULL,
+        }
+    }
+
+    /**
+     * Timing of the service, repository and REST controller methods by the {@link com.jawnz.back.aop.logging.LoggingAspect}.
+     */
+    public static class MethodTiming {
+
+        private boolean enabled = true;
+
+        /**
+         * Share of the invocations timed, from 0 to 1.
+         */
+        private double sampleRate = 0.01;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+    }
+
+    /**
+     * Change events of the users, published to Kafka once committed.
+     */
+    public static class UserEvents {
+
+        private boolean enabled = true;
+
+        private String topic = "user-events";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getTopic() {
+            return topic;
+        }
+
+        public void setTopic(String topic) {
+            this.topic = topic;
+        }
+    }
+
+    public static class Search {
+
+        private final Cache cache = new Cache();
+
+        private final Reconciliation reconciliation = new Reconciliation();
+
+        private final Embedded embedded = new Embedded();
+
+        private final Client client = new Client();
+
+        /**
+         * Encoding of the {@code Instant}, {@code ZonedDateTime} and {@code LocalDate} fields of the indexed documents.
+         */
+        private DateEncoding dateEncoding = DateEncoding.ISO;
+
+        public Cache getCache() {
+            return cache;
+        }
+
+        public Reconciliation getReconciliation() {
+            return reconciliation;
+        }
+
+        public Embedded getEmbedded() {
+            return embedded;
+        }
+
+        public Client getClient() {
+            return client;
+        }
+
+        public DateEncoding getDateEncoding() {
+            return dateEncoding;
+        }
+
+        public void setDateEncoding(DateEncoding dateEncoding) {
+            this.dateEncoding = dateEncoding;
+        }
+
+        public enum DateEncoding {
+            /**
+             * ISO-8601 strings.
+             */
+            ISO,
+            /**
+             * Milliseconds since the epoch, as longs.
+             */
+            EPOCH_MILLIS,
+        }
+
+        public static class Cache {
+
+            private boolean enabled = true;
+
+            private long maxEntries = 1000;
+
+            private Duration timeToLive = Duration.ofMinutes(5);
+
+            /**
+             * Results of searches started within this window after an index write are not cached,
+             * as Elasticsearch may not have refreshed the index yet.
+             */
+            private Duration refreshInterval = Duration.ofSeconds(1);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public long getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(long maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+
+            public Duration getTimeToLive() {
+                return timeToLive;
+            }
+
+            public void setTimeToLive(Duration timeToLive) {
+                this.timeToLive = timeToLive;
+            }
+
+            public Duration getRefreshInterval() {
+                return refreshInterval;
+            }
+
+            public void setRefreshInterval(Duration refreshInterval) {
+                this.refreshInterval = refreshInterval;
+            }
+        }
+
+        public static class Reconciliation {
+
+            private boolean enabled = true;
+
+            /**
+             * Delay between the end of a reconciliation run and the start of the next one.
+             */
+            private Duration interval = Duration.ofMinutes(1);
+
+            private int batchSize = 200;
+
+            private int maxDocumentsPerSecond = 500;
+
+            /**
+             * Rows modified more recently than this are left for the next run, so that
+             * transactions committing late are not skipped by the watermark.
+             */
+            private Duration settleTime = Duration.ofSeconds(30);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public Duration getInterval() {
+                return interval;
+            }
+
+            public void setInterval(Duration interval) {
+                this.interval = interval;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public int getMaxDocumentsPerSecond() {
+                return maxDocumentsPerSecond;
+            }
+
+            public void setMaxDocumentsPerSecond(int maxDocumentsPerSecond) {
+                this.maxDocumentsPerSecond = maxDocumentsPerSecond;
+            }
+
+            public Duration getSettleTime() {
+                return settleTime;
+            }
+
+            public void setSettleTime(Duration settleTime) {
+                this.settleTime = settleTime;
+            }
+        }
+
+        public static class Embedded {
+
+            /**
+             * Directory of the memory-mapped index; the index is held on the heap when not set.
+             */
+            private String directory;
+
+            private int maxResults = 10000;
+
+            /**
+             * Interval of the commits of the single writes; must stay well under the reconciliation settle time.
+             */
+            private Duration commitInterval = Duration.ofSeconds(1);
+
+            public String getDirectory() {
+                return directory;
+            }
+
+            public void setDirectory(String directory) {
+                this.directory = directory;
+            }
+
+            public int getMaxResults() {
+                return maxResults;
+            }
+
+            public void setMaxResults(int maxResults) {
+                this.maxResults = maxResults;
+            }
+
+            public Duration getCommitInterval() {
+                return commitInterval;
+            }
+
+            public void setCommitInterval(Duration commitInterval) {
+                this.commitInterval = commitInterval;
+            }
+        }
+
+        /**
+         * Transport of the reactive Elasticsearch client; the nodes and credentials are still read from {@code spring.elasticsearch}.
+         */
+        public static class Client {
+
+            private int maxConnections = 50;
+
+            /**
+             * How long a request waits for a pooled connection before failing.
+             */
+            private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+
+            /**
+             * Pooled connections idle for longer than this are closed.
+             */
+            private Duration maxIdleTime = Duration.ofSeconds(30);
+
+            private boolean keepAlive = true;
+
+            private Duration connectTimeout = Duration.ofSeconds(1);
+
+            /**
+             * Maximum inactivity while reading or writing on a connection.
+             */
+            private Duration socketTimeout = Duration.ofSeconds(30);
+
+            /**
+             * Maximum time between sending a request and receiving its response headers.
+             */
+            private Duration responseTimeout = Duration.ofSeconds(10);
+
+            /**
+             * Whether gzip compressed responses are accepted.
+             */
+            private boolean compression = true;
+
+            /**
+             * Whether the bodies of bulk requests are gzip compressed.
+             */
+            private boolean bulkCompression = true;
+
+            /**
+             * Whether the request latency timers publish histogram buckets.
+             */
+            private boolean latencyHistogram = true;
+
+            public int getMaxConnections() {
+                return maxConnections;
+            }
+
+            public void setMaxConnections(int maxConnections) {
+                this.maxConnections = maxConnections;
+            }
+
+            public Duration getPendingAcquireTimeout() {
+                return pendingAcquireTimeout;
+            }
+
+            public void setPendingAcquireTimeout(Duration pendingAcquireTimeout) {
+                this.pendingAcquireTimeout = pendingAcquireTimeout;
+            }
+
+            public Duration getMaxIdleTime() {
+                return maxIdleTime;
+            }
+
+            public void setMaxIdleTime(Duration maxIdleTime) {
+                this.maxIdleTime = maxIdleTime;
+            }
+
+            public boolean isKeepAlive() {
+                return keepAlive;
+            }
+
+            public void setKeepAlive(boolean keepAlive) {
+                this.keepAlive = keepAlive;
+            }
+
+            public Duration getConnectTimeout() {
+                return connectTimeout;
+            }
+
+            public void setConnectTimeout(Duration connectTimeout) {
+                this.connectTimeout = connectTimeout;
+            }
+
+            public Duration getSocketTimeout() {
+                return socketTimeout;
+            }
+
+            public void setSocketTimeout(Duration socketTimeout) {
+                this.socketTimeout = socketTimeout;
+            }
+
+            public Duration getResponseTimeout() {
+                return responseTimeout;
+            }
+
+            public void setResponseTimeout(Duration responseTimeout) {
+                this.responseTimeout = responseTimeout;
+            }
+
+            public boolean isCompression() {
+                return compression;
+            }
+
+            public void setCompression(boolean compression) {
+                this.compression = compression;
+            }
+
+            public boolean isBulkCompression() {
+                return bulkCompression;
+            }
+
+            public void setBulkCompression(boolean bulkCompression) {
+                this.bulkCompression = bulkCompression;
+            }
+
+            public boolean isLatencyHistogram() {
+                return latencyHistogram;
+            }
+
+            public void setLatencyHistogram(boolean latencyHistogram) {
+                this.latencyHistogram = latencyHistogram;
+            }
+        }
+    }
+
+    public static class Stream {
+
+        /**
+         * Messages buffered per subscriber while it is slower than the topic.
+         */
+        private int bufferSize = 256;
+
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+        /**
+         * Last messages kept per node to replay to the subscribers resuming with a {@code Last-Event-ID}.
+         */
+        private int replayCapacity = 10000;
+
+        private final Producer producer = new Producer();
+
+        private final Journal journal = new Journal();
+
+        private final FlowControl flowControl = new FlowControl();
+
+        private final WebSocket websocket = new WebSocket();
+
+        private final Batching batching = new Batching();
+
+        private final Dispatch dispatch = new Dispatch();
+
+        private final Governance governance = new Governance();
+
+        private final Shutdown shutdown = new Shutdown();
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        public int getReplayCapacity() {
+            return replayCapacity;
+        }
+
+        public void setReplayCapacity(int replayCapacity) {
+            this.replayCapacity = replayCapacity;
+        }
+
+        public Producer getProducer() {
+            return producer;
+        }
+
+        public Journal getJournal() {
+            return journal;
+        }
+
+        public FlowControl getFlowControl() {
+            return flowControl;
+        }
+
+        public WebSocket getWebsocket() {
+            return websocket;
+        }
+
+        public Batching getBatching() {
+            return batching;
+        }
+
+        public Dispatch getDispatch() {
+            return dispatch;
+        }
+
+        public Governance getGovernance() {
+            return governance;
+        }
+
+        public Shutdown getShutdown() {
+            return shutdown;
+        }
+
+        public enum OverflowPolicy {
+            /**
+             * The oldest buffered message is dropped to make room for the new one.
+             */
+            DROP_OLDEST,
+            /**
+             * The new message is dropped.
+             */
+            DROP_NEWEST,
+            /**
+             * The subscriber is disconnected, so that it reconnects once it has caught up.
+             */
+            DISCONNECT,
+        }
+
+        /**
+         * Limits of the event streams of {@code /api/jawnzback-kafka/consume}.
+         */
+        public static class Governance {
+
+            /**
+             * Maximum streams open on a node.
+             */
+            private int maxStreams = 10000;
+
+            private int maxStreamsPerUser = 16;
+
+            /**
+             * Interval of the comments sent to detect the dead peers, shorter than the idle timeouts of the proxies.
+             */
+            private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+            /**
+             * How long a stream may send no event before being completed.
+             */
+            private Duration idleTimeout = Duration.ofMinutes(10);
+
+            /**
+             * How long a stream may last before being completed, so that clients reconnect and spread across the nodes.
+             */
+            private Duration maxLifetime = Duration.ofHours(1);
+
+            /**
+             * Reconnection delay hinted to the clients.
+             */
+            private Duration retry = Duration.ofSeconds(3);
+
+            public int getMaxStreams() {
+                return maxStreams;
+            }
+
+            public void setMaxStreams(int maxStreams) {
+                this.maxStreams = maxStreams;
+            }
+
+            public int getMaxStreamsPerUser() {
+                return maxStreamsPerUser;
+            }
+
+            public void setMaxStreamsPerUser(int maxStreamsPerUser) {
+                this.maxStreamsPerUser = maxStreamsPerUser;
+            }
+
+            public Duration getHeartbeatInterval() {
+                return heartbeatInterval;
+            }
+
+            public void setHeartbeatInterval(Duration heartbeatInterval) {
+                this.heartbeatInterval = heartbeatInterval;
+            }
+
+            public Duration getIdleTimeout() {
+                return idleTimeout;
+            }
+
+            public void setIdleTimeout(Duration idleTimeout) {
+                this.idleTimeout = idleTimeout;
+            }
+
+            public Duration getMaxLifetime() {
+                return maxLifetime;
+            }
+
+            public void setMaxLifetime(Duration maxLifetime) {
+                this.maxLifetime = maxLifetime;
+            }
+
+            public Duration getRetry() {
+                return retry;
+            }
+
+            public void setRetry(Duration retry) {
+                this.retry = retry;
+            }
+        }
+
+        /**
+         * Draining of the streams when the application stops.
+         */
+        public static class Shutdown {
+
+            private boolean enabled = true;
+
+            /**
+             * Reconnection delay hinted to the clients in the final event, spread up to twice as long across the streams.
+             */
+            private Duration reconnectDelay = Duration.ofSeconds(1);
+
+            /**
+             * How long the messages already consumed may take to be published to the subscribers.
+             */
+            private Duration drainTimeout = Duration.ofSeconds(10);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public Duration getReconnectDelay() {
+                return reconnectDelay;
+            }
+
+            public void setReconnectDelay(Duration reconnectDelay) {
+                this.reconnectDelay = reconnectDelay;
+            }
+
+            public Duration getDrainTimeout() {
+                return drainTimeout;
+            }
+
+            public void setDrainTimeout(Duration drainTimeout) {
+                this.drainTimeout = drainTimeout;
+            }
+        }
+
+        /**
+         * Workers publishing the consumed messages to the subscribers, by key.
+         */
+        public static class Dispatch {
+
+            /**
+             * 0 to publish on the consumer threads.
+             */
+            private int workers = 4;
+
+            /**
+             * Messages queued per worker before the consumer waits.
+             */
+            private int queueCapacity = 1024;
+
+            public int getWorkers() {
+                return workers;
+            }
+
+            public void setWorkers(int workers) {
+                this.workers = workers;
+            }
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+        }
+
+        /**
+         * Bounds of the batching the clients of {@code /api/jawnzback-kafka/consume} may request.
+         */
+        public static class Batching {
+
+            /**
+             * Maximum {@code batchMs}.
+             */
+            private Duration maxDelay = Duration.ofSeconds(1);
+
+            /**
+             * Maximum {@code maxBatch}.
+             */
+            private int maxSize = 5000;
+
+            public Duration getMaxDelay() {
+                return maxDelay;
+            }
+
+            public void setMaxDelay(Duration maxDelay) {
+                this.maxDelay = maxDelay;
+            }
+
+            public int getMaxSize() {
+                return maxSize;
+            }
+
+            public void setMaxSize(int maxSize) {
+                this.maxSize = maxSize;
+            }
+        }
+
+        /**
+         * WebSocket streaming endpoint {@code /api/jawnzback-kafka/ws}.
+         */
+        public static class WebSocket {
+
+            private int maxSubscriptions = 16;
+
+            /**
+             * Maximum messages a client may have requested and not yet received, per subscription.
+             */
+            private int maxCredits = 10000;
+
+            /**
+             * Maximum messages per frame.
+             */
+            private int batchSize = 100;
+
+            /**
+             * How long a message waits for others to fill its frame.
+             */
+            private Duration batchWindow = Duration.ofMillis(20);
+
+            /**
+             * Maximum frames queued for a connection and not yet written to its socket; the connection is closed beyond.
+             */
+            private int maxPendingFrames = 256;
+
+            public int getMaxSubscriptions() {
+                return maxSubscriptions;
+            }
+
+            public void setMaxSubscriptions(int maxSubscriptions) {
+                this.maxSubscriptions = maxSubscriptions;
+            }
+
+            public int getMaxCredits() {
+                return maxCredits;
+            }
+
+            public void setMaxCredits(int maxCredits) {
+                this.maxCredits = maxCredits;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public Duration getBatchWindow() {
+                return batchWindow;
+            }
+
+            public void setBatchWindow(Duration batchWindow) {
+                this.batchWindow = batchWindow;
+            }
+
+            public int getMaxPendingFrames() {
+                return maxPendingFrames;
+            }
+
+            public void setMaxPendingFrames(int maxPendingFrames) {
+                this.maxPendingFrames = maxPendingFrames;
+            }
+        }
+
+        /**
+         * Pausing of the Kafka consumption while no subscriber can take more messages.
+         */
+        public static class FlowControl {
+
+            private boolean enabled = true;
+
+            /**
+             * Fill ratio of the least filled subscriber buffer at which the consumption is paused.
+             */
+            private double pauseWatermark = 0.8;
+
+            /**
+             * Fill ratio of a subscriber buffer at which the consumption is resumed.
+             */
+            private double resumeWatermark = 0.5;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public double getPauseWatermark() {
+                return pauseWatermark;
+            }
+
+            public void setPauseWatermark(double pauseWatermark) {
+                this.pauseWatermark = pauseWatermark;
+            }
+
+            public double getResumeWatermark() {
+                return resumeWatermark;
+            }
+
+            public void setResumeWatermark(double resumeWatermark) {
+                this.resumeWatermark = resumeWatermark;
+            }
+        }
+
+        /**
+         * Local journal of the consumed messages, replaying to the resuming subscribers the messages no longer in the replay
+         * ring, including across restarts.
+         */
+        public static class Journal {
+
+            /**
+             * Directory of the journal segments, the journal being disabled when not set.
+             */
+            private String directory;
+
+            /**
+             * Maximum size in bytes of a segment file.
+             */
+            private int segmentSize = 64 * 1024 * 1024;
+
+            /**
+             * Segments whose last message is older are deleted.
+             */
+            private Duration retentionTime = Duration.ofHours(24);
+
+            /**
+             * The oldest segments are deleted while the journal is larger.
+             */
+            private long retentionSize = 1024L * 1024 * 1024;
+
+            private Duration retentionCheckInterval = Duration.ofMinutes(1);
+
+            public String getDirectory() {
+                return directory;
+            }
+
+            public void setDirectory(String directory) {
+                this.directory = directory;
+            }
+
+            public int getSegmentSize() {
+                return segmentSize;
+            }
+
+            public void setSegmentSize(int segmentSize) {
+                this.segmentSize = segmentSize;
+            }
+
+            public Duration getRetentionTime() {
+                return retentionTime;
+            }
+
+            public void setRetentionTime(Duration retentionTime) {
+                this.retentionTime = retentionTime;
+            }
+
+            public long getRetentionSize() {
+                return retentionSize;
+            }
+
+            public void setRetentionSize(long retentionSize) {
+                this.retentionSize = retentionSize;
+            }
+
+            public Duration getRetentionCheckInterval() {
+                return retentionCheckInterval;
+            }
+
+            public void setRetentionCheckInterval(Duration retentionCheckInterval) {
+                this.retentionCheckInterval = retentionCheckInterval;
+            }
+        }
+
+        /**
+         * Kafka producer of the messages published through {@code /api/jawnzback-kafka/publish}.
+         */
+        public static class Producer {
+
+            private String topic = "sse-topic";
+
+            /**
+             * Maximum size in bytes of a batch of records sent to a partition.
+             */
+            private int batchSize = 65536;
+
+            /**
+             * How long the producer waits for more records to fill a batch.
+             */
+            private Duration linger = Duration.ofMillis(5);
+
+            /**
+             * none, gzip, snappy, lz4 or zstd.
+             */
+            private String compressionType = "lz4";
+
+            private String acks = "all";
+
+            /**
+             * How long a send may wait for topic metadata or for room in the producer buffer before failing.
+             */
+            private Duration maxBlock = Duration.ofSeconds(5);
+
+            /**
+             * Maximum records of a single publish request awaiting their acknowledgement.
+             */
+            private int maxInFlight = 1024;
+
+            /**
+             * Whether to publish the messages in a {@code MessageEnvelope} rather than as text.
+             */
+            private boolean envelope = false;
+
+            public String getTopic() {
+                return topic;
+            }
+
+            public void setTopic(String topic) {
+                this.topic = topic;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public Duration getLinger() {
+                return linger;
+            }
+
+            public void setLinger(Duration linger) {
+                this.linger = linger;
+            }
+
+            public String getCompressionType() {
+                return compressionType;
+            }
+
+            public void setCompressionType(String compressionType) {
+                this.compressionType = compressionType;
+            }
+
+            public String getAcks() {
+                return acks;
+            }
+
+            public void setAcks(String acks) {
+                this.acks = acks;
+            }
+
+            public Duration getMaxBlock() {
+                return maxBlock;
+            }
+
+            public void setMaxBlock(Duration maxBlock) {
+                this.maxBlock = maxBlock;
+            }
+
+            public int getMaxInFlight() {
+                return maxInFlight;
+            }
+
+            public boolean isEnvelope() {
+                return envelope;
+            }
+
+            public void setEnvelope(boolean envelope) {
+                this.envelope = envelope;
+            }
+
+            public void setMaxInFlight(int maxInFlight) {
+                this.maxInFlight = maxInFlight;
+            }
+        }
+    }
     // jhipster-needle-application-properties-property-class
 }
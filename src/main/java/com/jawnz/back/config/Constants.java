@@ -11,5 +11,8 @@ public final class Constants {
     public static final String SYSTEM = "system";
     public static final String DEFAULT_LANGUAGE = "en";
 
+    // Spring profile replacing Elasticsearch with an in-process index
+    public static final String SPRING_PROFILE_EMBEDDED_SEARCH = "embedded-search";
+
     private Constants() {}
 }
@@ -1,6 +1,12 @@
 package com.jawnz.back.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
 import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Option;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -13,13 +19,17 @@ import java.util.Collections;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.r2dbc.ConnectionFactoryOptionsBuilderCustomizer;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.data.convert.CustomConversions;
 import org.springframework.data.convert.ReadingConverter;
 import org.springframework.data.convert.WritingConverter;
-import org.springframework.data.elasticsearch.repository.config.EnableReactiveElasticsearchRepositories;
 import org.springframework.data.r2dbc.convert.MappingR2dbcConverter;
 import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
 import org.springframework.data.r2dbc.core.ReactiveDataAccessStrategy;
@@ -30,14 +40,79 @@ import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
 import org.springframework.data.relational.core.dialect.RenderContextFactory;
 import org.springframework.data.relational.core.sql.render.SqlRenderer;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.util.StringUtils;
 import tech.jhipster.config.JHipsterConstants;
 
 @Configuration
 @EnableR2dbcRepositories({ "com.jawnz.back.repository" })
 @EnableTransactionManagement
-@EnableReactiveElasticsearchRepositories("com.jawnz.back.repository.search")
 public class DatabaseConfiguration {
 
+    private static final Duration WARMUP_TIMEOUT = Duration.ofSeconds(30);
+
+    private final Logger log = LoggerFactory.getLogger(DatabaseConfiguration.class);
+
+    /**
+     * The connections of {@code spring.r2dbc}, pooled as set by {@code spring.r2dbc.pool}, with the acquisitions and the
+     * connection lifecycle measured, see {@link MeteredConnectionFactory}.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionFactory connectionFactory(
+        R2dbcProperties properties,
+        ObjectProvider<ConnectionFactoryOptionsBuilderCustomizer> customizers,
+        MeterRegistry meterRegistry
+    ) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(properties.getUrl()).mutate();
+        if (StringUtils.hasText(properties.getUsername())) {
+            options.option(ConnectionFactoryOptions.USER, properties.getUsername());
+        }
+        if (StringUtils.hasText(properties.getPassword())) {
+            options.option(ConnectionFactoryOptions.PASSWORD, properties.getPassword());
+        }
+        properties.getProperties().forEach((key, value) -> options.option(Option.valueOf(key), value));
+        customizers.orderedStream().forEach(customizer -> customizer.customize(options));
+        ConnectionFactory connectionFactory = ConnectionFactories.get(options.build());
+        R2dbcProperties.Pool pool = properties.getPool();
+        if (!pool.isEnabled()) {
+            return connectionFactory;
+        }
+        ConnectionPoolConfiguration.Builder configuration = ConnectionPoolConfiguration
+            .builder(connectionFactory)
+            .metricsRecorder(new MeteredConnectionFactory.ConnectionMetricsRecorder(meterRegistry));
+        PropertyMapper map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+        map.from(pool.getInitialSize()).to(configuration::initialSize);
+        map.from(pool.getMaxSize()).to(configuration::maxSize);
+        map.from(pool.getMaxIdleTime()).to(configuration::maxIdleTime);
+        map.from(pool.getMaxLifeTime()).to(configuration::maxLifeTime);
+        map.from(pool.getMaxAcquireTime()).to(configuration::maxAcquireTime);
+        map.from(pool.getMaxCreateConnectionTime()).to(configuration::maxCreateConnectionTime);
+        map.from(pool.getValidationQuery()).whenHasText().to(configuration::validationQuery);
+        map.from(pool.getValidationDepth()).to(configuration::validationDepth);
+        return new MeteredConnectionFactory(new ConnectionPool(configuration.build()), meterRegistry);
+    }
+
+    /**
+     * Opens the initial connections of the pool before the application is ready, so that the readiness probe only
+     * passes once the first requests need not wait for them.
+     */
+    @Bean
+    public ApplicationRunner connectionPoolWarmup(ConnectionFactory connectionFactory) {
+        return args -> {
+            if (!(connectionFactory instanceof MeteredConnectionFactory)) {
+                return;
+            }
+            ConnectionPool pool = (ConnectionPool) ((MeteredConnectionFactory) connectionFactory).unwrap();
+            // a connection failure is reported by the db health indicator, the pool opens its connections on demand then
+            Integer warmed = pool
+                .warmup()
+                .timeout(WARMUP_TIMEOUT)
+                .doOnError(e -> log.warn("Could not warm up the connection pool: {}", e.getMessage()))
+                .onErrorReturn(0)
+                .block();
+            log.debug("Connection pool warmed up with {} connections", warmed);
+        };
+    }
+
     // LocalDateTime seems to be the only type that is supported across all drivers atm
     // See https://github.com/r2dbc/r2dbc-h2/pull/139 https://github.com/mirromutth/r2dbc-mysql/issues/105
     @Bean
@@ -0,0 +1,129 @@
+package com.jawnz.back.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.actuate.metrics.http.Outcome;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpRequestDecorator;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link ExchangeFilterFunction}s applied to the requests of the reactive Elasticsearch client.
+ */
+final class ElasticsearchClientFilters {
+
+    static final String REQUESTS_METRIC = "elasticsearch.client.requests";
+
+    private ElasticsearchClientFilters() {}
+
+    /**
+     * Times every request until its response headers are received, tagged by Elasticsearch operation.
+     */
+    static ExchangeFilterFunction metrics(MeterRegistry meterRegistry, boolean histogram) {
+        return (request, next) -> {
+            String operation = operation(request.url());
+            String method = request.method().name();
+            return Mono.defer(() -> {
+                Timer.Sample sample = Timer.start(meterRegistry);
+                return next
+                    .exchange(request)
+                    .doOnNext(response ->
+                        sample.stop(timer(meterRegistry, histogram, operation, method, Outcome.forStatus(response.rawStatusCode()).name()))
+                    )
+                    .doOnError(e -> sample.stop(timer(meterRegistry, histogram, operation, method, "ERROR")));
+            });
+        };
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, boolean histogram, String operation, String method, String outcome) {
+        return Timer
+            .builder(REQUESTS_METRIC)
+            .description("Latency of the requests sent to Elasticsearch")
+            .tag("operation", operation)
+            .tag("method", method)
+            .tag("outcome", outcome)
+            .publishPercentileHistogram(histogram)
+            .register(meterRegistry);
+    }
+
+    /**
+     * The Elasticsearch endpoint of a request, which is its first path segment starting with an underscore,
+     * e.g. {@code search} for {@code /user/_search}; requests on an index itself are tagged {@code index}.
+     */
+    static String operation(URI uri) {
+        String path = uri.getPath();
+        if (path == null || path.isEmpty() || "/".equals(path)) {
+            return "info";
+        }
+        for (String segment : path.split("/")) {
+            if (segment.length() > 1 && segment.charAt(0) == '_') {
+                return segment.substring(1);
+            }
+        }
+        return "index";
+    }
+
+    /**
+     * Compresses the bodies of bulk requests with gzip, which Elasticsearch accepts on every node.
+     */
+    static ExchangeFilterFunction gzipBulkRequests() {
+        return (request, next) -> {
+            if (!"bulk".equals(operation(request.url()))) {
+                return next.exchange(request);
+            }
+            ClientRequest compressed = ClientRequest
+                .from(request)
+                .body((outputMessage, context) -> request.body().insert(new GzipClientHttpRequest(outputMessage), context))
+                .build();
+            return next.exchange(compressed);
+        };
+    }
+
+    static class GzipClientHttpRequest extends ClientHttpRequestDecorator {
+
+        GzipClientHttpRequest(ClientHttpRequest delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            // the headers are sent as soon as the delegate starts writing, so the body is compressed first
+            return DataBufferUtils
+                .join(body)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(joined -> {
+                    if (joined.isEmpty()) {
+                        return super.writeWith(Mono.empty());
+                    }
+                    byte[] compressed = gzip(joined.get());
+                    getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+                    getHeaders().setContentLength(compressed.length);
+                    return super.writeWith(Mono.just(bufferFactory().wrap(compressed)));
+                });
+        }
+
+        private static byte[] gzip(DataBuffer buffer) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(buffer.readableByteCount() / 4 + 64);
+            try (InputStream in = buffer.asInputStream(true); GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+                in.transferTo(gzip);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        }
+    }
+}
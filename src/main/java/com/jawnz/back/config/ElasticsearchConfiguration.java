@@ -1,34 +1,238 @@
 package com.jawnz.back.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.handler.timeout.WriteTimeoutHandler;
+import java.net.URI;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.springframework.boot.autoconfigure.elasticsearch.ElasticsearchProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.data.convert.ReadingConverter;
 import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.elasticsearch.client.ClientConfiguration;
+import org.springframework.data.elasticsearch.client.reactive.ReactiveElasticsearchClient;
+import org.springframework.data.elasticsearch.client.reactive.ReactiveRestClients;
 import org.springframework.data.elasticsearch.config.ElasticsearchConfigurationSupport;
 import org.springframework.data.elasticsearch.core.convert.ElasticsearchCustomConversions;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentProperty;
+import org.springframework.data.elasticsearch.core.mapping.PropertyValueConverter;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchPersistentEntity;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchPersistentProperty;
+import org.springframework.data.elasticsearch.repository.config.EnableReactiveElasticsearchRepositories;
+import org.springframework.data.mapping.model.Property;
+import org.springframework.data.mapping.model.SimpleTypeHolder;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 @Configuration
+@Profile("!" + Constants.SPRING_PROFILE_EMBEDDED_SEARCH)
+@EnableReactiveElasticsearchRepositories("com.jawnz.back.repository.search")
+@EnableConfigurationProperties(ElasticsearchProperties.class)
 public class ElasticsearchConfiguration extends ElasticsearchConfigurationSupport {
 
+    private final ApplicationProperties applicationProperties;
+
+    public ElasticsearchConfiguration(ApplicationProperties applicationProperties) {
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Client connected to the {@code spring.elasticsearch.uris} nodes through a dedicated connection pool
+     * configured by {@code application.search.client}.
+     */
+    @Bean
+    public ReactiveElasticsearchClient reactiveElasticsearchClient(
+        ElasticsearchProperties elasticsearchProperties,
+        MeterRegistry meterRegistry
+    ) {
+        ApplicationProperties.Search.Client client = applicationProperties.getSearch().getClient();
+        List<String> endpoints = new ArrayList<>();
+        boolean useSsl = false;
+        String userInfo = null;
+        for (String uri : elasticsearchProperties.getUris()) {
+            URI parsed = URI.create(uri.contains("://") ? uri : "http://" + uri);
+            endpoints.add(parsed.getHost() + ":" + (parsed.getPort() == -1 ? 9200 : parsed.getPort()));
+            useSsl |= "https".equals(parsed.getScheme());
+            userInfo = parsed.getUserInfo() != null ? parsed.getUserInfo() : userInfo;
+        }
+        HttpClient httpClient = httpClient(client, useSsl);
+
+        ClientConfiguration.MaybeSecureClientConfigurationBuilder builder = ClientConfiguration
+            .builder()
+            .connectedTo(endpoints.toArray(new String[0]));
+        ClientConfiguration.TerminalClientConfigurationBuilder configuration = useSsl ? builder.usingSsl() : builder;
+        if (elasticsearchProperties.getUsername() != null) {
+            configuration.withBasicAuth(elasticsearchProperties.getUsername(), elasticsearchProperties.getPassword());
+        } else if (userInfo != null) {
+            String[] credentials = userInfo.split(":", 2);
+            configuration.withBasicAuth(credentials[0], credentials.length > 1 ? credentials[1] : "");
+        }
+        if (elasticsearchProperties.getPathPrefix() != null) {
+            configuration.withPathPrefix(elasticsearchProperties.getPathPrefix());
+        }
+        configuration
+            .withConnectTimeout(client.getConnectTimeout())
+            .withSocketTimeout(client.getSocketTimeout())
+            .withClientConfigurer(
+                ReactiveRestClients.WebClientConfigurationCallback.from(webClient -> {
+                    WebClient.Builder mutated = webClient
+                        .mutate()
+                        .clientConnector(new ReactorClientHttpConnector(httpClient))
+                        .filter(ElasticsearchClientFilters.metrics(meterRegistry, client.isLatencyHistogram()));
+                    if (client.isBulkCompression()) {
+                        mutated.filter(ElasticsearchClientFilters.gzipBulkRequests());
+                    }
+                    return mutated.build();
+                })
+            );
+        return ReactiveRestClients.create(configuration.build());
+    }
+
+    private static HttpClient httpClient(ApplicationProperties.Search.Client client, boolean useSsl) {
+        ConnectionProvider connectionProvider = ConnectionProvider
+            .builder("elasticsearch")
+            .maxConnections(client.getMaxConnections())
+            .pendingAcquireTimeout(client.getPendingAcquireTimeout())
+            .maxIdleTime(client.getMaxIdleTime())
+            .build();
+        long socketTimeoutMillis = client.getSocketTimeout().toMillis();
+        HttpClient httpClient = HttpClient
+            .create(connectionProvider)
+            .compress(client.isCompression())
+            .responseTimeout(client.getResponseTimeout())
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Math.toIntExact(client.getConnectTimeout().toMillis()))
+            .option(ChannelOption.SO_KEEPALIVE, client.isKeepAlive())
+            .doOnConnected(connection ->
+                connection
+                    .addHandlerLast(new ReadTimeoutHandler(socketTimeoutMillis, TimeUnit.MILLISECONDS))
+                    .addHandlerLast(new WriteTimeoutHandler(socketTimeoutMillis, TimeUnit.MILLISECONDS))
+            );
+        return useSsl ? httpClient.secure() : httpClient;
+    }
+
+    /**
+     * Dates are written with the configured encoding, but both encodings are read back, so that an
+     * index can be searched while the reconciliation migrates it from one encoding to the other.
+     */
     @Bean
     @Override
     public ElasticsearchCustomConversions elasticsearchCustomConversions() {
-        return new ElasticsearchCustomConversions(
+        List<Converter<?, ?>> converters = new ArrayList<>(
             Arrays.asList(
-                new ZonedDateTimeWritingConverter(),
                 new ZonedDateTimeReadingConverter(),
-                new InstantWritingConverter(),
                 new InstantReadingConverter(),
-                new LocalDateWritingConverter(),
-                new LocalDateReadingConverter()
+                new LocalDateReadingConverter(),
+                new ZonedDateTimeEpochMillisReadingConverter(),
+                new InstantEpochMillisReadingConverter(),
+                new LocalDateEpochMillisReadingConverter()
             )
         );
+        if (applicationProperties.getSearch().getDateEncoding() == ApplicationProperties.Search.DateEncoding.EPOCH_MILLIS) {
+            converters.addAll(
+                Arrays.asList(
+                    new ZonedDateTimeEpochMillisWritingConverter(),
+                    new InstantEpochMillisWritingConverter(),
+                    new LocalDateEpochMillisWritingConverter()
+                )
+            );
+        } else {
+            converters.addAll(
+                Arrays.asList(new ZonedDateTimeWritingConverter(), new InstantWritingConverter(), new LocalDateWritingConverter())
+            );
+        }
+        return new ElasticsearchCustomConversions(converters);
+    }
+
+    /**
+     * The {@link Instant} properties mapped with date formats are converted with the configured encoding too, instead
+     * of the first of their formats.
+     */
+    @Bean
+    @Override
+    public SimpleElasticsearchMappingContext elasticsearchMappingContext(ElasticsearchCustomConversions elasticsearchCustomConversions) {
+        SimpleElasticsearchMappingContext mappingContext = new DateEncodingMappingContext(
+            new InstantPropertyValueConverter(applicationProperties.getSearch().getDateEncoding())
+        );
+        mappingContext.setInitialEntitySet(getInitialEntitySet());
+        mappingContext.setSimpleTypeHolder(elasticsearchCustomConversions.getSimpleTypeHolder());
+        mappingContext.setFieldNamingStrategy(fieldNamingStrategy());
+        mappingContext.setWriteTypeHints(writeTypeHints());
+        return mappingContext;
+    }
+
+    static class DateEncodingMappingContext extends SimpleElasticsearchMappingContext {
+
+        private final PropertyValueConverter instantConverter;
+
+        DateEncodingMappingContext(PropertyValueConverter instantConverter) {
+            this.instantConverter = instantConverter;
+        }
+
+        @Override
+        protected ElasticsearchPersistentProperty createPersistentProperty(
+            Property property,
+            SimpleElasticsearchPersistentEntity<?> owner,
+            SimpleTypeHolder simpleTypeHolder
+        ) {
+            if (!Instant.class.equals(property.getType())) {
+                return super.createPersistentProperty(property, owner, simpleTypeHolder);
+            }
+            return new SimpleElasticsearchPersistentProperty(property, owner, simpleTypeHolder) {
+                @Override
+                public PropertyValueConverter getPropertyValueConverter() {
+                    return super.hasPropertyValueConverter() ? instantConverter : null;
+                }
+            };
+        }
+    }
+
+    /**
+     * Writes {@link Instant}s with the configured encoding, and reads both encodings back.
+     */
+    static class InstantPropertyValueConverter implements PropertyValueConverter {
+
+        private final ApplicationProperties.Search.DateEncoding dateEncoding;
+
+        InstantPropertyValueConverter(ApplicationProperties.Search.DateEncoding dateEncoding) {
+            this.dateEncoding = dateEncoding;
+        }
+
+        @Override
+        public Object write(Object value) {
+            Instant instant = (Instant) value;
+            if (dateEncoding == ApplicationProperties.Search.DateEncoding.EPOCH_MILLIS) {
+                return instant.toEpochMilli();
+            }
+            return instant.toString();
+        }
+
+        @Override
+        public Object read(Object value) {
+            if (value instanceof Number) {
+                return Instant.ofEpochMilli(((Number) value).longValue());
+            }
+            String source = value.toString();
+            if (!source.isEmpty() && source.chars().allMatch(Character::isDigit)) {
+                return Instant.ofEpochMilli(Long.parseLong(source));
+            }
+            return Instant.parse(source);
+        }
     }
 
     @WritingConverter
@@ -102,4 +306,76 @@ public class ElasticsearchConfiguration extends ElasticsearchConfigurationSuppor
             return LocalDate.parse(source);
         }
     }
+
+    @WritingConverter
+    static class ZonedDateTimeEpochMillisWritingConverter implements Converter<ZonedDateTime, Long> {
+
+        @Override
+        public Long convert(ZonedDateTime source) {
+            if (source == null) {
+                return null;
+            }
+            return source.toInstant().toEpochMilli();
+        }
+    }
+
+    @ReadingConverter
+    static class ZonedDateTimeEpochMillisReadingConverter implements Converter<Number, ZonedDateTime> {
+
+        @Override
+        public ZonedDateTime convert(Number source) {
+            if (source == null) {
+                return null;
+            }
+            return Instant.ofEpochMilli(source.longValue()).atZone(ZoneId.systemDefault());
+        }
+    }
+
+    @WritingConverter
+    static class InstantEpochMillisWritingConverter implements Converter<Instant, Long> {
+
+        @Override
+        public Long convert(Instant source) {
+            if (source == null) {
+                return null;
+            }
+            return source.toEpochMilli();
+        }
+    }
+
+    @ReadingConverter
+    static class InstantEpochMillisReadingConverter implements Converter<Number, Instant> {
+
+        @Override
+        public Instant convert(Number source) {
+            if (source == null) {
+                return null;
+            }
+            return Instant.ofEpochMilli(source.longValue());
+        }
+    }
+
+    @WritingConverter
+    static class LocalDateEpochMillisWritingConverter implements Converter<LocalDate, Long> {
+
+        @Override
+        public Long convert(LocalDate source) {
+            if (source == null) {
+                return null;
+            }
+            return source.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        }
+    }
+
+    @ReadingConverter
+    static class LocalDateEpochMillisReadingConverter implements Converter<Number, LocalDate> {
+
+        @Override
+        public LocalDate convert(Number source) {
+            if (source == null) {
+                return null;
+            }
+            return Instant.ofEpochMilli(source.longValue()).atOffset(ZoneOffset.UTC).toLocalDate();
+        }
+    }
 }
@@ -0,0 +1,47 @@
+package com.jawnz.back.config;
+
+import com.jawnz.back.service.stream.ConsumerFlowControl;
+import com.jawnz.back.service.stream.KafkaSseHub;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.stream.binding.BindingsLifecycleController;
+import org.springframework.cloud.stream.config.ListenerContainerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+
+/**
+ * Pauses the {@link KafkaSseConsumer} binding while the streaming subscribers cannot take more messages.
+ * <p>
+ * The offset lag of the binding is reported by the binder as {@code spring.cloud.stream.binder.kafka.offset}.
+ * Its offsets are committed as the {@link com.jawnz.back.service.stream.KeyedDispatcher} acknowledges the published
+ * messages.
+ */
+@Configuration
+public class KafkaFlowControlConfiguration {
+
+    @Bean
+    public ConsumerFlowControl consumerFlowControl(
+        KafkaSseHub kafkaSseHub,
+        BindingsLifecycleController bindingsLifecycleController,
+        MeterRegistry meterRegistry
+    ) {
+        ConsumerFlowControl flowControl = new ConsumerFlowControl(KafkaSseConsumer.CHANNELNAME, bindingsLifecycleController, meterRegistry);
+        kafkaSseHub.setDemandListener(flowControl::demandChanged);
+        return flowControl;
+    }
+
+    /**
+     * Lets the dispatch workers acknowledge the messages of a partition out of order: an offset is only committed once
+     * the messages before it are acknowledged, and the consumer waits for the acknowledgements of a poll before the next.
+     */
+    @Bean
+    public ListenerContainerCustomizer<AbstractMessageListenerContainer<?, ?>> asyncAcknowledgementCustomizer() {
+        return (container, destination, group) -> {
+            ContainerProperties containerProperties = container.getContainerProperties();
+            if (containerProperties.getAckMode() == ContainerProperties.AckMode.MANUAL) {
+                containerProperties.setAsyncAcks(true);
+            }
+        };
+    }
+}
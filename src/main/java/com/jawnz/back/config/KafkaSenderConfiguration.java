@@ -0,0 +1,67 @@
+package com.jawnz.back.config;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.stream.binder.kafka.properties.KafkaBinderConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
+
+/**
+ * Reactive Kafka producer, connected as the producers of the Spring Cloud Stream binder are.
+ * <p>
+ * The brokers, security settings and client properties come from {@code spring.kafka} and
+ * {@code spring.cloud.stream.kafka.binder}, its {@code configuration} and {@code producer-properties} included;
+ * the tuning of the sender comes from {@code application.stream.producer}.
+ */
+@Configuration
+public class KafkaSenderConfiguration {
+
+    private static final String BINDER_PREFIX = "spring.cloud.stream.kafka.binder";
+
+    @Bean(destroyMethod = "close")
+    public KafkaSender<String, byte[]> kafkaSender(
+        Environment environment,
+        KafkaProperties kafkaProperties,
+        @Value("${spring.application.name}") String applicationName,
+        ApplicationProperties applicationProperties
+    ) {
+        ApplicationProperties.Stream.Producer producer = applicationProperties.getStream().getProducer();
+        Map<String, Object> properties = producerProperties(environment, kafkaProperties, applicationName, producer);
+        // the producer is created on the first send, on a dedicated thread, so it never blocks a Netty event loop
+        // failed records are reported in their result rather than failing the whole send, so bulk sends go on
+        return KafkaSender.create(
+            SenderOptions.<String, byte[]>create(properties).maxInFlight(producer.getMaxInFlight()).stopOnError(false)
+        );
+    }
+
+    static Map<String, Object> producerProperties(
+        Environment environment,
+        KafkaProperties kafkaProperties,
+        String applicationName,
+        ApplicationProperties.Stream.Producer producer
+    ) {
+        // bound here rather than injected, the binder holds its own instance in its own context
+        KafkaBinderConfigurationProperties binderProperties = new KafkaBinderConfigurationProperties(kafkaProperties);
+        Binder.get(environment).bind(BINDER_PREFIX, Bindable.ofInstance(binderProperties));
+        Map<String, Object> properties = new HashMap<>(binderProperties.mergedProducerConfiguration());
+        properties.putIfAbsent(ProducerConfig.CLIENT_ID_CONFIG, applicationName + "-publisher");
+        properties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        properties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        properties.put(ProducerConfig.BATCH_SIZE_CONFIG, producer.getBatchSize());
+        properties.put(ProducerConfig.LINGER_MS_CONFIG, producer.getLinger().toMillis());
+        properties.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, producer.getCompressionType());
+        properties.put(ProducerConfig.ACKS_CONFIG, producer.getAcks());
+        properties.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, producer.getMaxBlock().toMillis());
+        return properties;
+    }
+}
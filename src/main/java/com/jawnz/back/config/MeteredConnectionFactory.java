@@ -0,0 +1,175 @@
+package com.jawnz.back.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import java.util.concurrent.TimeUnit;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.pool.PoolMetricsRecorder;
+
+/**
+ * Times the acquisition of the connections from a pool, as {@code r2dbc.pool.acquire} tagged by outcome, from the
+ * subscription until a connection is handed out, the waits for a free connection included.
+ * <p>
+ * As a {@link PoolMetricsRecorder}, also records the lifecycle of the pooled connections: {@code r2dbc.pool.allocation}
+ * (creation latency, by outcome), {@code r2dbc.pool.lifetime}, {@code r2dbc.pool.idle.time}, {@code r2dbc.pool.destroy}
+ * and {@code r2dbc.pool.recycled}.
+ * The sizes of the pool are reported by Spring Boot as {@code r2dbc.pool.acquired}, {@code idle}, {@code pending}
+ * and {@code allocated}, through {@link Wrapped#unwrap()}.
+ */
+final class MeteredConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory>, Disposable {
+
+    private final ConnectionFactory delegate;
+
+    private final Timer acquiredTimer;
+
+    private final Timer acquireFailedTimer;
+
+    private final Timer acquireCancelledTimer;
+
+    MeteredConnectionFactory(ConnectionFactory delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.acquiredTimer = acquireTimer(meterRegistry, "success");
+        this.acquireFailedTimer = acquireTimer(meterRegistry, "error");
+        this.acquireCancelledTimer = acquireTimer(meterRegistry, "cancel");
+    }
+
+    private static Timer acquireTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer
+            .builder("r2dbc.pool.acquire")
+            .description("Time to acquire a connection from the pool")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return Mono
+                .from(delegate.create())
+                .doFinally(signal -> {
+                    long duration = System.nanoTime() - start;
+                    switch (signal) {
+                        case ON_COMPLETE:
+                            acquiredTimer.record(duration, TimeUnit.NANOSECONDS);
+                            break;
+                        case ON_ERROR:
+                            acquireFailedTimer.record(duration, TimeUnit.NANOSECONDS);
+                            break;
+                        default:
+                            acquireCancelledTimer.record(duration, TimeUnit.NANOSECONDS);
+                    }
+                });
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return delegate.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return delegate;
+    }
+
+    @Override
+    public void dispose() {
+        if (delegate instanceof Disposable) {
+            ((Disposable) delegate).dispose();
+        }
+    }
+
+    /**
+     * Records the lifecycle of the connections of a pool.
+     */
+    static final class ConnectionMetricsRecorder implements PoolMetricsRecorder {
+
+        private final Timer allocatedTimer;
+
+        private final Timer allocationFailedTimer;
+
+        private final Timer lifetimeTimer;
+
+        private final Timer idleTimer;
+
+        private final Timer destroyTimer;
+
+        private final Counter recycledCounter;
+
+        ConnectionMetricsRecorder(MeterRegistry meterRegistry) {
+            this.allocatedTimer = allocationTimer(meterRegistry, "success");
+            this.allocationFailedTimer = allocationTimer(meterRegistry, "error");
+            this.lifetimeTimer =
+                Timer.builder("r2dbc.pool.lifetime").description("Time the connections lived in the pool").register(meterRegistry);
+            this.idleTimer =
+                Timer
+                    .builder("r2dbc.pool.idle.time")
+                    .description("Time the connections stayed idle in the pool before being acquired")
+                    .register(meterRegistry);
+            this.destroyTimer =
+                Timer.builder("r2dbc.pool.destroy").description("Time to close the connections evicted").register(meterRegistry);
+            this.recycledCounter =
+                Counter.builder("r2dbc.pool.recycled").description("Connections released back to the pool").register(meterRegistry);
+        }
+
+        private static Timer allocationTimer(MeterRegistry meterRegistry, String outcome) {
+            return Timer
+                .builder("r2dbc.pool.allocation")
+                .description("Time to open a new connection")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+        }
+
+        @Override
+        public void recordAllocationSuccessAndLatency(long latencyMs) {
+            allocatedTimer.record(latencyMs, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void recordAllocationFailureAndLatency(long latencyMs) {
+            allocationFailedTimer.record(latencyMs, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void recordResetLatency(long latencyMs) {
+            // the release of a connection, already part of the invocations
+        }
+
+        @Override
+        public void recordDestroyLatency(long latencyMs) {
+            destroyTimer.record(latencyMs, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void recordRecycled() {
+            recycledCounter.increment();
+        }
+
+        @Override
+        public void recordLifetimeDuration(long millisecondsSinceAllocation) {
+            lifetimeTimer.record(millisecondsSinceAllocation, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void recordIdleTime(long millisecondsIdle) {
+            idleTimer.record(millisecondsIdle, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void recordSlowPath() {
+            // not distinguished
+        }
+
+        @Override
+        public void recordFastPath() {
+            // not distinguished
+        }
+    }
+}
@@ -1,15 +1,61 @@
 package com.jawnz.back.config;
 
+import com.jawnz.back.config.ApplicationProperties.Reactor.DebugMode;
+import java.lang.reflect.InvocationTargetException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Profile;
+import org.springframework.util.ClassUtils;
 import reactor.core.publisher.Hooks;
-import tech.jhipster.config.JHipsterConstants;
 
+/**
+ * Sets the debug mode of Reactor, {@code application.reactor.debug}.
+ * <p>
+ * The named {@code checkpoint()} operators of the main pipelines apply in every mode but {@code off}, see
+ * {@link ApplicationProperties.Reactor#isCheckpointEnabled()}.
+ * <p>
+ * The {@code agent} mode needs {@code reactor-tools}, added by the {@code reactor-debug-agent} Maven profile; without it,
+ * only the checkpoints apply. Spring Boot would start the agent whenever {@code reactor-tools} is on the classpath, so
+ * {@code spring.reactor.debug-agent.enabled} is {@code false}: only the {@code agent} mode starts it.
+ */
 @Configuration
-@Profile("!" + JHipsterConstants.SPRING_PROFILE_PRODUCTION)
 public class ReactorConfiguration {
 
-    public ReactorConfiguration() {
-        Hooks.onOperatorDebug();
+    static final String DEBUG_AGENT_CLASS = "reactor.tools.agent.ReactorDebugAgent";
+
+    private final Logger log = LoggerFactory.getLogger(ReactorConfiguration.class);
+
+    public ReactorConfiguration(ApplicationProperties applicationProperties) {
+        DebugMode debugMode = applicationProperties.getReactor().getDebug();
+        switch (debugMode) {
+            case FULL:
+                Hooks.onOperatorDebug();
+                break;
+            case AGENT:
+                if (!initDebugAgent()) {
+                    log.warn("Reactor debug agent requested but {} is not on the classpath, only checkpoints apply", DEBUG_AGENT_CLASS);
+                }
+                break;
+            default:
+                Hooks.resetOnOperatorDebug();
+        }
+        log.debug("Reactor debug mode: {}", debugMode);
+    }
+
+    private boolean initDebugAgent() {
+        ClassLoader classLoader = getClass().getClassLoader();
+        if (!ClassUtils.isPresent(DEBUG_AGENT_CLASS, classLoader)) {
+            return false;
+        }
+        try {
+            Class<?> agent = ClassUtils.forName(DEBUG_AGENT_CLASS, classLoader);
+            agent.getMethod("init").invoke(null);
+            // the classes loaded before the agent are instrumented too
+            agent.getMethod("processExistingClasses").invoke(null);
+            return true;
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            log.warn("Could not start the Reactor debug agent: {}", e.getMessage());
+            return false;
+        }
     }
 }
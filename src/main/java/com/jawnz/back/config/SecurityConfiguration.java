@@ -30,13 +30,16 @@ import org.springframework.security.oauth2.core.oidc.user.OidcUserAuthority;
 import org.springframework.security.oauth2.jwt.*;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverterAdapter;
+import org.springframework.security.oauth2.server.resource.web.server.ServerBearerTokenAuthenticationConverter;
 import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.ServerAuthenticationConverter;
 import org.springframework.security.web.server.csrf.CookieServerCsrfTokenRepository;
 import org.springframework.security.web.server.header.ReferrerPolicyServerHttpHeadersWriter;
 import org.springframework.security.web.server.header.XFrameOptionsServerHttpHeadersWriter.Mode;
 import org.springframework.security.web.server.savedrequest.NoOpServerRequestCache;
 import org.springframework.security.web.server.util.matcher.NegatedServerWebExchangeMatcher;
 import org.springframework.security.web.server.util.matcher.OrServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
 import org.springframework.web.cors.reactive.CorsWebFilter;
 import org.zalando.problem.spring.webflux.advice.security.SecurityProblemSupport;
 import reactor.core.publisher.Mono;
@@ -106,6 +109,7 @@ public class SecurityConfiguration {
 
         http
             .oauth2ResourceServer()
+                .bearerTokenConverter(bearerTokenConverter())
                 .jwt()
                 .jwtAuthenticationConverter(jwtAuthenticationConverter());
         http.oauth2Client();
@@ -113,6 +117,21 @@ public class SecurityConfiguration {
         return http.build();
     }
 
+    /**
+     * Reads the bearer token from the {@code Authorization} header, or from the {@code access_token} query parameter
+     * for the WebSocket handshakes, on which browsers cannot set headers.
+     */
+    ServerAuthenticationConverter bearerTokenConverter() {
+        ServerBearerTokenAuthenticationConverter headerConverter = new ServerBearerTokenAuthenticationConverter();
+        ServerBearerTokenAuthenticationConverter queryParameterConverter = new ServerBearerTokenAuthenticationConverter();
+        queryParameterConverter.setAllowUriQueryParameter(true);
+        ServerWebExchangeMatcher webSocketHandshake = pathMatchers(HttpMethod.GET, WebSocketConfiguration.KAFKA_WEBSOCKET_PATH);
+        return exchange ->
+            webSocketHandshake
+                .matches(exchange)
+                .flatMap(match -> (match.isMatch() ? queryParameterConverter : headerConverter).convert(exchange));
+    }
+
     Converter<Jwt, Mono<AbstractAuthenticationToken>> jwtAuthenticationConverter() {
         JwtAuthenticationConverter jwtAuthenticationConverter = new JwtAuthenticationConverter();
         jwtAuthenticationConverter.setJwtGrantedAuthoritiesConverter(new JwtGrantedAuthorityConverter());
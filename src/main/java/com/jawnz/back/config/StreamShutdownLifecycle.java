@@ -0,0 +1,103 @@
+package com.jawnz.back.config;
+
+import com.jawnz.back.service.stream.ConsumerFlowControl;
+import com.jawnz.back.service.stream.KeyedDispatcher;
+import com.jawnz.back.service.stream.StreamGovernor;
+import com.jawnz.back.web.websocket.KafkaWebSocketHandler;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.netflix.eureka.serviceregistry.EurekaAutoServiceRegistration;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drains the streaming connections when the application stops, as the graceful shutdown of the web server would otherwise
+ * wait for the endless event streams until its timeout.
+ * <p>
+ * In the phase of the graceful shutdown, and before it:
+ * <ol>
+ *     <li>the instance is deregistered from Eureka, so that no new client is routed to it;</li>
+ *     <li>the {@link KafkaSseConsumer} binding is stopped, committing the offsets of the messages already published;</li>
+ *     <li>the messages already consumed are published to the subscribers, for up to the drain timeout, those published
+ *     after the binding stopped being consumed again by another node;</li>
+ *     <li>the event streams end with a final event hinting the clients to reconnect, the WebSocket connections are closed.</li>
+ * </ol>
+ * The clients then resume from their last event on another node.
+ */
+@Component
+public class StreamShutdownLifecycle implements SmartLifecycle {
+
+    private final Logger log = LoggerFactory.getLogger(StreamShutdownLifecycle.class);
+
+    private final ObjectProvider<EurekaAutoServiceRegistration> eurekaRegistration;
+
+    private final ConsumerFlowControl consumerFlowControl;
+
+    private final KeyedDispatcher keyedDispatcher;
+
+    private final StreamGovernor streamGovernor;
+
+    private final KafkaWebSocketHandler kafkaWebSocketHandler;
+
+    private final boolean enabled;
+
+    private final Duration drainTimeout;
+
+    private volatile boolean running;
+
+    public StreamShutdownLifecycle(
+        ObjectProvider<EurekaAutoServiceRegistration> eurekaRegistration,
+        ConsumerFlowControl consumerFlowControl,
+        KeyedDispatcher keyedDispatcher,
+        StreamGovernor streamGovernor,
+        KafkaWebSocketHandler kafkaWebSocketHandler,
+        ApplicationProperties applicationProperties
+    ) {
+        this.eurekaRegistration = eurekaRegistration;
+        this.consumerFlowControl = consumerFlowControl;
+        this.keyedDispatcher = keyedDispatcher;
+        this.streamGovernor = streamGovernor;
+        this.kafkaWebSocketHandler = kafkaWebSocketHandler;
+        this.enabled = applicationProperties.getStream().getShutdown().isEnabled();
+        this.drainTimeout = applicationProperties.getStream().getShutdown().getDrainTimeout();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        // the registration is stopped again by its own lifecycle, in a later phase, which is then a no-op
+        eurekaRegistration.ifAvailable(EurekaAutoServiceRegistration::stop);
+        consumerFlowControl.stop();
+        if (!keyedDispatcher.awaitIdle(drainTimeout)) {
+            log.warn("Messages consumed were still not published after {}, draining the streams anyway", drainTimeout);
+        }
+        streamGovernor.drain();
+        kafkaWebSocketHandler.shutdown();
+        log.info("Streams drained in {} ms", Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * The phase of the graceful shutdown of the web server: beans are stopped in their registration order within a
+     * phase, and the web server lifecycle is registered last.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE;
+    }
+}
@@ -0,0 +1,137 @@
+package com.jawnz.back.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.config.MeterFilter;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.result.method.RequestMappingInfoHandlerMapping;
+import org.springframework.web.util.pattern.PathPattern;
+
+/**
+ * Bounds the {@code uri} tag values of the meters, such as {@code http.server.requests} and {@code http.client.requests},
+ * so that raw URIs leaking into the tags do not grow the series without bound:
+ * <ul>
+ *     <li>{@code http.server.requests} only keeps the route templates of the request mappings, and the values Spring Boot
+ *     tags unmatched requests with, such as {@code NOT_FOUND};</li>
+ *     <li>the other meters, whose templates are not known upfront, keep their first {@code application.metrics.max-uri-tags}
+ *     distinct values.</li>
+ * </ul>
+ * The other values are collapsed into {@value #COLLAPSED}.
+ * <p>
+ * Guard metrics, to alert on tag explosion:
+ * <ul>
+ *     <li>{@code metrics.tags.distinct{tag=uri}}, distinct values kept by the meter having the most, alerting when it
+ *     reaches the limit;</li>
+ *     <li>{@code metrics.tags.collapsed{tag=uri}}, recordings whose value was collapsed;</li>
+ *     <li>{@code metrics.meters}, meters of the registry.</li>
+ * </ul>
+ * Applied before the {@code max-uri-tags} filter of Spring Boot, which then only denies beyond its own, higher, limit.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class UriTagLimiter implements MeterFilter, MeterBinder {
+
+    static final String URI_TAG = "uri";
+
+    static final String COLLAPSED = "OTHER";
+
+    static final String SERVER_REQUESTS = "http.server.requests";
+
+    /**
+     * The values of requests matching no route, see {@code WebFluxTags#uri}.
+     */
+    private static final Set<String> UNMATCHED_URIS = Set.of("root", "REDIRECTION", "NOT_FOUND", "UNKNOWN");
+
+    private final Logger log = LoggerFactory.getLogger(UriTagLimiter.class);
+
+    private final int maxUriTags;
+
+    /**
+     * Resolved on the first request, the handler mappings depending on beans that need the meter filters.
+     */
+    private final ObjectProvider<RequestMappingInfoHandlerMapping> handlerMappings;
+
+    private volatile Set<String> routes;
+
+    private final Map<String, Set<String>> uris = new ConcurrentHashMap<>();
+
+    private final AtomicLong collapsed = new AtomicLong();
+
+    public UriTagLimiter(ApplicationProperties applicationProperties, ObjectProvider<RequestMappingInfoHandlerMapping> handlerMappings) {
+        this.maxUriTags = applicationProperties.getMetrics().getMaxUriTags();
+        this.handlerMappings = handlerMappings;
+    }
+
+    @Override
+    public Meter.Id map(Meter.Id id) {
+        String uri = id.getTag(URI_TAG);
+        if (uri == null) {
+            return id;
+        }
+        Set<String> known = uris.computeIfAbsent(id.getName(), name -> ConcurrentHashMap.newKeySet());
+        if (known.contains(uri)) {
+            return id;
+        }
+        if (SERVER_REQUESTS.equals(id.getName())) {
+            if (UNMATCHED_URIS.contains(uri) || routes().contains(uri)) {
+                known.add(uri);
+                return id;
+            }
+        } else if (known.size() < maxUriTags) {
+            // the limit may be overshot by racing threads, by a few values
+            known.add(uri);
+            return id;
+        }
+        if (collapsed.getAndIncrement() == 0) {
+            log.warn("Meter {} has a {} tag {} not kept, collapsing the values not kept into {}", id.getName(), URI_TAG, uri, COLLAPSED);
+        }
+        return id.replaceTags(Tags.of(id.getTags()).and(URI_TAG, COLLAPSED));
+    }
+
+    private Set<String> routes() {
+        Set<String> current = routes;
+        if (current == null) {
+            current =
+                handlerMappings
+                    .orderedStream()
+                    .flatMap(handlerMapping -> handlerMapping.getHandlerMethods().keySet().stream())
+                    .flatMap(mapping -> mapping.getPatternsCondition().getPatterns().stream())
+                    .map(PathPattern::getPatternString)
+                    .collect(Collectors.toUnmodifiableSet());
+            // kept once the mappings are registered
+            if (!current.isEmpty()) {
+                routes = current;
+            }
+        }
+        return current;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge
+            .builder("metrics.tags.distinct", uris, values -> values.values().stream().mapToInt(Set::size).max().orElse(0))
+            .description("Distinct tag values kept by the meter having the most")
+            .tag("tag", URI_TAG)
+            .register(registry);
+        FunctionCounter
+            .builder("metrics.tags.collapsed", collapsed, AtomicLong::get)
+            .description("Recordings whose tag value was collapsed, the value not being kept by the meter")
+            .tag("tag", URI_TAG)
+            .register(registry);
+        Gauge.builder("metrics.meters", registry, meters -> meters.getMeters().size()).description("Meters registered").register(registry);
+    }
+}
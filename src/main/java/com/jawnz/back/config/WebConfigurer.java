@@ -23,7 +23,7 @@ import tech.jhipster.config.JHipsterProperties;
 /**
  * Configuration of web application with Servlet 3.0 APIs.
  */
-@EnableBinding({ KafkaSseConsumer.class, KafkaSseProducer.class })
+@EnableBinding({ KafkaSseConsumer.class })
 @Configuration
 public class WebConfigurer implements WebFluxConfigurer {
 
@@ -0,0 +1,22 @@
+package com.jawnz.back.config;
+
+import com.jawnz.back.web.websocket.KafkaWebSocketHandler;
+import java.util.Map;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
+
+/**
+ * Maps the WebSocket handlers, ahead of the annotated controllers.
+ */
+@Configuration
+public class WebSocketConfiguration {
+
+    public static final String KAFKA_WEBSOCKET_PATH = "/api/jawnzback-kafka/ws";
+
+    @Bean
+    public HandlerMapping webSocketHandlerMapping(KafkaWebSocketHandler kafkaWebSocketHandler) {
+        return new SimpleUrlHandlerMapping(Map.of(KAFKA_WEBSOCKET_PATH, kafkaWebSocketHandler), -1);
+    }
+}
@@ -6,6 +6,8 @@ import java.time.Instant;
 import javax.persistence.Column;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.elasticsearch.annotations.DateFormat;
+import org.springframework.data.elasticsearch.annotations.FieldType;
 
 /**
  * Base abstract class for entities which will hold definitions for created, last modified, created by,
@@ -21,8 +23,13 @@ public abstract class AbstractAuditingEntity<T> implements Serializable {
     @Column(name = "created_by", nullable = false, length = 50, updatable = false)
     private String createdBy;
 
+    // both encodings are accepted, the one written is configured in ElasticsearchConfiguration
     @CreatedDate
     @Column(name = "created_date", updatable = false)
+    @org.springframework.data.elasticsearch.annotations.Field(
+        type = FieldType.Date,
+        format = { DateFormat.date_optional_time, DateFormat.epoch_millis }
+    )
     private Instant createdDate = Instant.now();
 
     @Column(name = "last_modified_by", length = 50)
@@ -30,6 +37,10 @@ public abstract class AbstractAuditingEntity<T> implements Serializable {
 
     @LastModifiedDate
     @Column(name = "last_modified_date")
+    @org.springframework.data.elasticsearch.annotations.Field(
+        type = FieldType.Date,
+        format = { DateFormat.date_optional_time, DateFormat.epoch_millis }
+    )
     private Instant lastModifiedDate = Instant.now();
 
     public String getCreatedBy() {
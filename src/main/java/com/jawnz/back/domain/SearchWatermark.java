@@ -0,0 +1,106 @@
+package com.jawnz.back.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * Position up to which a search index has been reconciled with the database.
+ * <p>
+ * Rows are ordered by their last modification date, then by id, so the watermark holds both.
+ */
+@Table("jwn_search_watermark")
+public class SearchWatermark implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @NotNull
+    @Size(max = 50)
+    @Id
+    private String name;
+
+    @NotNull
+    private Instant watermark = Instant.EPOCH;
+
+    @NotNull
+    @Size(max = 100)
+    @Column("last_id")
+    private String lastId = "";
+
+    @Size(max = 20)
+    @Column("date_encoding")
+    private String dateEncoding;
+
+    public SearchWatermark() {}
+
+    public SearchWatermark(String name, Instant watermark, String lastId, String dateEncoding) {
+        this.name = name;
+        this.watermark = watermark;
+        this.lastId = lastId;
+        this.dateEncoding = dateEncoding;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Instant getWatermark() {
+        return watermark;
+    }
+
+    public void setWatermark(Instant watermark) {
+        this.watermark = watermark;
+    }
+
+    public String getLastId() {
+        return lastId;
+    }
+
+    public void setLastId(String lastId) {
+        this.lastId = lastId;
+    }
+
+    public String getDateEncoding() {
+        return dateEncoding;
+    }
+
+    public void setDateEncoding(String dateEncoding) {
+        this.dateEncoding = dateEncoding;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SearchWatermark)) {
+            return false;
+        }
+        return Objects.equals(name, ((SearchWatermark) o).name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(name);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SearchWatermark{" +
+            "name='" + name + '\'' +
+            ", watermark='" + watermark + '\'' +
+            ", lastId='" + lastId + '\'' +
+            ", dateEncoding='" + dateEncoding + '\'' +
+            "}";
+    }
+}
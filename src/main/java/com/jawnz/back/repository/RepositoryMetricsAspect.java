@@ -0,0 +1,206 @@
+package com.jawnz.back.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Aspect measuring the database operations of the {@link UserRepository} and of the {@link EntityManager}, from the
+ * subscription to their result until its termination:
+ * <ul>
+ *     <li>{@code repository.invocations}, timer tagged by repository, method and outcome ({@code success}, {@code error}
+ *     or {@code cancel});</li>
+ *     <li>{@code repository.rows}, the rows (elements) returned per invocation;</li>
+ *     <li>{@code repository.errors}, counter tagged by repository, method and exception.</li>
+ * </ul>
+ * The methods of {@link UserRepositoryInternal} are tagged with that repository. The meters of a method are registered on
+ * its first invocation and looked up by {@link Method} afterwards.
+ */
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Method, Meters> meters = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Pointcut that matches the methods returning a publisher, the ones querying the database.
+     */
+    @Pointcut("execution(reactor.core.publisher.Mono *(..)) || execution(reactor.core.publisher.Flux *(..))")
+    public void reactiveMethodPointcut() {
+        // Method is empty as this is just a Pointcut, the implementations are in the advices.
+    }
+
+    /**
+     * Advice that measures the operations of the {@link UserRepository}.
+     *
+     * @param joinPoint join point for advice.
+     * @return the measured result.
+     * @throws Throwable throws any exception of the advised method.
+     */
+    @Around("target(com.jawnz.back.repository.UserRepository) && reactiveMethodPointcut()")
+    public Object measureUserRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return measure(joinPoint, UserRepository.class);
+    }
+
+    /**
+     * Advice that measures the operations of the {@link EntityManager}.
+     *
+     * @param joinPoint join point for advice.
+     * @return the measured result.
+     * @throws Throwable throws any exception of the advised method.
+     */
+    @Around("target(com.jawnz.back.repository.EntityManager) && reactiveMethodPointcut()")
+    public Object measureEntityManager(ProceedingJoinPoint joinPoint) throws Throwable {
+        return measure(joinPoint, EntityManager.class);
+    }
+
+    private Object measure(ProceedingJoinPoint joinPoint, Class<?> repository) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Meters methodMeters = meters.get(method);
+        if (methodMeters == null) {
+            methodMeters = meters.computeIfAbsent(method, key -> new Meters(repositoryName(key, repository), key.getName()));
+        }
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            methodMeters.error(e);
+            throw e;
+        }
+        if (result instanceof Mono) {
+            return measure((Mono<?>) result, methodMeters);
+        }
+        if (result instanceof Flux) {
+            return measure((Flux<?>) result, methodMeters);
+        }
+        return result;
+    }
+
+    private static String repositoryName(Method method, Class<?> repository) {
+        return method.getDeclaringClass() == UserRepositoryInternal.class
+            ? UserRepositoryInternal.class.getSimpleName()
+            : repository.getSimpleName();
+    }
+
+    private static <T> Mono<T> measure(Mono<T> mono, Meters meters) {
+        return Mono.defer(() -> {
+            Invocation invocation = new Invocation(meters);
+            return mono.doOnNext(value -> invocation.rows++).doOnError(meters::error).doFinally(invocation::record);
+        });
+    }
+
+    private static <T> Flux<T> measure(Flux<T> flux, Meters meters) {
+        return Flux.defer(() -> {
+            Invocation invocation = new Invocation(meters);
+            return flux.doOnNext(value -> invocation.rows++).doOnError(meters::error).doFinally(invocation::record);
+        });
+    }
+
+    /**
+     * A subscription to the result of an operation.
+     */
+    private static final class Invocation {
+
+        private final Meters meters;
+
+        private final long start = System.nanoTime();
+
+        private long rows;
+
+        private Invocation(Meters meters) {
+            this.meters = meters;
+        }
+
+        private void record(SignalType signal) {
+            long duration = System.nanoTime() - start;
+            switch (signal) {
+                case ON_COMPLETE:
+                    meters.success.record(duration, TimeUnit.NANOSECONDS);
+                    meters.rows.record(rows);
+                    break;
+                case ON_ERROR:
+                    meters.failure.record(duration, TimeUnit.NANOSECONDS);
+                    break;
+                default:
+                    meters.cancel.record(duration, TimeUnit.NANOSECONDS);
+                    meters.rows.record(rows);
+            }
+        }
+    }
+
+    /**
+     * The meters of a method.
+     */
+    private final class Meters {
+
+        private final String repository;
+
+        private final String method;
+
+        private final Timer success;
+
+        private final Timer failure;
+
+        private final Timer cancel;
+
+        private final DistributionSummary rows;
+
+        private Meters(String repository, String method) {
+            this.repository = repository;
+            this.method = method;
+            this.success = timer("success");
+            this.failure = timer("error");
+            this.cancel = timer("cancel");
+            this.rows =
+                DistributionSummary
+                    .builder("repository.rows")
+                    .description("Rows returned per repository invocation")
+                    .baseUnit("rows")
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .register(meterRegistry);
+        }
+
+        private Timer timer(String outcome) {
+            return Timer
+                .builder("repository.invocations")
+                .description("Time of the repository invocations, from the subscription to the termination of their result")
+                .tag("repository", repository)
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+        }
+
+        private void error(Throwable error) {
+            // errors are rare, their counter is looked up when one occurs
+            Counter
+                .builder("repository.errors")
+                .description("Failed repository invocations")
+                .tag("repository", repository)
+                .tag("method", method)
+                .tag("exception", error.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+        }
+    }
+}
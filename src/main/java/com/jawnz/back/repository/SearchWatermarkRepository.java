@@ -0,0 +1,44 @@
+package com.jawnz.back.repository;
+
+import com.jawnz.back.domain.SearchWatermark;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Spring Data R2DBC repository for the {@link SearchWatermark} entity.
+ */
+@Repository
+public interface SearchWatermarkRepository extends R2dbcRepository<SearchWatermark, String>, SearchWatermarkRepositoryInternal {}
+
+interface SearchWatermarkRepositoryInternal {
+    Mono<Void> upsert(SearchWatermark searchWatermark);
+}
+
+class SearchWatermarkRepositoryInternalImpl implements SearchWatermarkRepositoryInternal {
+
+    private final DatabaseClient db;
+
+    public SearchWatermarkRepositoryInternalImpl(DatabaseClient db) {
+        this.db = db;
+    }
+
+    @Override
+    public Mono<Void> upsert(SearchWatermark searchWatermark) {
+        return db
+            .sql(
+                "INSERT INTO jwn_search_watermark (name, watermark, last_id, date_encoding) " +
+                "VALUES (:name, :watermark, :lastId, :dateEncoding) " +
+                "ON CONFLICT (name) DO UPDATE SET watermark = EXCLUDED.watermark, last_id = EXCLUDED.last_id, " +
+                "date_encoding = EXCLUDED.date_encoding"
+            )
+            .bind("name", searchWatermark.getName())
+            .bind("watermark", LocalDateTime.ofInstant(searchWatermark.getWatermark(), ZoneOffset.UTC))
+            .bind("lastId", searchWatermark.getLastId())
+            .bind("dateEncoding", searchWatermark.getDateEncoding())
+            .then();
+    }
+}
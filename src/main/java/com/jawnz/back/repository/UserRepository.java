@@ -5,6 +5,9 @@ import static org.springframework.data.relational.core.query.Query.query;
 
 import com.jawnz.back.domain.Authority;
 import com.jawnz.back.domain.User;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -55,6 +58,8 @@ interface UserRepositoryInternal {
     Mono<User> create(User user);
 
     Flux<User> findAllWithAuthorities(Pageable pageable);
+
+    Flux<User> findAllModifiedBetween(Instant after, String afterId, Instant before, int limit);
 }
 
 class UserRepositoryInternalImpl implements UserRepositoryInternal {
@@ -100,6 +105,31 @@ class UserRepositoryInternalImpl implements UserRepositoryInternal {
             .take(size);
     }
 
+    /**
+     * Finds users ordered by last modification date then id, starting strictly after the given position.
+     * The last modification date is never null, see the {@code 20261019000000-2} changeset, so every user is eventually found.
+     *
+     * @param after the last modification date of the position to start after.
+     * @param afterId the id of the position to start after.
+     * @param before the exclusive upper bound of the last modification date.
+     * @param limit the maximum number of users to return.
+     * @return the users, without their authorities.
+     */
+    @Override
+    public Flux<User> findAllModifiedBetween(Instant after, String afterId, Instant before, int limit) {
+        return db
+            .sql(
+                "SELECT * FROM jwn_user WHERE (last_modified_date, id) > (:after, :afterId) AND last_modified_date < :before " +
+                "ORDER BY last_modified_date, id LIMIT :limit"
+            )
+            .bind("after", LocalDateTime.ofInstant(after, ZoneOffset.UTC))
+            .bind("afterId", afterId)
+            .bind("before", LocalDateTime.ofInstant(before, ZoneOffset.UTC))
+            .bind("limit", limit)
+            .map((row, metadata) -> r2dbcConverter.read(User.class, row, metadata))
+            .all();
+    }
+
     @Override
     public Mono<User> create(User user) {
         return r2dbcEntityTemplate.insert(User.class).using(user).defaultIfEmpty(user);
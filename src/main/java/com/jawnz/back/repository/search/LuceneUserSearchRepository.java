@@ -0,0 +1,369 @@
+package com.jawnz.back.repository.search;
+
+import com.jawnz.back.config.ApplicationProperties;
+import com.jawnz.back.config.Constants;
+import com.jawnz.back.domain.User;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import javax.annotation.PreDestroy;
+import org.apache.commons.beanutils.BeanComparator;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * {@link UserSearchRepository} backed by an in-process Lucene index, used instead of Elasticsearch
+ * with the {@link Constants#SPRING_PROFILE_EMBEDDED_SEARCH} profile.
+ * <p>
+ * Documents use the same field names as the Elasticsearch mapping, so the same query strings can be used.
+ * Every write is visible to searches once it completes, through a near-real-time refresh of the searcher. Single writes
+ * are committed to the directory every {@code application.search.embedded.commit-interval}, which stays well under the
+ * settle time of the reconciliation, so that the reconciliation watermark never passes a user whose document a crash
+ * could lose; {@link #saveAll(Iterable)}, which the reconciliation uses before advancing its watermark, commits its
+ * batch before it completes.
+ */
+@Repository("userSearchRepository")
+@Profile(Constants.SPRING_PROFILE_EMBEDDED_SEARCH)
+public class LuceneUserSearchRepository implements UserSearchRepository {
+
+    private static final String[] DEFAULT_FIELDS = { "login", "firstName", "lastName", "email", "langKey" };
+
+    private final Logger log = LoggerFactory.getLogger(LuceneUserSearchRepository.class);
+
+    private final Scheduler scheduler = Schedulers.boundedElastic();
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+
+    private final int maxResults;
+
+    private final boolean checkpointEnabled;
+
+    private final Directory directory;
+
+    private final IndexWriter indexWriter;
+
+    private final SearcherManager searcherManager;
+
+    private final Disposable scheduledCommits;
+
+    public LuceneUserSearchRepository(ApplicationProperties applicationProperties) throws IOException {
+        ApplicationProperties.Search.Embedded properties = applicationProperties.getSearch().getEmbedded();
+        this.maxResults = properties.getMaxResults();
+        this.checkpointEnabled = applicationProperties.getReactor().isCheckpointEnabled();
+        if (properties.getDirectory() != null) {
+            log.info("Opening the embedded user index in {}", properties.getDirectory());
+            this.directory = new MMapDirectory(Paths.get(properties.getDirectory()));
+        } else {
+            log.info("Opening an in-memory embedded user index");
+            this.directory = new ByteBuffersDirectory();
+        }
+        this.indexWriter =
+            new IndexWriter(directory, new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        this.searcherManager = new SearcherManager(indexWriter, null);
+        long commitInterval = properties.getCommitInterval().toMillis();
+        this.scheduledCommits = scheduler.schedulePeriodically(this::commit, commitInterval, commitInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        scheduledCommits.dispose();
+        // the pending writes are committed by the writer on close
+        searcherManager.close();
+        indexWriter.close();
+        directory.close();
+    }
+
+    @Override
+    public Flux<User> search(String query) {
+        return search(query, Pageable.unpaged());
+    }
+
+    @Override
+    public Flux<User> search(String query, Pageable pageable) {
+        Flux<User> users = Mono
+            .fromCallable(() -> {
+                MultiFieldQueryParser parser = new MultiFieldQueryParser(DEFAULT_FIELDS, analyzer);
+                parser.setAllowLeadingWildcard(true);
+                return parser.parse(query);
+            })
+            .onErrorMap(ParseException.class, e -> new IllegalArgumentException("Invalid search query: " + query, e))
+            .flatMapMany(luceneQuery -> find(luceneQuery, pageable));
+        return checkpointEnabled ? users.checkpoint("UserSearchRepository.search") : users;
+    }
+
+    @Override
+    public <S extends User> Mono<S> save(S entity) {
+        return write(() -> indexWriter.updateDocument(idTerm(entity.getId()), toDocument(entity)), false).thenReturn(entity);
+    }
+
+    @Override
+    public <S extends User> Flux<S> saveAll(Iterable<S> entities) {
+        return write(() -> {
+                for (S entity : entities) {
+                    indexWriter.updateDocument(idTerm(entity.getId()), toDocument(entity));
+                }
+            },
+            true
+        )
+            .thenMany(Flux.fromIterable(entities));
+    }
+
+    @Override
+    public <S extends User> Flux<S> saveAll(Publisher<S> entityStream) {
+        return Flux.from(entityStream).collectList().flatMapMany(this::saveAll);
+    }
+
+    @Override
+    public Mono<User> findById(String id) {
+        return find(new TermQuery(idTerm(id)), Pageable.unpaged()).next();
+    }
+
+    @Override
+    public Mono<User> findById(Publisher<String> id) {
+        return Mono.from(id).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(String id) {
+        return findById(id).hasElement();
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Publisher<String> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+
+    @Override
+    public Flux<User> findAll() {
+        return find(new MatchAllDocsQuery(), Pageable.unpaged());
+    }
+
+    @Override
+    public Flux<User> findAll(Sort sort) {
+        return findAll()
+            .collectSortedList((a, b) -> {
+                for (Sort.Order order : sort) {
+                    BeanComparator<User> comparator = new BeanComparator<>(order.getProperty());
+                    int result = order.isAscending() ? comparator.compare(a, b) : comparator.compare(b, a);
+                    if (result != 0) {
+                        return result;
+                    }
+                }
+                return 0;
+            })
+            .flatMapMany(Flux::fromIterable);
+    }
+
+    @Override
+    public Flux<User> findAllById(Iterable<String> ids) {
+        List<BytesRef> terms = StreamSupport.stream(ids.spliterator(), false).map(BytesRef::new).collect(Collectors.toList());
+        return terms.isEmpty() ? Flux.empty() : find(new TermInSetQuery("id", terms), Pageable.unpaged());
+    }
+
+    @Override
+    public Flux<User> findAllById(Publisher<String> idStream) {
+        return Flux.from(idStream).collectList().flatMapMany(this::findAllById);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return read(searcher -> (long) searcher.getIndexReader().numDocs());
+    }
+
+    @Override
+    public Mono<Void> deleteById(String id) {
+        return write(() -> indexWriter.deleteDocuments(idTerm(id)), false);
+    }
+
+    @Override
+    public Mono<Void> deleteById(Publisher<String> id) {
+        return Mono.from(id).flatMap(this::deleteById);
+    }
+
+    @Override
+    public Mono<Void> delete(User entity) {
+        return deleteById(entity.getId());
+    }
+
+    @Override
+    public Mono<Void> deleteAllById(Iterable<? extends String> ids) {
+        List<Term> terms = new ArrayList<>();
+        ids.forEach(id -> terms.add(idTerm(id)));
+        return write(() -> indexWriter.deleteDocuments(terms.toArray(new Term[0])), true);
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Iterable<? extends User> entities) {
+        return deleteAllById(StreamSupport.stream(entities.spliterator(), false).map(User::getId).collect(Collectors.toList()));
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Publisher<? extends User> entityStream) {
+        return Flux.from(entityStream).map(User::getId).collectList().flatMap(this::deleteAllById);
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return write(indexWriter::deleteAll, true);
+    }
+
+    private Flux<User> find(Query query, Pageable pageable) {
+        return read(searcher -> {
+                int offset = pageable.isPaged() ? (int) pageable.getOffset() : 0;
+                int size = pageable.isPaged() ? pageable.getPageSize() : maxResults;
+                TopDocs topDocs = searcher.search(query, Math.min(offset + size, maxResults));
+                List<User> users = new ArrayList<>();
+                for (int i = offset; i < topDocs.scoreDocs.length; i++) {
+                    ScoreDoc scoreDoc = topDocs.scoreDocs[i];
+                    users.add(toUser(searcher.doc(scoreDoc.doc)));
+                }
+                return users;
+            })
+            .flatMapMany(Flux::fromIterable);
+    }
+
+    private <T> Mono<T> read(SearcherCallback<T> callback) {
+        return Mono
+            .fromCallable(() -> {
+                IndexSearcher searcher = searcherManager.acquire();
+                try {
+                    return callback.apply(searcher);
+                } finally {
+                    searcherManager.release(searcher);
+                }
+            })
+            .subscribeOn(scheduler);
+    }
+
+    /**
+     * @param durable whether the write is committed before it completes, rather than by the next scheduled commit.
+     */
+    private Mono<Void> write(WriterCallback callback, boolean durable) {
+        return Mono
+            .<Void>fromCallable(() -> {
+                callback.run();
+                if (durable) {
+                    indexWriter.commit();
+                }
+                // a refresh already running in another thread may not see this write, the next scheduled one will
+                searcherManager.maybeRefresh();
+                return null;
+            })
+            .subscribeOn(scheduler);
+    }
+
+    private void commit() {
+        try {
+            if (indexWriter.hasUncommittedChanges()) {
+                indexWriter.commit();
+            }
+            searcherManager.maybeRefresh();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not commit the embedded user index: {}", e.getMessage());
+        }
+    }
+
+    private static Term idTerm(String id) {
+        return new Term("id", id);
+    }
+
+    private static Document toDocument(User user) {
+        Document document = new Document();
+        document.add(new StringField("id", user.getId(), Field.Store.YES));
+        addText(document, "login", user.getLogin());
+        addText(document, "firstName", user.getFirstName());
+        addText(document, "lastName", user.getLastName());
+        addText(document, "email", user.getEmail());
+        addText(document, "langKey", user.getLangKey());
+        addText(document, "createdBy", user.getCreatedBy());
+        addText(document, "lastModifiedBy", user.getLastModifiedBy());
+        document.add(new StringField("activated", String.valueOf(user.isActivated()), Field.Store.YES));
+        if (user.getImageUrl() != null) {
+            document.add(new StoredField("imageUrl", user.getImageUrl()));
+        }
+        if (user.getCreatedDate() != null) {
+            document.add(new StoredField("createdDate", user.getCreatedDate().toEpochMilli()));
+        }
+        if (user.getLastModifiedDate() != null) {
+            document.add(new StoredField("lastModifiedDate", user.getLastModifiedDate().toEpochMilli()));
+        }
+        return document;
+    }
+
+    private static void addText(Document document, String name, String value) {
+        if (value != null) {
+            document.add(new TextField(name, value, Field.Store.YES));
+        }
+    }
+
+    private static User toUser(Document document) {
+        User user = new User();
+        user.setId(document.get("id"));
+        user.setLogin(document.get("login"));
+        user.setFirstName(document.get("firstName"));
+        user.setLastName(document.get("lastName"));
+        user.setEmail(document.get("email"));
+        user.setLangKey(document.get("langKey"));
+        user.setImageUrl(document.get("imageUrl"));
+        user.setCreatedBy(document.get("createdBy"));
+        user.setLastModifiedBy(document.get("lastModifiedBy"));
+        user.setActivated(Boolean.parseBoolean(document.get("activated")));
+        user.setCreatedDate(toInstant(document.getField("createdDate")));
+        user.setLastModifiedDate(toInstant(document.getField("lastModifiedDate")));
+        return user;
+    }
+
+    private static Instant toInstant(IndexableField field) {
+        return field == null ? null : Instant.ofEpochMilli(field.numericValue().longValue());
+    }
+
+    @FunctionalInterface
+    private interface SearcherCallback<T> {
+        T apply(IndexSearcher searcher) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface WriterCallback {
+        void run() throws IOException;
+    }
+}
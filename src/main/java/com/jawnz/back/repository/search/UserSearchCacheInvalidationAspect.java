@@ -0,0 +1,51 @@
+package com.jawnz.back.repository.search;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Aspect invalidating the {@link UserSearchResultCache} whenever the user index is written to.
+ */
+@Aspect
+@Component
+public class UserSearchCacheInvalidationAspect {
+
+    private final UserSearchResultCache userSearchResultCache;
+
+    public UserSearchCacheInvalidationAspect(UserSearchResultCache userSearchResultCache) {
+        this.userSearchResultCache = userSearchResultCache;
+    }
+
+    /**
+     * Pointcut that matches all save and delete operations of the {@link UserSearchRepository}.
+     */
+    @Pointcut("target(com.jawnz.back.repository.search.UserSearchRepository) && (execution(* save*(..)) || execution(* delete*(..)))")
+    public void userIndexWritePointcut() {
+        // Method is empty as this is just a Pointcut, the implementations are in the advices.
+    }
+
+    /**
+     * Advice that invalidates the cache once a write has completed.
+     *
+     * @param joinPoint join point for advice.
+     * @return result.
+     * @throws Throwable throws any exception of the advised method.
+     */
+    @Around("userIndexWritePointcut()")
+    public Object invalidateAfterWrite(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object result = joinPoint.proceed();
+        if (result instanceof Mono) {
+            return ((Mono<?>) result).doFinally(signal -> userSearchResultCache.invalidate());
+        }
+        if (result instanceof Flux) {
+            return ((Flux<?>) result).doFinally(signal -> userSearchResultCache.invalidate());
+        }
+        userSearchResultCache.invalidate();
+        return result;
+    }
+}
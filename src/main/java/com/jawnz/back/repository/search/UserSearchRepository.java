@@ -2,7 +2,9 @@ package com.jawnz.back.repository.search;
 
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
 
+import com.jawnz.back.config.ApplicationProperties;
 import com.jawnz.back.domain.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.elasticsearch.core.ReactiveElasticsearchTemplate;
 import org.springframework.data.elasticsearch.core.SearchHit;
 import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
@@ -16,19 +18,44 @@ public interface UserSearchRepository extends ReactiveElasticsearchRepository<Us
 
 interface UserSearchRepositoryInternal {
     Flux<User> search(String query);
+
+    Flux<User> search(String query, Pageable pageable);
 }
 
 class UserSearchRepositoryInternalImpl implements UserSearchRepositoryInternal {
 
     private final ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
-
-    UserSearchRepositoryInternalImpl(ReactiveElasticsearchTemplate reactiveElasticsearchTemplate) {
+    private final UserSearchResultCache userSearchResultCache;
+    private final boolean checkpointEnabled;
+
+    UserSearchRepositoryInternalImpl(
+        ReactiveElasticsearchTemplate reactiveElasticsearchTemplate,
+        UserSearchResultCache userSearchResultCache,
+        ApplicationProperties applicationProperties
+    ) {
         this.reactiveElasticsearchTemplate = reactiveElasticsearchTemplate;
+        this.userSearchResultCache = userSearchResultCache;
+        this.checkpointEnabled = applicationProperties.getReactor().isCheckpointEnabled();
     }
 
     @Override
     public Flux<User> search(String query) {
-        NativeSearchQuery nativeSearchQuery = new NativeSearchQuery(queryStringQuery(query));
-        return reactiveElasticsearchTemplate.search(nativeSearchQuery, User.class).map(SearchHit::getContent);
+        return search(query, Pageable.unpaged());
+    }
+
+    @Override
+    public Flux<User> search(String query, Pageable pageable) {
+        Flux<User> users = userSearchResultCache.get(
+            query,
+            pageable,
+            () -> {
+                NativeSearchQuery nativeSearchQuery = new NativeSearchQuery(queryStringQuery(query));
+                if (pageable.isPaged()) {
+                    nativeSearchQuery.setPageable(pageable);
+                }
+                return reactiveElasticsearchTemplate.search(nativeSearchQuery, User.class).map(SearchHit::getContent);
+            }
+        );
+        return checkpointEnabled ? users.checkpoint("UserSearchRepository.search") : users;
     }
 }
@@ -0,0 +1,128 @@
+package com.jawnz.back.repository.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jawnz.back.config.ApplicationProperties;
+import com.jawnz.back.domain.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+/**
+ * Bounded local cache of {@link UserSearchRepository} search results.
+ * <p>
+ * Entries are keyed by the index generation, which is bumped on every write to the user index,
+ * so a write makes all previously cached results unreachable.
+ */
+@Component
+public class UserSearchResultCache {
+
+    public static final String CACHE_NAME = "userSearch";
+
+    private final boolean enabled;
+
+    private final long refreshIntervalNanos;
+
+    private final Cache<Key, List<User>> cache;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile long lastWriteNanos;
+
+    public UserSearchResultCache(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        ApplicationProperties.Search.Cache properties = applicationProperties.getSearch().getCache();
+        this.enabled = properties.isEnabled();
+        this.refreshIntervalNanos = properties.getRefreshInterval().toNanos();
+        this.lastWriteNanos = System.nanoTime() - refreshIntervalNanos;
+        this.cache =
+            Caffeine
+                .newBuilder()
+                .maximumSize(properties.getMaxEntries())
+                .expireAfterWrite(properties.getTimeToLive())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the cached result for the given query and page, or runs the search and caches its result.
+     *
+     * @param query the query string.
+     * @param pageable the requested page.
+     * @param search the actual search, invoked on a cache miss.
+     * @return the matching users.
+     */
+    public Flux<User> get(String query, Pageable pageable, Supplier<Flux<User>> search) {
+        if (!enabled) {
+            return search.get();
+        }
+        return Flux.defer(() -> {
+            long searchGeneration = generation.get();
+            Key key = new Key(searchGeneration, normalize(query), pageable);
+            List<User> cached = cache.getIfPresent(key);
+            if (cached != null) {
+                return Flux.fromIterable(cached);
+            }
+            boolean cacheable = System.nanoTime() - lastWriteNanos >= refreshIntervalNanos;
+            return search
+                .get()
+                .collectList()
+                .doOnNext(users -> {
+                    // a write that happened while searching may not be reflected in the result
+                    if (cacheable && generation.get() == searchGeneration) {
+                        cache.put(key, List.copyOf(users));
+                    }
+                })
+                .flatMapIterable(users -> users);
+        });
+    }
+
+    /**
+     * Invalidates all cached results; to be called whenever the user index is written to.
+     */
+    public void invalidate() {
+        lastWriteNanos = System.nanoTime();
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    static String normalize(String query) {
+        return query == null ? "" : query.trim().replaceAll("\\s+", " ");
+    }
+
+    private static final class Key {
+
+        private final long generation;
+        private final String query;
+        private final Pageable pageable;
+
+        Key(long generation, String query, Pageable pageable) {
+            this.generation = generation;
+            this.query = query;
+            this.pageable = pageable;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return generation == key.generation && query.equals(key.query) && pageable.equals(key.pageable);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(generation, query, pageable);
+        }
+    }
+}
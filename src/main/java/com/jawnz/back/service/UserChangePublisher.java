@@ -0,0 +1,120 @@
+package com.jawnz.back.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jawnz.back.config.ApplicationProperties;
+import com.jawnz.back.service.dto.UserChangeEventDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+
+/**
+ * Publishes the {@link UserChangeEventDTO user changes} to a Kafka topic, keyed by user id, so that other services
+ * can follow them rather than polling the users.
+ * <p>
+ * Events are sent once the current transaction is committed, never for a rolled back one. Sending does not delay
+ * the write: failures are only logged and counted.
+ */
+@Service
+public class UserChangePublisher {
+
+    private final Logger log = LoggerFactory.getLogger(UserChangePublisher.class);
+
+    private final KafkaSender<String, byte[]> kafkaSender;
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+
+    private final String topic;
+
+    private final Counter sentCounter;
+
+    private final Counter failedCounter;
+
+    public UserChangePublisher(
+        KafkaSender<String, byte[]> kafkaSender,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.kafkaSender = kafkaSender;
+        this.objectMapper = objectMapper;
+        this.enabled = applicationProperties.getUserEvents().isEnabled();
+        this.topic = applicationProperties.getUserEvents().getTopic();
+        this.sentCounter = counter(meterRegistry, "sent");
+        this.failedCounter = counter(meterRegistry, "failed");
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String outcome) {
+        return Counter
+            .builder("user.events")
+            .description("User change events published")
+            .tag("topic", topic)
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Publishes an event once the current transaction is committed, or right away outside of a transaction.
+     */
+    public Mono<Void> publishAfterCommit(UserChangeEventDTO event) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        return TransactionSynchronizationManager
+            .forCurrentTransaction()
+            .filter(TransactionSynchronizationManager::isSynchronizationActive)
+            .doOnNext(synchronizationManager ->
+                synchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public Mono<Void> afterCommit() {
+                            return Mono.fromRunnable(() -> send(event));
+                        }
+                    }
+                )
+            )
+            .onErrorResume(NoTransactionException.class, e -> Mono.empty())
+            .switchIfEmpty(Mono.fromRunnable(() -> send(event)))
+            .then();
+    }
+
+    private void send(UserChangeEventDTO event) {
+        byte[] value;
+        try {
+            value = objectMapper.writeValueAsBytes(event);
+        } catch (JsonProcessingException e) {
+            failedCounter.increment();
+            log.error("Could not serialize {}", event, e);
+            return;
+        }
+        kafkaSender
+            .send(Mono.just(SenderRecord.create(new ProducerRecord<>(topic, event.getId(), value), null)))
+            .next()
+            .subscribe(
+                result -> {
+                    if (result.exception() != null) {
+                        failedCounter.increment();
+                        log.warn("Kafka rejected {} for {}: {}", event, topic, result.exception().getMessage());
+                    } else {
+                        sentCounter.increment();
+                        log.debug("Published {}", event);
+                    }
+                },
+                e -> {
+                    failedCounter.increment();
+                    log.warn("Could not publish {} to {}: {}", event, topic, e.getMessage());
+                }
+            );
+    }
+}
@@ -0,0 +1,193 @@
+package com.jawnz.back.service;
+
+import com.jawnz.back.config.ApplicationProperties;
+import com.jawnz.back.domain.SearchWatermark;
+import com.jawnz.back.domain.User;
+import com.jawnz.back.repository.SearchWatermarkRepository;
+import com.jawnz.back.repository.UserRepository;
+import com.jawnz.back.repository.search.UserSearchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service reconciling the user search index with the {@code jwn_user} table.
+ * <p>
+ * Users are scanned in last modification order past a persisted watermark, their indexed documents
+ * are fetched in bulk, and only the missing or stale ones are re-indexed.
+ * <p>
+ * The date encoding of the documents is recorded with the watermark: when the configured
+ * {@code application.search.date-encoding} changes, the next run re-indexes every user, which
+ * migrates the existing documents to the new encoding.
+ */
+@Service
+public class UserSearchReconciliationService {
+
+    static final String WATERMARK_NAME = "user";
+
+    private final Logger log = LoggerFactory.getLogger(UserSearchReconciliationService.class);
+
+    private final UserRepository userRepository;
+
+    private final UserSearchRepository userSearchRepository;
+
+    private final SearchWatermarkRepository searchWatermarkRepository;
+
+    private final ApplicationProperties.Search.Reconciliation properties;
+
+    private final String dateEncoding;
+
+    private final Duration pauseBetweenBatches;
+
+    private final Counter checkedCounter;
+
+    private final Counter reindexedCounter;
+
+    private final Timer runTimer;
+
+    public UserSearchReconciliationService(
+        UserRepository userRepository,
+        UserSearchRepository userSearchRepository,
+        SearchWatermarkRepository searchWatermarkRepository,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.userRepository = userRepository;
+        this.userSearchRepository = userSearchRepository;
+        this.searchWatermarkRepository = searchWatermarkRepository;
+        this.properties = applicationProperties.getSearch().getReconciliation();
+        this.dateEncoding = applicationProperties.getSearch().getDateEncoding().name();
+        this.pauseBetweenBatches =
+            Duration.ofMillis(1000L * properties.getBatchSize() / Math.max(1, properties.getMaxDocumentsPerSecond()));
+        this.checkedCounter = meterRegistry.counter("search.reconciliation.documents", "index", WATERMARK_NAME, "outcome", "checked");
+        this.reindexedCounter = meterRegistry.counter("search.reconciliation.documents", "index", WATERMARK_NAME, "outcome", "reindexed");
+        this.runTimer = meterRegistry.timer("search.reconciliation.runs", "index", WATERMARK_NAME);
+    }
+
+    /**
+     * Runs one reconciliation pass; runs never overlap as the next one is only scheduled once this one completes.
+     */
+    @Scheduled(
+        initialDelayString = "${application.search.reconciliation.interval:PT1M}",
+        fixedDelayString = "${application.search.reconciliation.interval:PT1M}"
+    )
+    public void scheduledReconciliation() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            runTimer.record(() -> reconcile().block());
+        } catch (RuntimeException e) {
+            log.warn("User search reconciliation failed, it will resume from the last watermark: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Re-indexes the users modified since the persisted watermark whose document is missing or stale.
+     *
+     * @return the number of re-indexed users.
+     */
+    public Mono<Long> reconcile() {
+        Instant before = Instant.now().minus(properties.getSettleTime());
+        SearchWatermark initial = new SearchWatermark(WATERMARK_NAME, Instant.EPOCH, "", dateEncoding);
+        // an empty index, e.g. a new in-memory embedded index, is rebuilt from the start
+        return userSearchRepository
+            .count()
+            .flatMap(documents -> documents == 0 ? Mono.just(initial) : searchWatermarkRepository.findById(WATERMARK_NAME))
+            .defaultIfEmpty(initial)
+            .flatMap(watermark -> {
+                // watermarks written before the encoding was recorded are ISO ones
+                String indexedEncoding = Objects.requireNonNullElse(
+                    watermark.getDateEncoding(),
+                    ApplicationProperties.Search.DateEncoding.ISO.name()
+                );
+                if (dateEncoding.equals(indexedEncoding)) {
+                    return reconcileFrom(watermark, before, false);
+                }
+                log.info("Re-indexing every user to change the date encoding from {} to {}", indexedEncoding, dateEncoding);
+                return reconcileFrom(new SearchWatermark(WATERMARK_NAME, Instant.EPOCH, "", indexedEncoding), before, true);
+            })
+            .doOnNext(reindexed -> {
+                if (reindexed > 0) {
+                    log.info("Re-indexed {} missing or stale users", reindexed);
+                }
+            });
+    }
+
+    /**
+     * @param rewrite whether every user is re-indexed, in which case the previous date encoding is kept
+     * with the watermark until the last batch, so that an interrupted rewrite starts over.
+     */
+    private Mono<Long> reconcileFrom(SearchWatermark watermark, Instant before, boolean rewrite) {
+        return userRepository
+            .findAllModifiedBetween(watermark.getWatermark(), watermark.getLastId(), before, properties.getBatchSize())
+            .collectList()
+            .flatMap(batch -> {
+                boolean lastBatch = batch.size() < properties.getBatchSize();
+                if (batch.isEmpty()) {
+                    return rewrite ? searchWatermarkRepository.upsert(withDateEncoding(watermark)).thenReturn(0L) : Mono.just(0L);
+                }
+                User last = batch.get(batch.size() - 1);
+                SearchWatermark next = new SearchWatermark(
+                    WATERMARK_NAME,
+                    last.getLastModifiedDate(),
+                    last.getId(),
+                    watermark.getDateEncoding()
+                );
+                SearchWatermark saved = rewrite && !lastBatch ? next : withDateEncoding(next);
+                Mono<Long> reindexed = (rewrite ? reindex(batch) : reindexStale(batch)).flatMap(count ->
+                    searchWatermarkRepository.upsert(saved).thenReturn(count)
+                );
+                if (lastBatch) {
+                    return reindexed;
+                }
+                return reindexed.flatMap(count ->
+                    Mono.delay(pauseBetweenBatches).then(reconcileFrom(next, before, rewrite)).map(remaining -> count + remaining)
+                );
+            });
+    }
+
+    private SearchWatermark withDateEncoding(SearchWatermark watermark) {
+        return new SearchWatermark(WATERMARK_NAME, watermark.getWatermark(), watermark.getLastId(), dateEncoding);
+    }
+
+    private Mono<Long> reindexStale(List<User> batch) {
+        checkedCounter.increment(batch.size());
+        return userSearchRepository
+            .findAllById(batch.stream().map(User::getId).collect(Collectors.toList()))
+            .collectMap(User::getId)
+            .flatMap(indexed -> {
+                List<User> stale = batch.stream().filter(user -> isStale(user, indexed)).collect(Collectors.toList());
+                if (stale.isEmpty()) {
+                    return Mono.just(0L);
+                }
+                log.debug("Re-indexing {} users out of {}", stale.size(), batch.size());
+                return reindex(stale);
+            });
+    }
+
+    private Mono<Long> reindex(List<User> users) {
+        return userSearchRepository.saveAll(users).count().doOnNext(reindexedCounter::increment);
+    }
+
+    private static boolean isStale(User user, Map<String, User> indexed) {
+        User document = indexed.get(user.getId());
+        return document == null || !Objects.equals(truncate(user.getLastModifiedDate()), truncate(document.getLastModifiedDate()));
+    }
+
+    private static Instant truncate(Instant instant) {
+        return instant == null ? null : instant.truncatedTo(ChronoUnit.MILLIS);
+    }
+}
@@ -1,5 +1,6 @@
 package com.jawnz.back.service;
 
+import com.jawnz.back.config.ApplicationProperties;
 import com.jawnz.back.config.Constants;
 import com.jawnz.back.domain.Authority;
 import com.jawnz.back.domain.User;
@@ -8,6 +9,7 @@ import com.jawnz.back.repository.UserRepository;
 import com.jawnz.back.repository.search.UserSearchRepository;
 import com.jawnz.back.security.SecurityUtils;
 import com.jawnz.back.service.dto.AdminUserDTO;
+import com.jawnz.back.service.dto.UserChangeEventDTO;
 import com.jawnz.back.service.dto.UserDTO;
 import java.time.Instant;
 import java.util.*;
@@ -39,10 +41,22 @@ public class UserService {
 
     private final AuthorityRepository authorityRepository;
 
-    public UserService(UserRepository userRepository, UserSearchRepository userSearchRepository, AuthorityRepository authorityRepository) {
+    private final UserChangePublisher userChangePublisher;
+
+    private final boolean checkpointEnabled;
+
+    public UserService(
+        UserRepository userRepository,
+        UserSearchRepository userSearchRepository,
+        AuthorityRepository authorityRepository,
+        UserChangePublisher userChangePublisher,
+        ApplicationProperties applicationProperties
+    ) {
         this.userRepository = userRepository;
         this.userSearchRepository = userSearchRepository;
         this.authorityRepository = authorityRepository;
+        this.userChangePublisher = userChangePublisher;
+        this.checkpointEnabled = applicationProperties.getReactor().isCheckpointEnabled();
     }
 
     /**
@@ -57,10 +71,26 @@ public class UserService {
      */
     @Transactional
     public Mono<Void> updateUser(String firstName, String lastName, String email, String langKey, String imageUrl) {
-        return SecurityUtils
+        Mono<Void> updated = SecurityUtils
             .getCurrentUserLogin()
             .flatMap(userRepository::findOneByLogin)
             .flatMap(user -> {
+                Set<String> changedFields = new HashSet<>();
+                if (!Objects.equals(user.getFirstName(), firstName)) {
+                    changedFields.add(UserChangeEventDTO.FIRST_NAME);
+                }
+                if (!Objects.equals(user.getLastName(), lastName)) {
+                    changedFields.add(UserChangeEventDTO.LAST_NAME);
+                }
+                if (email != null && !email.toLowerCase().equals(user.getEmail())) {
+                    changedFields.add(UserChangeEventDTO.EMAIL);
+                }
+                if (!Objects.equals(user.getLangKey(), langKey)) {
+                    changedFields.add(UserChangeEventDTO.LANG_KEY);
+                }
+                if (!Objects.equals(user.getImageUrl(), imageUrl)) {
+                    changedFields.add(UserChangeEventDTO.IMAGE_URL);
+                }
                 user.setFirstName(firstName);
                 user.setLastName(lastName);
                 if (email != null) {
@@ -68,11 +98,12 @@ public class UserService {
                 }
                 user.setLangKey(langKey);
                 user.setImageUrl(imageUrl);
-                return saveUser(user);
+                return saveUser(user, false, changedFields);
             })
             .flatMap(user -> userSearchRepository.save(user).thenReturn(user))
             .doOnNext(user -> log.debug("Changed Information for User: {}", user))
             .then();
+        return checkpointEnabled ? updated.checkpoint("UserService.updateUser") : updated;
     }
 
     @Transactional
@@ -80,9 +111,20 @@ public class UserService {
         return saveUser(user, false);
     }
 
+    /**
+     * Saves a user and its authorities, publishing a change event of all its fields once committed.
+     *
+     * @param user the user to save.
+     * @param forceCreate whether to insert the user, its id being set.
+     * @return the saved user.
+     */
     @Transactional
     public Mono<User> saveUser(User user, boolean forceCreate) {
-        return SecurityUtils
+        return saveUser(user, forceCreate, UserChangeEventDTO.ALL_FIELDS);
+    }
+
+    private Mono<User> saveUser(User user, boolean forceCreate, Set<String> changedFields) {
+        Mono<User> saved = SecurityUtils
             .getCurrentUserLogin()
             .switchIfEmpty(Mono.just(Constants.SYSTEM))
             .flatMap(login -> {
@@ -90,6 +132,8 @@ public class UserService {
                     user.setCreatedBy(login);
                 }
                 user.setLastModifiedBy(login);
+                // the search index reconciliation scans users by their last modification date
+                user.setLastModifiedDate(Instant.now());
                 // Saving the relationship can be done in an entity callback
                 // once https://github.com/spring-projects/spring-data-r2dbc/issues/215 is done
                 Mono<User> persistedUser;
@@ -102,9 +146,15 @@ public class UserService {
                     Flux
                         .fromIterable(user.getAuthorities())
                         .flatMap(authority -> userRepository.saveUserAuthority(savedUser.getId(), authority.getName()))
+                        .then(
+                            changedFields.isEmpty()
+                                ? Mono.empty()
+                                : userChangePublisher.publishAfterCommit(new UserChangeEventDTO(savedUser, changedFields))
+                        )
                         .then(Mono.just(savedUser))
                 );
             });
+        return checkpointEnabled ? saved.checkpoint("UserService.saveUser") : saved;
     }
 
     @Transactional(readOnly = true)
@@ -156,9 +206,10 @@ public class UserService {
             })
             .doOnNext(authority -> log.debug("Saving authority '{}' in local database", authority))
             .flatMap(authorityRepository::save)
-            .then(userRepository.findOneByLogin(user.getLogin()))
+            .then(userRepository.findOneWithAuthoritiesByLogin(user.getLogin()))
             .switchIfEmpty(saveUser(user, true))
             .flatMap(existingUser -> {
+                Mono<Void> authoritiesSynced = syncAuthoritiesWithIdP(existingUser, user.getAuthorities());
                 // if IdP sends last updated information, use it to determine if an update should happen
                 if (details.get("updated_at") != null) {
                     Instant dbModifiedDate = existingUser.getLastModifiedDate();
@@ -170,18 +221,41 @@ public class UserService {
                     }
                     if (idpModifiedDate.isAfter(dbModifiedDate)) {
                         log.debug("Updating user '{}' in local database", user.getLogin());
-                        return updateUser(user.getFirstName(), user.getLastName(), user.getEmail(), user.getLangKey(), user.getImageUrl());
+                        return authoritiesSynced.then(
+                            updateUser(user.getFirstName(), user.getLastName(), user.getEmail(), user.getLangKey(), user.getImageUrl())
+                        );
                     }
                     // no last updated info, blindly update
                 } else {
                     log.debug("Updating user '{}' in local database", user.getLogin());
-                    return updateUser(user.getFirstName(), user.getLastName(), user.getEmail(), user.getLangKey(), user.getImageUrl());
+                    return authoritiesSynced.then(
+                        updateUser(user.getFirstName(), user.getLastName(), user.getEmail(), user.getLangKey(), user.getImageUrl())
+                    );
                 }
-                return Mono.empty();
+                return authoritiesSynced;
             })
             .thenReturn(user);
     }
 
+    /**
+     * Replaces the authorities of a local user by its IdP roles, publishing a change event once committed, if they differ.
+     */
+    private Mono<Void> syncAuthoritiesWithIdP(User existingUser, Set<Authority> idpAuthorities) {
+        Set<String> names = idpAuthorities.stream().map(Authority::getName).collect(Collectors.toSet());
+        if (existingUser.getAuthorities().stream().map(Authority::getName).collect(Collectors.toSet()).equals(names)) {
+            return Mono.empty();
+        }
+        log.debug("Updating the authorities of user '{}' in local database", existingUser.getLogin());
+        existingUser.setAuthorities(idpAuthorities);
+        return userRepository
+            .deleteUserAuthorities(existingUser.getId())
+            .thenMany(Flux.fromIterable(names))
+            .concatMap(name -> userRepository.saveUserAuthority(existingUser.getId(), name))
+            .then(
+                userChangePublisher.publishAfterCommit(new UserChangeEventDTO(existingUser, Set.of(UserChangeEventDTO.AUTHORITIES)))
+            );
+    }
+
     /**
      * Returns the user from an OAuth 2.0 login or resource server with JWT.
      * Synchronizes the user in the local repository.
@@ -0,0 +1,101 @@
+package com.jawnz.back.service.dto;
+
+import com.jawnz.back.domain.User;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A DTO representing a change of a user, published once committed.
+ * <p>
+ * The version is the last modification date of the user in epoch milliseconds, so that consumers can discard
+ * the events older than the state they already have.
+ */
+public class UserChangeEventDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String LOGIN = "login";
+
+    public static final String FIRST_NAME = "firstName";
+
+    public static final String LAST_NAME = "lastName";
+
+    public static final String EMAIL = "email";
+
+    public static final String ACTIVATED = "activated";
+
+    public static final String LANG_KEY = "langKey";
+
+    public static final String IMAGE_URL = "imageUrl";
+
+    public static final String AUTHORITIES = "authorities";
+
+    /**
+     * Fields of a created user, or of a user saved without knowing what changed.
+     */
+    public static final Set<String> ALL_FIELDS = Set.of(LOGIN, FIRST_NAME, LAST_NAME, EMAIL, ACTIVATED, LANG_KEY, IMAGE_URL, AUTHORITIES);
+
+    private String id;
+
+    private Set<String> changedFields;
+
+    private long version;
+
+    private Instant timestamp;
+
+    public UserChangeEventDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public UserChangeEventDTO(User user, Set<String> changedFields) {
+        this.id = user.getId();
+        // sorted, so that the events of a same change are identical
+        this.changedFields = new TreeSet<>(changedFields);
+        this.version = user.getLastModifiedDate() != null ? user.getLastModifiedDate().toEpochMilli() : 0;
+        this.timestamp = Instant.now();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Set<String> getChangedFields() {
+        return changedFields;
+    }
+
+    public void setChangedFields(Set<String> changedFields) {
+        this.changedFields = changedFields;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "UserChangeEventDTO{" +
+            "id='" + id + '\'' +
+            ", changedFields=" + changedFields +
+            ", version=" + version +
+            ", timestamp=" + timestamp +
+            "}";
+    }
+}
@@ -0,0 +1,59 @@
+package com.jawnz.back.service.stream;
+
+import java.io.Serializable;
+
+/**
+ * Acknowledgements of a batch of messages published to Kafka in bulk.
+ */
+public class BulkPublishResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long batch;
+
+    private final int acknowledged;
+
+    private final int failed;
+
+    private final String error;
+
+    public BulkPublishResult(long batch, int acknowledged, int failed, String error) {
+        this.batch = batch;
+        this.acknowledged = acknowledged;
+        this.failed = failed;
+        this.error = error;
+    }
+
+    /**
+     * Position of the batch in the request, starting at 0.
+     */
+    public long getBatch() {
+        return batch;
+    }
+
+    public int getAcknowledged() {
+        return acknowledged;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * First broker error of the batch, if any.
+     */
+    public String getError() {
+        return error;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BulkPublishResult{" +
+            "batch=" + batch +
+            ", acknowledged=" + acknowledged +
+            ", failed=" + failed +
+            ", error='" + error + '\'' +
+            "}";
+    }
+}
@@ -0,0 +1,108 @@
+package com.jawnz.back.service.stream;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.stream.binding.BindingsLifecycleController;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+
+/**
+ * Pauses and resumes a consumer binding as the demand of the {@link KafkaSseHub} subscribers changes,
+ * so that the records wait in Kafka rather than in memory.
+ * <p>
+ * Pausing stops the polling: the records already fetched are still delivered.
+ */
+public class ConsumerFlowControl {
+
+    private final Logger log = LoggerFactory.getLogger(ConsumerFlowControl.class);
+
+    private final String bindingName;
+
+    private final BindingsLifecycleController bindingsLifecycleController;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Timer pausedTimer;
+
+    private final Timer lagTimer;
+
+    private Timer.Sample pausedSample;
+
+    private boolean stopped;
+
+    public ConsumerFlowControl(String bindingName, BindingsLifecycleController bindingsLifecycleController, MeterRegistry meterRegistry) {
+        this.bindingName = bindingName;
+        this.bindingsLifecycleController = bindingsLifecycleController;
+        this.meterRegistry = meterRegistry;
+        this.pausedTimer =
+            Timer
+                .builder("sse.consumer.paused")
+                .description("Time the consumption was paused for lack of subscriber demand")
+                .tag("binding", bindingName)
+                .register(meterRegistry);
+        this.lagTimer =
+            Timer
+                .builder("sse.consumer.lag")
+                .description("Time between the production of the records and their consumption")
+                .tag("binding", bindingName)
+                .register(meterRegistry);
+        Gauge
+            .builder("sse.consumer.state", this, control -> control.isPaused() ? 1 : 0)
+            .description("Whether the consumption is paused")
+            .tag("binding", bindingName)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Pauses the binding when there is no demand, resumes it when there is again.
+     */
+    public synchronized void demandChanged(boolean demand) {
+        if (stopped) {
+            return;
+        }
+        if (!demand && pausedSample == null) {
+            log.debug("Pausing binding {}", bindingName);
+            bindingsLifecycleController.changeState(bindingName, BindingsLifecycleController.State.PAUSED);
+            pausedSample = Timer.start(meterRegistry);
+        } else if (demand && pausedSample != null) {
+            log.debug("Resuming binding {}", bindingName);
+            bindingsLifecycleController.changeState(bindingName, BindingsLifecycleController.State.RESUMED);
+            pausedSample.stop(pausedTimer);
+            pausedSample = null;
+        }
+    }
+
+    /**
+     * Stops the binding for good, committing the offsets of the records consumed; the demand is no longer followed.
+     */
+    public synchronized void stop() {
+        if (stopped) {
+            return;
+        }
+        stopped = true;
+        log.debug("Stopping binding {}", bindingName);
+        bindingsLifecycleController.changeState(bindingName, BindingsLifecycleController.State.STOPPED);
+        if (pausedSample != null) {
+            pausedSample.stop(pausedTimer);
+            pausedSample = null;
+        }
+    }
+
+    public synchronized boolean isPaused() {
+        return pausedSample != null;
+    }
+
+    /**
+     * Records how long after its production a message is consumed.
+     */
+    public void recordLag(Message<?> message) {
+        Object timestamp = message.getHeaders().get(KafkaHeaders.RECEIVED_TIMESTAMP);
+        if (timestamp instanceof Long) {
+            lagTimer.record(Math.max(0, System.currentTimeMillis() - (Long) timestamp), TimeUnit.MILLISECONDS);
+        }
+    }
+}
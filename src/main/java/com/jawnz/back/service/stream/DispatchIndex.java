@@ -0,0 +1,119 @@
+package com.jawnz.back.service.stream;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+
+/**
+ * Subscribers indexed by the value their {@link StreamFilter} selects, so that finding the subscribers of a message
+ * costs a few lookups and the matches, rather than a check per subscriber.
+ * <p>
+ * Key prefixes are looked up for each distinct prefix length, headers for each distinct filtered header name.
+ * <p>
+ * Not thread-safe: callers synchronize.
+ */
+class DispatchIndex<S> {
+
+    private final Set<S> unfiltered = new LinkedHashSet<>();
+
+    private final Map<String, Set<S>> byKey = new HashMap<>();
+
+    private final Map<String, Set<S>> byKeyPrefix = new HashMap<>();
+
+    /**
+     * Number of prefixes of each length.
+     */
+    private final TreeMap<Integer, Integer> keyPrefixLengths = new TreeMap<>();
+
+    private final Map<String, Map<String, Set<S>>> byHeader = new HashMap<>();
+
+    void add(@Nullable StreamFilter filter, S subscriber) {
+        if (filter == null) {
+            unfiltered.add(subscriber);
+            return;
+        }
+        switch (filter.getType()) {
+            case KEY:
+                byKey.computeIfAbsent(filter.getValue(), value -> new LinkedHashSet<>()).add(subscriber);
+                break;
+            case KEY_PREFIX:
+                if (byKeyPrefix.computeIfAbsent(filter.getValue(), value -> new LinkedHashSet<>()).add(subscriber)) {
+                    keyPrefixLengths.merge(filter.getValue().length(), 1, Integer::sum);
+                }
+                break;
+            default:
+                byHeader
+                    .computeIfAbsent(filter.getHeader(), name -> new HashMap<>())
+                    .computeIfAbsent(filter.getValue(), value -> new LinkedHashSet<>())
+                    .add(subscriber);
+        }
+    }
+
+    void remove(@Nullable StreamFilter filter, S subscriber) {
+        if (filter == null) {
+            unfiltered.remove(subscriber);
+            return;
+        }
+        switch (filter.getType()) {
+            case KEY:
+                remove(byKey, filter.getValue(), subscriber);
+                break;
+            case KEY_PREFIX:
+                if (remove(byKeyPrefix, filter.getValue(), subscriber)) {
+                    keyPrefixLengths.computeIfPresent(filter.getValue().length(), (length, count) -> count > 1 ? count - 1 : null);
+                }
+                break;
+            default:
+                Map<String, Set<S>> byValue = byHeader.get(filter.getHeader());
+                if (byValue != null) {
+                    remove(byValue, filter.getValue(), subscriber);
+                    if (byValue.isEmpty()) {
+                        byHeader.remove(filter.getHeader());
+                    }
+                }
+        }
+    }
+
+    private static <S> boolean remove(Map<String, Set<S>> index, String value, S subscriber) {
+        Set<S> subscribers = index.get(value);
+        if (subscribers == null || !subscribers.remove(subscriber)) {
+            return false;
+        }
+        if (subscribers.isEmpty()) {
+            index.remove(value);
+        }
+        return true;
+    }
+
+    /**
+     * Adds the subscribers of a message to the given list.
+     *
+     * @param key the key of the message, see {@link StreamFilter#key(Message)}.
+     */
+    void collect(Message<?> message, @Nullable String key, List<S> matches) {
+        matches.addAll(unfiltered);
+        if (key != null) {
+            addAll(byKey.get(key), matches);
+            for (int length : keyPrefixLengths.headMap(key.length(), true).keySet()) {
+                addAll(byKeyPrefix.get(key.substring(0, length)), matches);
+            }
+        }
+        for (Map.Entry<String, Map<String, Set<S>>> entry : byHeader.entrySet()) {
+            String value = StreamFilter.header(message, entry.getKey());
+            if (value != null) {
+                addAll(entry.getValue().get(value), matches);
+            }
+        }
+    }
+
+    private static <S> void addAll(@Nullable Set<S> subscribers, List<S> matches) {
+        if (subscribers != null) {
+            matches.addAll(subscribers);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.jawnz.back.service.stream;
+
+import java.nio.ByteBuffer;
+import org.springframework.lang.Nullable;
+
+/**
+ * A message read from the {@link SseJournal}.
+ */
+public class JournalRecord {
+
+    private final long sequence;
+
+    private final long timestamp;
+
+    private final int partition;
+
+    private final long offset;
+
+    private final String contentType;
+
+    private final String key;
+
+    private final ByteBuffer payload;
+
+    JournalRecord(
+        long sequence,
+        long timestamp,
+        int partition,
+        long offset,
+        @Nullable String contentType,
+        @Nullable String key,
+        ByteBuffer payload
+    ) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.partition = partition;
+        this.offset = offset;
+        this.contentType = contentType;
+        this.key = key;
+        this.payload = payload;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * The Kafka partition of the message, or -1 if it was not received from Kafka.
+     */
+    public int getPartition() {
+        return partition;
+    }
+
+    /**
+     * The Kafka offset of the message, or -1 if it was not received from Kafka.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    @Nullable
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * The key of the Kafka record of the message, if any.
+     */
+    @Nullable
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * The payload, as a read-only view of the journal file.
+     */
+    public ByteBuffer getPayload() {
+        return payload;
+    }
+}
@@ -0,0 +1,282 @@
+package com.jawnz.back.service.stream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.lang.Nullable;
+
+/**
+ * A segment of the {@link SseJournal}: a memory-mapped log file of records, and a memory-mapped index
+ * of their positions, partitions and offsets.
+ * <p>
+ * Log records are {@code [int length][long timestamp][int partition][long offset][unsigned short content type length]
+ * [unsigned short key length][content type][key][payload]}, the length being written last so that a partially written
+ * record is ignored when the segment is reopened. Content types and keys are thus at most {@value #MAX_FIELD_LENGTH} bytes.
+ * Index entries are {@code [int position][int partition][long offset]}.
+ * <p>
+ * A single thread appends; readers only see the records counted when they start reading.
+ */
+class JournalSegment implements Closeable {
+
+    static final String LOG_SUFFIX = ".log";
+
+    static final String INDEX_SUFFIX = ".index";
+
+    static final int MAX_FIELD_LENGTH = 0xFFFF;
+
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES + Integer.BYTES + Long.BYTES + Short.BYTES + Short.BYTES;
+
+    private static final int CONTENT_TYPE_LENGTH_POSITION = HEADER_SIZE - 2 * Short.BYTES;
+
+    private static final int KEY_LENGTH_POSITION = HEADER_SIZE - Short.BYTES;
+
+    private static final int INDEX_ENTRY_SIZE = Integer.BYTES + Integer.BYTES + Long.BYTES;
+
+    private final long baseSequence;
+
+    private final Path logPath;
+
+    private final Path indexPath;
+
+    private final MappedByteBuffer log;
+
+    private final MappedByteBuffer index;
+
+    /**
+     * Sorted offsets of each partition, to find a record without scanning the index.
+     */
+    private final Map<Integer, PartitionOffsets> partitionOffsets = new ConcurrentHashMap<>();
+
+    private volatile int count;
+
+    private volatile int writePosition;
+
+    private volatile long lastTimestamp;
+
+    private JournalSegment(long baseSequence, Path logPath, Path indexPath, MappedByteBuffer log, MappedByteBuffer index) {
+        this.baseSequence = baseSequence;
+        this.logPath = logPath;
+        this.indexPath = indexPath;
+        this.log = log;
+        this.index = index;
+    }
+
+    /**
+     * Opens the segment starting at the given sequence, creating its files if needed, and recovers the records already written.
+     */
+    static JournalSegment open(Path directory, long baseSequence, int segmentSize) throws IOException {
+        String name = String.format("%020d", baseSequence);
+        Path logPath = directory.resolve(name + LOG_SUFFIX);
+        Path indexPath = directory.resolve(name + INDEX_SUFFIX);
+        int indexCapacity = segmentSize / (HEADER_SIZE + 1);
+        JournalSegment segment = new JournalSegment(
+            baseSequence,
+            logPath,
+            indexPath,
+            map(logPath, segmentSize),
+            map(indexPath, indexCapacity * INDEX_ENTRY_SIZE)
+        );
+        segment.recover();
+        return segment;
+    }
+
+    private static MappedByteBuffer map(Path path, int size) throws IOException {
+        try (
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+        ) {
+            // files are sized upfront and stay sparse until written
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+        }
+    }
+
+    private void recover() {
+        int position = 0;
+        int recovered = 0;
+        while (position + HEADER_SIZE <= log.capacity()) {
+            int length = log.getInt(position);
+            if (length < HEADER_SIZE - Integer.BYTES || position + Integer.BYTES + length > log.capacity()) {
+                break;
+            }
+            int partition = log.getInt(position + Integer.BYTES + Long.BYTES);
+            long offset = log.getLong(position + Integer.BYTES + Long.BYTES + Integer.BYTES);
+            lastTimestamp = log.getLong(position + Integer.BYTES);
+            if (!writeIndexEntry(recovered, position, partition, offset)) {
+                break;
+            }
+            recovered++;
+            position += Integer.BYTES + length;
+        }
+        writePosition = position;
+        count = recovered;
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @return whether the record fits in the segment.
+     * @throws IllegalArgumentException if the content type or the key is longer than {@value #MAX_FIELD_LENGTH} bytes.
+     */
+    boolean append(long timestamp, int partition, long offset, byte[] contentType, byte[] key, ByteBuffer payload) {
+        if (contentType.length > MAX_FIELD_LENGTH || key.length > MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException("Content type or key longer than " + MAX_FIELD_LENGTH + " bytes");
+        }
+        int position = writePosition;
+        int length = HEADER_SIZE - Integer.BYTES + contentType.length + key.length + payload.remaining();
+        if (position + Integer.BYTES + length > log.capacity() || (count + 1) * INDEX_ENTRY_SIZE > index.capacity()) {
+            return false;
+        }
+        log.putLong(position + Integer.BYTES, timestamp);
+        log.putInt(position + Integer.BYTES + Long.BYTES, partition);
+        log.putLong(position + Integer.BYTES + Long.BYTES + Integer.BYTES, offset);
+        log.putShort(position + CONTENT_TYPE_LENGTH_POSITION, (short) contentType.length);
+        log.putShort(position + KEY_LENGTH_POSITION, (short) key.length);
+        ByteBuffer target = log.duplicate();
+        target.position(position + HEADER_SIZE);
+        target.put(contentType);
+        target.put(key);
+        target.put(payload.duplicate());
+        log.putInt(position, length);
+        writeIndexEntry(count, position, partition, offset);
+        lastTimestamp = timestamp;
+        writePosition = position + Integer.BYTES + length;
+        count++;
+        return true;
+    }
+
+    private boolean writeIndexEntry(int entry, int position, int partition, long offset) {
+        int indexPosition = entry * INDEX_ENTRY_SIZE;
+        if (indexPosition + INDEX_ENTRY_SIZE > index.capacity()) {
+            return false;
+        }
+        index.putInt(indexPosition, position);
+        index.putInt(indexPosition + Integer.BYTES, partition);
+        index.putLong(indexPosition + Integer.BYTES + Integer.BYTES, offset);
+        partitionOffsets.computeIfAbsent(partition, key -> new PartitionOffsets()).add(offset, entry);
+        return true;
+    }
+
+    /**
+     * The sequence of the record with the given partition and offset.
+     *
+     * @return the sequence, or -1 if the segment does not hold that record.
+     */
+    long find(int partition, long offset) {
+        PartitionOffsets offsets = partitionOffsets.get(partition);
+        int entry = offsets != null ? offsets.find(offset) : -1;
+        return entry >= 0 ? baseSequence + entry : -1;
+    }
+
+    /**
+     * Reads a record without copying its payload.
+     */
+    JournalRecord read(long sequence) {
+        int position = index.getInt((int) (sequence - baseSequence) * INDEX_ENTRY_SIZE);
+        int length = log.getInt(position);
+        int contentTypeLength = Short.toUnsignedInt(log.getShort(position + CONTENT_TYPE_LENGTH_POSITION));
+        int keyLength = Short.toUnsignedInt(log.getShort(position + KEY_LENGTH_POSITION));
+        String contentType = readString(position + HEADER_SIZE, contentTypeLength);
+        String key = readString(position + HEADER_SIZE + contentTypeLength, keyLength);
+        ByteBuffer payload = log.duplicate();
+        payload.position(position + HEADER_SIZE + contentTypeLength + keyLength).limit(position + Integer.BYTES + length);
+        return new JournalRecord(
+            sequence,
+            log.getLong(position + Integer.BYTES),
+            log.getInt(position + Integer.BYTES + Long.BYTES),
+            log.getLong(position + Integer.BYTES + Long.BYTES + Integer.BYTES),
+            contentType,
+            key,
+            payload.slice().asReadOnlyBuffer()
+        );
+    }
+
+    @Nullable
+    private String readString(int position, int length) {
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        log.duplicate().position(position).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    long getBaseSequence() {
+        return baseSequence;
+    }
+
+    /**
+     * The sequence following the last record of the segment.
+     */
+    long getEndSequence() {
+        return baseSequence + count;
+    }
+
+    int getSize() {
+        return writePosition;
+    }
+
+    long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    void flush() {
+        log.force();
+        index.force();
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    void delete() throws IOException {
+        Files.deleteIfExists(logPath);
+        Files.deleteIfExists(indexPath);
+    }
+
+    /**
+     * The offsets of a partition in the segment, sorted, with the index entries of their records.
+     * <p>
+     * Offsets mostly come in order, the records of a partition being appended as they are consumed; an
+     * offset consumed again points to its last record.
+     */
+    private static final class PartitionOffsets {
+
+        private long[] offsets = new long[16];
+
+        private int[] entries = new int[16];
+
+        private int size;
+
+        synchronized void add(long offset, int entry) {
+            int found = size == 0 || offsets[size - 1] < offset ? -size - 1 : Arrays.binarySearch(offsets, 0, size, offset);
+            if (found >= 0) {
+                entries[found] = entry;
+                return;
+            }
+            int insertion = -found - 1;
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            System.arraycopy(offsets, insertion, offsets, insertion + 1, size - insertion);
+            System.arraycopy(entries, insertion, entries, insertion + 1, size - insertion);
+            offsets[insertion] = offset;
+            entries[insertion] = entry;
+            size++;
+        }
+
+        synchronized int find(long offset) {
+            int found = Arrays.binarySearch(offsets, 0, size, offset);
+            return found >= 0 ? entries[found] : -1;
+        }
+    }
+}
@@ -0,0 +1,510 @@
+package com.jawnz.back.service.stream;
+
+import com.jawnz.back.config.ApplicationProperties;
+import com.jawnz.back.config.ApplicationProperties.Stream.OverflowPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Multicasts the records consumed from Kafka to the streaming subscribers.
+ * <p>
+ * Each subscriber has its own bounded buffer, drained as fast as it requests messages, so a slow
+ * subscriber never holds back the others: when its buffer is full the configured
+ * {@link OverflowPolicy} applies. Once every buffer is filled up to the pause watermark, the
+ * demand listener is told to pause the consumption, until a buffer is drained down to the resume
+ * watermark or no subscriber is left.
+ * <p>
+ * The last messages are kept in a {@link ReplayRing}, so that a subscriber resuming after a given
+ * event id first receives the messages it missed. Older messages are replayed from the
+ * {@link SseJournal}, when enabled.
+ * <p>
+ * Payloads are shared by the subscribers as {@link ByteBuffer}s, which they must not modify: the
+ * consumed bytes for the published messages, read-only views of the journal files for the replayed
+ * ones.
+ * <p>
+ * A subscriber may only take the messages selected by a {@link StreamFilter}. The subscribers of a
+ * message are found through a {@link DispatchIndex}, so the subscribers filtering it out cost nothing.
+ * <p>
+ * Messages may be published concurrently: they are kept for replay and queued for their subscribers one
+ * at a time, so that every subscriber receives them in the order of the replay ring and resumes after
+ * its last event id without missing any. The subscribers are drained, and the journal written, outside
+ * of that critical section: the journal in the order of the replay ring by one publishing thread at a
+ * time, the others handing their messages over to it.
+ */
+@Service
+public class KafkaSseHub {
+
+    private final Logger log = LoggerFactory.getLogger(KafkaSseHub.class);
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Guarded by the replay ring.
+     */
+    private final DispatchIndex<Subscriber> dispatchIndex = new DispatchIndex<>();
+
+    private final ThreadLocal<List<Subscriber>> matches = ThreadLocal.withInitial(ArrayList::new);
+
+    private final ReplayRing<Message<ByteBuffer>> replayRing;
+
+    private final SseJournal journal;
+
+    /**
+     * Messages to journal, and subscriptions waiting for the end of the journal, in the order of the replay ring.
+     */
+    private final Queue<Runnable> journalTasks = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger journalWip = new AtomicInteger();
+
+    private final int bufferSize;
+
+    private final boolean checkpointEnabled;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final int pauseDepth;
+
+    private final int resumeDepth;
+
+    private final Object demandLock = new Object();
+
+    private volatile boolean saturated;
+
+    /**
+     * Subscribers whose buffer reached the pause watermark and was not drained down to the resume watermark since.
+     */
+    private final AtomicInteger fullSubscribers = new AtomicInteger();
+
+    private volatile Consumer<Boolean> demandListener = demand -> {};
+
+    private final Counter droppedCounter;
+
+    private final Counter replayHitCounter;
+
+    private final Counter replayJournalCounter;
+
+    private final Counter replayMissCounter;
+
+    private final Counter replayedCounter;
+
+    public KafkaSseHub(ApplicationProperties applicationProperties, SseJournal journal, MeterRegistry meterRegistry) {
+        this.journal = journal;
+        this.bufferSize = applicationProperties.getStream().getBufferSize();
+        this.checkpointEnabled = applicationProperties.getReactor().isCheckpointEnabled();
+        this.overflowPolicy = applicationProperties.getStream().getOverflowPolicy();
+        this.replayRing = new ReplayRing<>(applicationProperties.getStream().getReplayCapacity());
+        ApplicationProperties.Stream.FlowControl flowControl = applicationProperties.getStream().getFlowControl();
+        this.pauseDepth =
+            flowControl.isEnabled() ? Math.max(1, (int) Math.ceil(bufferSize * flowControl.getPauseWatermark())) : Integer.MAX_VALUE;
+        this.resumeDepth = (int) (bufferSize * flowControl.getResumeWatermark());
+        Gauge.builder("sse.subscribers", subscribers, Set::size).description("Active streaming subscribers").register(meterRegistry);
+        Gauge
+            .builder("sse.buffer.depth", this, hub -> hub.bufferDepth(false))
+            .description("Messages buffered for all the streaming subscribers")
+            .tag("aggregate", "total")
+            .register(meterRegistry);
+        Gauge
+            .builder("sse.buffer.depth", this, hub -> hub.bufferDepth(true))
+            .description("Messages buffered for the slowest streaming subscriber")
+            .tag("aggregate", "max")
+            .register(meterRegistry);
+        this.droppedCounter =
+            Counter
+                .builder("sse.messages.dropped")
+                .description("Messages not delivered to a subscriber because its buffer was full")
+                .tag("policy", overflowPolicy.name().toLowerCase())
+                .register(meterRegistry);
+        Gauge.builder("sse.replay.size", replayRing, ReplayRing::size).description("Messages kept for replay").register(meterRegistry);
+        this.replayHitCounter = replayCounter(meterRegistry, "hit");
+        this.replayJournalCounter = replayCounter(meterRegistry, "journal");
+        this.replayMissCounter = replayCounter(meterRegistry, "miss");
+        this.replayedCounter =
+            Counter.builder("sse.replay.messages").description("Messages replayed to resuming subscribers").register(meterRegistry);
+    }
+
+    private static Counter replayCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter
+            .builder("sse.replay.requests")
+            .description("Subscriptions resuming after an event id, by whether that event was still kept")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    /**
+     * The id of an event, made of the Kafka partition and offset of its record.
+     *
+     * @return the id, or {@code null} if the message was not received from Kafka.
+     */
+    @Nullable
+    public static String eventId(Message<?> message) {
+        Object partition = message.getHeaders().get(KafkaHeaders.RECEIVED_PARTITION_ID);
+        Object offset = message.getHeaders().get(KafkaHeaders.OFFSET);
+        return partition != null && offset != null ? partition + "-" + offset : null;
+    }
+
+    /**
+     * Subscribes to the messages published from now on.
+     */
+    public Flux<Message<ByteBuffer>> subscribe() {
+        return subscribe(null, null);
+    }
+
+    /**
+     * Subscribes to the messages published after the given event, or from now on if it is no longer kept.
+     *
+     * @param lastEventId the id of the last event received by a resuming subscriber, if any.
+     * @return the messages, until the subscriber cancels or is disconnected by the overflow policy.
+     */
+    public Flux<Message<ByteBuffer>> subscribe(@Nullable String lastEventId) {
+        return subscribe(lastEventId, null);
+    }
+
+    /**
+     * Subscribes to the messages selected by a filter, published after the given event or from now on if it is no longer kept.
+     *
+     * @param lastEventId the id of the last event received by a resuming subscriber, if any.
+     * @param filter the filter of the messages, or {@code null} for every message.
+     * @return the messages, until the subscriber cancels or is disconnected by the overflow policy.
+     */
+    public Flux<Message<ByteBuffer>> subscribe(@Nullable String lastEventId, @Nullable StreamFilter filter) {
+        Flux<Message<ByteBuffer>> messages = Flux.defer(() -> {
+            Subscriber subscriber = new Subscriber(filter);
+            List<Message<ByteBuffer>> missed;
+            CompletableFuture<Long> journalEnd = new CompletableFuture<>();
+            // registered with the replay snapshot, so that no message is missed or received twice
+            synchronized (replayRing) {
+                missed = lastEventId != null ? replayRing.after(lastEventId).orElse(null) : List.of();
+                if (missed == null && isJournaled(filter)) {
+                    journalTasks.add(() -> journalEnd.complete(journal.nextSequence()));
+                }
+                subscribers.add(subscriber);
+                dispatchIndex.add(filter, subscriber);
+            }
+            demandAvailable();
+            log.debug("Streaming subscriber added, {} now", subscribers.size());
+            return replay(lastEventId, filter, missed, journalEnd)
+                .concatWith(Flux.create(subscriber::attach))
+                .doFinally(signal -> {
+                    subscriber.remove();
+                    log.debug("Streaming subscriber removed, {} left", subscribers.size());
+                });
+        });
+        return checkpointEnabled ? messages.checkpoint("KafkaSseHub.subscribe") : messages;
+    }
+
+    private Flux<Message<ByteBuffer>> replay(
+        @Nullable String lastEventId,
+        @Nullable StreamFilter filter,
+        @Nullable List<Message<ByteBuffer>> missed,
+        CompletableFuture<Long> journalEnd
+    ) {
+        if (missed != null) {
+            if (lastEventId == null) {
+                return Flux.empty();
+            }
+            replayHitCounter.increment();
+            return selected(Flux.fromIterable(missed), filter);
+        }
+        if (!isJournaled(filter)) {
+            replayMissCounter.increment();
+            return Flux.empty();
+        }
+        // the journal is searched and read outside of the lock, up to its end once the messages published before the
+        // subscription are journaled
+        return Mono
+            .fromRunnable(this::drainJournal)
+            .then(Mono.fromFuture(journalEnd))
+            .flatMapMany(end ->
+                Flux
+                    .defer(() -> {
+                        long found = journal.find(lastEventId).orElse(-1);
+                        if (found < 0) {
+                            replayMissCounter.increment();
+                            return Flux.empty();
+                        }
+                        replayJournalCounter.increment();
+                        return selected(journal.read(found + 1, end).map(KafkaSseHub::toMessage), filter);
+                    })
+                    .subscribeOn(Schedulers.boundedElastic())
+            )
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Whether the messages selected by a filter can be replayed from the journal, which does not keep the headers.
+     */
+    private boolean isJournaled(@Nullable StreamFilter filter) {
+        return journal.isEnabled() && (filter == null || filter.getType() != StreamFilter.Type.HEADER);
+    }
+
+    private Flux<Message<ByteBuffer>> selected(Flux<Message<ByteBuffer>> replayed, @Nullable StreamFilter filter) {
+        return (filter != null ? replayed.filter(filter::matches) : replayed).doOnNext(message -> replayedCounter.increment());
+    }
+
+    private static Message<ByteBuffer> toMessage(JournalRecord record) {
+        // the payload stays a view of the journal file, up to the encoder
+        MessageBuilder<ByteBuffer> builder = MessageBuilder.withPayload(record.getPayload());
+        if (record.getContentType() != null) {
+            builder.setHeader(MessageHeaders.CONTENT_TYPE, record.getContentType());
+        }
+        if (record.getKey() != null) {
+            builder.setHeader(KafkaHeaders.RECEIVED_MESSAGE_KEY, record.getKey());
+        }
+        if (record.getPartition() >= 0) {
+            builder.setHeader(KafkaHeaders.RECEIVED_PARTITION_ID, record.getPartition()).setHeader(KafkaHeaders.OFFSET, record.getOffset());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Offers a message to its subscribers and keeps it for replay.
+     */
+    public void publish(Message<byte[]> consumed) {
+        // the headers are shared, the payload is wrapped rather than copied
+        Message<ByteBuffer> message = MessageBuilder.createMessage(ByteBuffer.wrap(consumed.getPayload()), consumed.getHeaders());
+        String key = StreamFilter.key(message);
+        List<Subscriber> subscribersOf = matches.get();
+        // collected with the replay snapshot, so that a subscriber either replays or receives the message
+        synchronized (replayRing) {
+            replayRing.add(eventId(message), message);
+            if (journal.isEnabled()) {
+                journalTasks.add(() -> journal(message, key));
+            }
+            dispatchIndex.collect(message, key, subscribersOf);
+            // queued in the order of the ring, which is the order a resuming subscriber replays from
+            for (Subscriber subscriber : subscribersOf) {
+                subscriber.enqueue(message);
+            }
+        }
+        drainJournal();
+        try {
+            for (Subscriber subscriber : subscribersOf) {
+                subscriber.drain();
+            }
+        } finally {
+            subscribersOf.clear();
+        }
+        int count = subscribers.size();
+        if (count > 0 && fullSubscribers.get() >= count) {
+            demandExhausted();
+        }
+    }
+
+    /**
+     * Sets the listener told when the subscribers stop taking messages, with {@code false}, and when they take messages again,
+     * with {@code true}.
+     */
+    public void setDemandListener(Consumer<Boolean> demandListener) {
+        this.demandListener = demandListener;
+    }
+
+    public boolean isSaturated() {
+        return saturated;
+    }
+
+    private void demandExhausted() {
+        synchronized (demandLock) {
+            // checked again, a buffer may have been drained since
+            if (!saturated && fullSubscribers.get() >= subscribers.size()) {
+                saturated = true;
+                log.debug("Every streaming subscriber buffer is {} messages deep or more, pausing", pauseDepth);
+                demandListener.accept(false);
+            }
+        }
+    }
+
+    private void demandAvailable() {
+        if (!saturated) {
+            return;
+        }
+        synchronized (demandLock) {
+            if (saturated) {
+                saturated = false;
+                log.debug("A streaming subscriber buffer is down to {} messages or less, resuming", resumeDepth);
+                demandListener.accept(true);
+            }
+        }
+    }
+
+    /**
+     * Runs the journal tasks in order; only one thread drains at a time, the others leave their tasks to it.
+     */
+    private void drainJournal() {
+        if (journalWip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            Runnable task;
+            while ((task = journalTasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.warn("Could not journal a streamed message: {}", e.getMessage());
+                }
+            }
+            missed = journalWip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void journal(Message<ByteBuffer> message, @Nullable String key) {
+        Object partition = message.getHeaders().get(KafkaHeaders.RECEIVED_PARTITION_ID);
+        Object offset = message.getHeaders().get(KafkaHeaders.OFFSET);
+        Object contentType = message.getHeaders().get(MessageHeaders.CONTENT_TYPE);
+        journal.append(
+            partition instanceof Number ? ((Number) partition).intValue() : -1,
+            offset instanceof Number ? ((Number) offset).longValue() : -1,
+            contentType != null ? contentType.toString() : null,
+            key,
+            message.getPayload()
+        );
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private double bufferDepth(boolean max) {
+        int result = 0;
+        for (Subscriber subscriber : subscribers) {
+            int depth = subscriber.queue.size();
+            result = max ? Math.max(result, depth) : result + depth;
+        }
+        return result;
+    }
+
+    /**
+     * A subscriber buffers the messages published from its registration, until its sink is attached
+     * once the replayed messages are emitted.
+     */
+    private final class Subscriber {
+
+        private final StreamFilter filter;
+
+        private final ArrayBlockingQueue<Message<ByteBuffer>> queue = new ArrayBlockingQueue<>(bufferSize);
+
+        private final AtomicBoolean full = new AtomicBoolean();
+
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private volatile FluxSink<Message<ByteBuffer>> sink;
+
+        private volatile boolean disconnected;
+
+        private Subscriber(@Nullable StreamFilter filter) {
+            this.filter = filter;
+        }
+
+        private void attach(FluxSink<Message<ByteBuffer>> sink) {
+            this.sink = sink;
+            if (disconnected) {
+                sink.complete();
+                return;
+            }
+            sink.onRequest(n -> drain());
+        }
+
+        private void remove() {
+            synchronized (replayRing) {
+                if (!subscribers.remove(this)) {
+                    return;
+                }
+                dispatchIndex.remove(filter, this);
+            }
+            queue.clear();
+            if (full.getAndSet(false)) {
+                fullSubscribers.decrementAndGet();
+            }
+            if (subscribers.isEmpty()) {
+                demandAvailable();
+            }
+        }
+
+        /**
+         * Queues a message, applying the overflow policy, without emitting it.
+         */
+        private void enqueue(Message<ByteBuffer> message) {
+            if (!queue.offer(message)) {
+                switch (overflowPolicy) {
+                    case DROP_OLDEST:
+                        do {
+                            if (queue.poll() != null) {
+                                droppedCounter.increment();
+                            }
+                        } while (!queue.offer(message));
+                        break;
+                    case DROP_NEWEST:
+                        droppedCounter.increment();
+                        break;
+                    case DISCONNECT:
+                        droppedCounter.increment();
+                        log.debug("Disconnecting a streaming subscriber whose buffer is full");
+                        disconnected = true;
+                        remove();
+                        return;
+                }
+            }
+            if (queue.size() >= pauseDepth && full.compareAndSet(false, true)) {
+                fullSubscribers.incrementAndGet();
+            }
+        }
+
+        /**
+         * Emits the buffered messages the subscriber has requested, or completes it once disconnected; only one thread
+         * drains at a time.
+         */
+        private void drain() {
+            FluxSink<Message<ByteBuffer>> current = sink;
+            if (current == null) {
+                return;
+            }
+            if (disconnected) {
+                current.complete();
+                return;
+            }
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                while (current.requestedFromDownstream() > 0 && !current.isCancelled()) {
+                    Message<ByteBuffer> message = queue.poll();
+                    if (message == null) {
+                        break;
+                    }
+                    current.next(message);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+            if (queue.size() <= resumeDepth && full.compareAndSet(true, false)) {
+                fullSubscribers.decrementAndGet();
+                demandAvailable();
+            }
+        }
+    }
+}
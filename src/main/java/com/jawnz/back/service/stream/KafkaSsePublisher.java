@@ -0,0 +1,166 @@
+package com.jawnz.back.service.stream;
+
+import com.jawnz.back.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.support.DefaultKafkaHeaderMapper;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+
+/**
+ * Publishes messages to the streaming topic without blocking the calling thread.
+ * <p>
+ * Records of concurrent requests share one producer, so they are batched and compressed together.
+ * <p>
+ * Messages are published as UTF-8 text or, when enabled, in a {@link MessageEnvelope}, the {@code contentType}
+ * header of the record telling the consumers which.
+ */
+@Service
+public class KafkaSsePublisher {
+
+    private static final String TEXT_CONTENT_TYPE = "text/plain;charset=UTF-8";
+
+    private final Logger log = LoggerFactory.getLogger(KafkaSsePublisher.class);
+
+    private final KafkaSender<String, byte[]> kafkaSender;
+
+    private final String topic;
+
+    private final boolean checkpointEnabled;
+
+    /**
+     * Headers of the enveloped records, {@code null} to publish text.
+     */
+    private final Header[] envelopeHeaders;
+
+    private final Timer successTimer;
+
+    private final Timer errorTimer;
+
+    public KafkaSsePublisher(
+        KafkaSender<String, byte[]> kafkaSender,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.kafkaSender = kafkaSender;
+        this.topic = applicationProperties.getStream().getProducer().getTopic();
+        this.checkpointEnabled = applicationProperties.getReactor().isCheckpointEnabled();
+        if (applicationProperties.getStream().getProducer().isEnvelope()) {
+            // mapped as the binder does, so that the bound consumers read the content type as a string
+            RecordHeaders headers = new RecordHeaders();
+            new DefaultKafkaHeaderMapper()
+                .fromHeaders(new MessageHeaders(Map.of(MessageHeaders.CONTENT_TYPE, MessageEnvelope.MIME_TYPE_VALUE)), headers);
+            this.envelopeHeaders = headers.toArray();
+        } else {
+            this.envelopeHeaders = null;
+        }
+        this.successTimer = timer(meterRegistry, "success");
+        this.errorTimer = timer(meterRegistry, "error");
+    }
+
+    private Timer timer(MeterRegistry meterRegistry, String outcome) {
+        return Timer
+            .builder("kafka.publish")
+            .description("Time until Kafka acknowledges a published message")
+            .tag("topic", topic)
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    private ProducerRecord<String, byte[]> record(String message) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        if (envelopeHeaders == null) {
+            return new ProducerRecord<>(topic, bytes);
+        }
+        byte[] envelope = new MessageEnvelope(TEXT_CONTENT_TYPE, Map.of(), bytes).encode();
+        return new ProducerRecord<>(topic, null, null, null, envelope, new RecordHeaders(envelopeHeaders));
+    }
+
+    /**
+     * Publishes a message and waits for the broker acknowledgement.
+     *
+     * @return the acknowledgement, or an error if the broker rejected the message.
+     */
+    public Mono<PublishResult> publish(String message) {
+        Mono<PublishResult> published = Mono.defer(() -> {
+            long start = System.nanoTime();
+            return kafkaSender
+                .send(Mono.just(SenderRecord.create(record(message), null)))
+                .next()
+                .flatMap(result -> result.exception() != null ? Mono.error(result.exception()) : Mono.just(result.recordMetadata()))
+                .map(metadata -> {
+                    long latency = System.nanoTime() - start;
+                    successTimer.record(latency, TimeUnit.NANOSECONDS);
+                    return new PublishResult(
+                        metadata.topic(),
+                        metadata.partition(),
+                        metadata.offset(),
+                        metadata.timestamp(),
+                        TimeUnit.NANOSECONDS.toMillis(latency)
+                    );
+                })
+                .doOnError(e -> {
+                    errorTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    log.warn("Kafka rejected a message for {}: {}", topic, e.getMessage());
+                });
+        });
+        return checkpointEnabled ? published.checkpoint("KafkaSsePublisher.publish") : published;
+    }
+
+    /**
+     * Publishes a message without waiting for the broker; failures are only logged and counted.
+     */
+    public void publishAndForget(String message) {
+        publish(message).subscribe(result -> log.debug("Published {}", result), e -> {});
+    }
+
+    /**
+     * Publishes a stream of messages, requesting more from the stream only as the in-flight ones are acknowledged.
+     *
+     * @param batchSize the number of acknowledgements counted per result.
+     * @return the acknowledgement counts, one per batch in acknowledgement order.
+     */
+    public Flux<BulkPublishResult> publishAll(Flux<String> messages, int batchSize) {
+        AtomicLong batches = new AtomicLong();
+        return kafkaSender
+            .send(messages.map(message -> SenderRecord.create(record(message), System.nanoTime())))
+            .doOnNext(result ->
+                (result.exception() == null ? successTimer : errorTimer).record(
+                        System.nanoTime() - result.correlationMetadata(),
+                        TimeUnit.NANOSECONDS
+                    )
+            )
+            .buffer(batchSize)
+            .map(results -> toBulkPublishResult(batches.getAndIncrement(), results));
+    }
+
+    private BulkPublishResult toBulkPublishResult(long batch, List<SenderResult<Long>> results) {
+        int failed = 0;
+        String error = null;
+        for (SenderResult<Long> result : results) {
+            if (result.exception() != null) {
+                failed++;
+                error = error == null ? result.exception().getMessage() : error;
+            }
+        }
+        if (failed > 0) {
+            log.warn("Kafka rejected {} messages of batch {} for {}: {}", failed, batch, topic, error);
+        }
+        return new BulkPublishResult(batch, results.size() - failed, failed, error);
+    }
+}
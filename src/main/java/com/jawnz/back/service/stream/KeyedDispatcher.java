@@ -0,0 +1,220 @@
+package com.jawnz.back.service.stream;
+
+import com.jawnz.back.config.ApplicationProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the consumed messages to the {@link KafkaSseHub} from a pool of workers, the messages of a Kafka record key
+ * always going to the same worker so that they stay in order. Messages without key go by partition.
+ * <p>
+ * Each worker has a bounded queue: once it is full, the consumer thread waits, holding back the consumption of its
+ * partitions. With no worker, messages are published on the consumer threads.
+ * <p>
+ * Delivery is at least once: a message carrying a {@link KafkaHeaders#ACKNOWLEDGMENT} is acknowledged once published,
+ * the binding committing its offset only when every message before it in its partition is acknowledged too. The messages
+ * still queued when the application crashes are then consumed again, and may be published twice. A message whose
+ * publication fails is logged and acknowledged, so that it does not hold back its partition.
+ */
+@Component
+public class KeyedDispatcher {
+
+    private final Logger log = LoggerFactory.getLogger(KeyedDispatcher.class);
+
+    private final Consumer<Message<byte[]>> handler;
+
+    private final Worker[] workers;
+
+    private final Lock lock = new ReentrantLock();
+
+    private final Condition idle = lock.newCondition();
+
+    /**
+     * Messages dispatched and not yet published, guarded by {@link #lock}.
+     */
+    private int pending;
+
+    public KeyedDispatcher(ApplicationProperties applicationProperties, KafkaSseHub kafkaSseHub, MeterRegistry meterRegistry) {
+        this(
+            applicationProperties.getStream().getDispatch().getWorkers(),
+            applicationProperties.getStream().getDispatch().getQueueCapacity(),
+            kafkaSseHub::publish,
+            meterRegistry
+        );
+    }
+
+    KeyedDispatcher(int workerCount, int queueCapacity, Consumer<Message<byte[]>> handler, MeterRegistry meterRegistry) {
+        this.handler = handler;
+        this.workers = new Worker[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Worker(i, queueCapacity, meterRegistry);
+            workers[i].start();
+        }
+        log.debug("Dispatching the consumed messages with {} workers", workerCount);
+    }
+
+    /**
+     * Hands a message to the worker of its key, waiting for room in its queue.
+     */
+    public void dispatch(Message<byte[]> message) {
+        if (workers.length == 0) {
+            handler.accept(message);
+            acknowledge(message);
+            return;
+        }
+        Worker worker = workers[Math.floorMod(hash(message), workers.length)];
+        changePending(1);
+        try {
+            worker.queue.put(message);
+        } catch (InterruptedException e) {
+            changePending(-1);
+            Thread.currentThread().interrupt();
+            // not acknowledged, so consumed again
+            log.warn("Interrupted while dispatching a message, dropping it");
+        }
+    }
+
+    private static void acknowledge(Message<byte[]> message) {
+        Acknowledgment acknowledgment = message.getHeaders().get(KafkaHeaders.ACKNOWLEDGMENT, Acknowledgment.class);
+        if (acknowledgment != null) {
+            acknowledgment.acknowledge();
+        }
+    }
+
+    private void changePending(int delta) {
+        lock.lock();
+        try {
+            pending += delta;
+            if (pending == 0) {
+                idle.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int hash(Message<byte[]> message) {
+        Object key = message.getHeaders().get(KafkaHeaders.RECEIVED_MESSAGE_KEY);
+        if (key instanceof byte[]) {
+            return Arrays.hashCode((byte[]) key);
+        }
+        if (key != null) {
+            return key.hashCode();
+        }
+        Integer partition = message.getHeaders().get(KafkaHeaders.RECEIVED_PARTITION_ID, Integer.class);
+        return partition != null ? partition : 0;
+    }
+
+    /**
+     * Waits for the messages dispatched so far to be published.
+     *
+     * @return whether they all were before the timeout.
+     */
+    public boolean awaitIdle(Duration timeout) {
+        long remaining = timeout.toNanos();
+        lock.lock();
+        try {
+            while (pending > 0) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = idle.awaitNanos(remaining);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lets the workers publish the queued messages, then stops them.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        for (Worker worker : workers) {
+            worker.stopping = true;
+        }
+        for (Worker worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    private final class Worker extends Thread {
+
+        private final BlockingQueue<Message<byte[]>> queue;
+
+        private final Timer latencyTimer;
+
+        private volatile boolean stopping;
+
+        private Worker(int index, int queueCapacity, MeterRegistry meterRegistry) {
+            super("sse-dispatch-" + index);
+            setDaemon(true);
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            String worker = String.valueOf(index);
+            this.latencyTimer =
+                Timer
+                    .builder("sse.dispatch.latency")
+                    .description("Time a dispatch worker takes to publish a message to the subscribers")
+                    .tag("worker", worker)
+                    .register(meterRegistry);
+            Gauge
+                .builder("sse.dispatch.queue.depth", queue, BlockingQueue::size)
+                .description("Messages waiting for a dispatch worker")
+                .tag("worker", worker)
+                .register(meterRegistry);
+        }
+
+        @Override
+        public void run() {
+            // not interrupted to stop, which would close the journal file channels
+            while (!stopping || !queue.isEmpty()) {
+                try {
+                    Message<byte[]> message = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (message != null) {
+                        publish(message);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private void publish(Message<byte[]> message) {
+            long start = System.nanoTime();
+            try {
+                handler.accept(message);
+            } catch (RuntimeException e) {
+                log.error("Failed to publish a consumed message", e);
+            } finally {
+                latencyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                try {
+                    acknowledge(message);
+                } finally {
+                    changePending(-1);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.jawnz.back.service.stream;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.reactivestreams.Subscription;
+import org.springframework.messaging.Message;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Coalesces messages into batches, emitted once full or once their first message has waited the maximum delay,
+ * whichever comes first.
+ * <p>
+ * Unlike {@link Flux#bufferTimeout(int, Duration)}, only the messages of the requested batches are requested: those a
+ * slow client cannot take stay in its hub buffer, under the overflow policy.
+ */
+public final class MessageBatcher {
+
+    private MessageBatcher() {}
+
+    public static Flux<List<Message<ByteBuffer>>> batch(Flux<Message<ByteBuffer>> messages, int maxSize, Duration maxDelay) {
+        return Flux.create(sink -> messages.subscribe(new BatchingSubscriber(sink, maxSize, maxDelay)));
+    }
+
+    private static final class BatchingSubscriber extends BaseSubscriber<Message<ByteBuffer>> {
+
+        private final FluxSink<List<Message<ByteBuffer>>> sink;
+
+        private final int maxSize;
+
+        private final Duration maxDelay;
+
+        private List<Message<ByteBuffer>> batch = new ArrayList<>();
+
+        /**
+         * Messages requested and not received yet.
+         */
+        private int pending;
+
+        private Disposable scheduledFlush;
+
+        private BatchingSubscriber(FluxSink<List<Message<ByteBuffer>>> sink, int maxSize, Duration maxDelay) {
+            this.sink = sink;
+            this.maxSize = maxSize;
+            this.maxDelay = maxDelay;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            sink.onDispose(this);
+            sink.onRequest(requested -> refill());
+        }
+
+        @Override
+        protected synchronized void hookOnNext(Message<ByteBuffer> message) {
+            pending--;
+            batch.add(message);
+            if (batch.size() >= maxSize) {
+                flush();
+            } else if (batch.size() == 1) {
+                scheduledFlush = Schedulers.parallel().schedule(this::flush, maxDelay.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private synchronized void flush() {
+            if (scheduledFlush != null) {
+                scheduledFlush.dispose();
+                scheduledFlush = null;
+            }
+            if (!batch.isEmpty()) {
+                List<Message<ByteBuffer>> messages = batch;
+                batch = new ArrayList<>();
+                sink.next(messages);
+            }
+            refill();
+        }
+
+        /**
+         * Requests the messages missing to fill the current batch, if the next one was requested.
+         */
+        private synchronized void refill() {
+            int missing = maxSize - batch.size() - pending;
+            if (missing > 0 && sink.requestedFromDownstream() > 0 && !isDisposed()) {
+                pending += missing;
+                request(missing);
+            }
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            flush();
+            sink.complete();
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            flush();
+            sink.error(throwable);
+        }
+
+        @Override
+        protected synchronized void hookOnCancel() {
+            if (scheduledFlush != null) {
+                scheduledFlush.dispose();
+            }
+        }
+    }
+}
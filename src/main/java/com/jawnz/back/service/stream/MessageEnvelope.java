@@ -0,0 +1,221 @@
+package com.jawnz.back.service.stream;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeType;
+
+/**
+ * Versioned binary envelope of the messages of the streaming topic, read and written without schema registry.
+ * <p>
+ * Lengths and counts are unsigned varints, 7 bits per byte from the least significant ones, the high bit set on all
+ * bytes but the last:
+ * <pre>
+ * magic | version | content type length | content type | header count | (name length | name | value length | value)* | payload
+ * </pre>
+ * Strings are UTF-8, the payload runs to the end of the envelope. An envelope of an unknown version is rejected, so
+ * that the layout can evolve.
+ */
+public final class MessageEnvelope {
+
+    public static final String MIME_TYPE_VALUE = "application/x-jawnz-envelope";
+
+    public static final MimeType MIME_TYPE = MimeType.valueOf(MIME_TYPE_VALUE);
+
+    static final byte MAGIC = (byte) 0xe5;
+
+    static final byte VERSION = 1;
+
+    private final String contentType;
+
+    private final Map<String, String> headers;
+
+    private final byte[] payload;
+
+    public MessageEnvelope(@Nullable String contentType, Map<String, String> headers, byte[] payload) {
+        this.contentType = contentType;
+        this.headers = headers;
+        this.payload = payload;
+    }
+
+    /**
+     * The content type of the payload.
+     */
+    @Nullable
+    public String getContentType() {
+        return contentType;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public byte[] encode() {
+        byte[] contentTypeBytes = contentType != null ? contentType.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        byte[][] headerBytes = new byte[headers.size() * 2][];
+        int size = 2 + varintSize(contentTypeBytes.length) + contentTypeBytes.length + varintSize(headers.size()) + payload.length;
+        int i = 0;
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            headerBytes[i] = header.getKey().getBytes(StandardCharsets.UTF_8);
+            headerBytes[i + 1] = header.getValue().getBytes(StandardCharsets.UTF_8);
+            size += varintSize(headerBytes[i].length) + headerBytes[i].length;
+            size += varintSize(headerBytes[i + 1].length) + headerBytes[i + 1].length;
+            i += 2;
+        }
+        byte[] envelope = new byte[size];
+        envelope[0] = MAGIC;
+        envelope[1] = VERSION;
+        int position = writeBytes(envelope, 2, contentTypeBytes);
+        position = writeVarint(envelope, position, headers.size());
+        for (byte[] bytes : headerBytes) {
+            position = writeBytes(envelope, position, bytes);
+        }
+        System.arraycopy(payload, 0, envelope, position, payload.length);
+        return envelope;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes are not an envelope of a known version.
+     */
+    public static MessageEnvelope decode(byte[] envelope) {
+        if (envelope.length < 2 || envelope[0] != MAGIC) {
+            throw new IllegalArgumentException("Not a message envelope");
+        }
+        if (envelope[1] != VERSION) {
+            throw new IllegalArgumentException("Unsupported message envelope version " + envelope[1]);
+        }
+        Reader reader = new Reader(envelope);
+        String contentType = reader.string();
+        int headerCount = reader.varint();
+        Map<String, String> headers = headerCount == 0 ? Collections.emptyMap() : new LinkedHashMap<>();
+        for (int i = 0; i < headerCount; i++) {
+            headers.put(reader.string(), reader.string());
+        }
+        byte[] payload = new byte[envelope.length - reader.position];
+        System.arraycopy(envelope, reader.position, payload, 0, payload.length);
+        return new MessageEnvelope(contentType.isEmpty() ? null : contentType, headers, payload);
+    }
+
+    /**
+     * Whether a content type, a {@link MimeType}, its string value or its bytes as mapped from a record header, is that
+     * of the envelope.
+     */
+    public static boolean isEnvelope(@Nullable Object contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String value = contentType instanceof byte[]
+            ? new String((byte[]) contentType, StandardCharsets.UTF_8)
+            : contentType.toString();
+        int length = MIME_TYPE_VALUE.length();
+        return (
+            value.regionMatches(true, 0, MIME_TYPE_VALUE, 0, length) &&
+            (value.length() == length || value.charAt(length) == ';' || value.charAt(length) == ' ')
+        );
+    }
+
+    /**
+     * Replaces an enveloped message by its payload, with its content type and headers; other messages, and envelopes
+     * that cannot be decoded, are returned as is.
+     */
+    public static Message<ByteBuffer> unwrap(Message<ByteBuffer> message) {
+        if (!isEnvelope(message.getHeaders().get(MessageHeaders.CONTENT_TYPE))) {
+            return message;
+        }
+        MessageEnvelope envelope;
+        try {
+            envelope = decode(bytes(message.getPayload()));
+        } catch (IllegalArgumentException e) {
+            return message;
+        }
+        MessageBuilder<ByteBuffer> builder = MessageBuilder
+            .withPayload(ByteBuffer.wrap(envelope.getPayload()))
+            .copyHeaders(message.getHeaders())
+            .copyHeaders(envelope.getHeaders());
+        if (envelope.getContentType() != null) {
+            builder.setHeader(MessageHeaders.CONTENT_TYPE, envelope.getContentType());
+        } else {
+            builder.removeHeader(MessageHeaders.CONTENT_TYPE);
+        }
+        return builder.build();
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0 && buffer.remaining() == buffer.array().length) {
+            return buffer.array();
+        }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7f) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    static int writeVarint(byte[] target, int position, int value) {
+        while ((value & ~0x7f) != 0) {
+            target[position++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        target[position++] = (byte) value;
+        return position;
+    }
+
+    private static int writeBytes(byte[] target, int position, byte[] bytes) {
+        position = writeVarint(target, position, bytes.length);
+        System.arraycopy(bytes, 0, target, position, bytes.length);
+        return position + bytes.length;
+    }
+
+    private static final class Reader {
+
+        private final byte[] bytes;
+
+        private int position = 2;
+
+        private Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private int varint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                if (position >= bytes.length) {
+                    throw new IllegalArgumentException("Truncated message envelope");
+                }
+                byte b = bytes[position++];
+                value |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in message envelope");
+        }
+
+        private String string() {
+            int length = varint();
+            if (length < 0 || length > bytes.length - position) {
+                throw new IllegalArgumentException("Truncated message envelope");
+            }
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.jawnz.back.service.stream;
+
+import java.io.Serializable;
+
+/**
+ * Acknowledgement of a message published to Kafka.
+ */
+public class PublishResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String topic;
+
+    private final int partition;
+
+    private final long offset;
+
+    private final long timestamp;
+
+    private final long latencyMillis;
+
+    public PublishResult(String topic, int partition, long offset, long timestamp, long latencyMillis) {
+        this.topic = topic;
+        this.partition = partition;
+        this.offset = offset;
+        this.timestamp = timestamp;
+        this.latencyMillis = latencyMillis;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public int getPartition() {
+        return partition;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Time between the publish request and the broker acknowledgement.
+     */
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PublishResult{" +
+            "topic='" + topic + '\'' +
+            ", partition=" + partition +
+            ", offset=" + offset +
+            ", timestamp=" + timestamp +
+            ", latencyMillis=" + latencyMillis +
+            "}";
+    }
+}
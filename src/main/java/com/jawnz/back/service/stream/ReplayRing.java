@@ -0,0 +1,60 @@
+package com.jawnz.back.service.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Fixed-capacity ring of the last messages published, in publication order, keyed by event id.
+ * <p>
+ * Not thread-safe: callers synchronize on the ring.
+ */
+class ReplayRing<T> {
+
+    private final String[] ids;
+
+    private final Object[] messages;
+
+    private int next;
+
+    private int size;
+
+    ReplayRing(int capacity) {
+        this.ids = new String[capacity];
+        this.messages = new Object[capacity];
+    }
+
+    void add(String id, T message) {
+        if (ids.length == 0) {
+            return;
+        }
+        ids[next] = id;
+        messages[next] = message;
+        next = (next + 1) % ids.length;
+        size = Math.min(size + 1, ids.length);
+    }
+
+    /**
+     * The messages published after the one with the given id.
+     *
+     * @return the messages, or empty if that message is no longer, or was never, in the ring.
+     */
+    @SuppressWarnings("unchecked")
+    Optional<List<T>> after(String id) {
+        for (int i = 1; i <= size; i++) {
+            int index = Math.floorMod(next - i, ids.length);
+            if (id.equals(ids[index])) {
+                List<T> result = new ArrayList<>(i - 1);
+                for (int j = i - 1; j >= 1; j--) {
+                    result.add((T) messages[Math.floorMod(next - j, ids.length)]);
+                }
+                return Optional.of(result);
+            }
+        }
+        return Optional.empty();
+    }
+
+    int size() {
+        return size;
+    }
+}
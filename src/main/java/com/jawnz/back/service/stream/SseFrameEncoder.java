@@ -0,0 +1,178 @@
+package com.jawnz.back.service.stream;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Writes messages as server-sent events straight from their payload bytes, without decoding them.
+ * <p>
+ * Textual payloads, by the content type of the message, are written as is, one {@code data:} line per
+ * line of the payload; other payloads are Base64-encoded. Messages without content type are textual.
+ * <p>
+ * A batch of messages is written as one event whose data is a JSON array of the payloads, as strings when textual,
+ * Base64-encoded otherwise.
+ */
+public final class SseFrameEncoder {
+
+    private static final byte[] ID = "id:".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] DATA = "data:".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] NEWLINE = { '\n' };
+
+    private static final int MAX_CACHED_CONTENT_TYPES = 64;
+
+    private static final Map<String, Boolean> TEXTUAL_CONTENT_TYPES = new ConcurrentHashMap<>();
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private SseFrameEncoder() {}
+
+    /**
+     * Encodes a message as an event, with the Kafka partition and offset of its record as id.
+     * <p>
+     * The lines of a textual payload are wrapped rather than copied, so that a payload read from the journal goes
+     * from the mapped file to the response as is.
+     *
+     * @param bufferFactory the factory of the response, pooling the buffers on Netty.
+     */
+    public static DataBuffer encode(DataBufferFactory bufferFactory, Message<ByteBuffer> message) {
+        String id = KafkaSseHub.eventId(message);
+        ByteBuffer payload = message.getPayload();
+        if (!isTextual(message.getHeaders().get(MessageHeaders.CONTENT_TYPE))) {
+            payload = Base64.getEncoder().encode(payload.duplicate());
+        }
+        List<DataBuffer> parts = new ArrayList<>();
+        DataBuffer frame = bufferFactory.allocateBuffer(32);
+        if (id != null) {
+            frame.write(ID).write(id, StandardCharsets.US_ASCII).write(NEWLINE);
+        }
+        int start = payload.position();
+        int end = payload.limit();
+        for (int i = start; i <= end; i++) {
+            if (i == end || payload.get(i) == '\n' || payload.get(i) == '\r') {
+                parts.add(frame.write(DATA));
+                if (i > start) {
+                    parts.add(bufferFactory.wrap(payload.duplicate().position(start).limit(i).slice()));
+                }
+                frame = bufferFactory.allocateBuffer(8).write(NEWLINE);
+                if (i + 1 < end && payload.get(i) == '\r' && payload.get(i + 1) == '\n') {
+                    i++;
+                }
+                start = i + 1;
+            }
+        }
+        parts.add(frame.write(NEWLINE));
+        return bufferFactory.join(parts);
+    }
+
+    /**
+     * Encodes a batch of messages as one event, with the id of its last message.
+     *
+     * @param bufferFactory the factory of the response, pooling the buffers on Netty.
+     */
+    public static DataBuffer encodeBatch(DataBufferFactory bufferFactory, List<Message<ByteBuffer>> messages) {
+        String id = null;
+        int size = 32;
+        for (Message<ByteBuffer> message : messages) {
+            String messageId = KafkaSseHub.eventId(message);
+            id = messageId != null ? messageId : id;
+            size += message.getPayload().remaining() + 8;
+        }
+        DataBuffer buffer = bufferFactory.allocateBuffer(size);
+        if (id != null) {
+            buffer.write(ID).write(id, StandardCharsets.US_ASCII).write(NEWLINE);
+        }
+        buffer.write(DATA);
+        // the strings are escaped, the array is written on a single line
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(buffer.asOutputStream())) {
+            generator.writeStartArray();
+            for (Message<ByteBuffer> message : messages) {
+                writeData(generator, message);
+            }
+            generator.writeEndArray();
+        } catch (IOException e) {
+            DataBufferUtils.release(buffer);
+            throw new UncheckedIOException(e);
+        }
+        return buffer.write(NEWLINE).write(NEWLINE);
+    }
+
+    /**
+     * Writes the payload of a message as a JSON string, as is when textual, Base64-encoded otherwise.
+     */
+    public static void writeData(JsonGenerator generator, Message<ByteBuffer> message) throws IOException {
+        ByteBuffer payload = message.getPayload();
+        if (!isTextual(message.getHeaders().get(MessageHeaders.CONTENT_TYPE))) {
+            generator.writeBinary(new ByteBufferBackedInputStream(payload.duplicate()), payload.remaining());
+        } else if (payload.hasArray()) {
+            // escapes the UTF-8 bytes as they are copied, without decoding them
+            generator.writeUTF8String(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+        } else {
+            // the escaping reads from an array, a view of the journal is copied first
+            byte[] bytes = new byte[payload.remaining()];
+            payload.duplicate().get(bytes);
+            generator.writeUTF8String(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Whether a payload of the given content type, a {@link MimeType}, its string value or its bytes as mapped from a
+     * record header, is text.
+     */
+    public static boolean isTextual(@Nullable Object contentType) {
+        if (contentType == null) {
+            return true;
+        }
+        if (contentType instanceof MimeType) {
+            return isTextual((MimeType) contentType);
+        }
+        String value = contentType instanceof byte[]
+            ? new String((byte[]) contentType, StandardCharsets.UTF_8)
+            : contentType.toString();
+        Boolean textual = TEXTUAL_CONTENT_TYPES.get(value);
+        if (textual == null) {
+            try {
+                textual = isTextual(MimeTypeUtils.parseMimeType(value));
+            } catch (InvalidMimeTypeException e) {
+                textual = false;
+            }
+            // the headers come from the producers, only a few distinct values are expected
+            if (TEXTUAL_CONTENT_TYPES.size() < MAX_CACHED_CONTENT_TYPES) {
+                TEXTUAL_CONTENT_TYPES.put(value, textual);
+            }
+        }
+        return textual;
+    }
+
+    private static boolean isTextual(MimeType mimeType) {
+        String subtype = mimeType.getSubtype();
+        return (
+            "text".equals(mimeType.getType()) ||
+            "json".equals(subtype) ||
+            subtype.endsWith("+json") ||
+            "x-ndjson".equals(subtype) ||
+            "xml".equals(subtype) ||
+            subtype.endsWith("+xml")
+        );
+    }
+}
@@ -0,0 +1,249 @@
+package com.jawnz.back.service.stream;
+
+import com.jawnz.back.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+/**
+ * Append-only journal of the consumed messages, kept in memory-mapped segment files so that it
+ * survives restarts.
+ * <p>
+ * Each message gets a sequence number; a segment holds the messages from the sequence in its file
+ * name, and is rolled once full. Whole segments are deleted once older or beyond the configured
+ * retention. Reads return views of the mapped files rather than copies.
+ * <p>
+ * Disabled, every method being a no-op, unless {@code application.stream.journal.directory} is set.
+ */
+@Component
+public class SseJournal {
+
+    private final Logger log = LoggerFactory.getLogger(SseJournal.class);
+
+    private final ConcurrentNavigableMap<Long, JournalSegment> segments = new ConcurrentSkipListMap<>();
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final Duration retentionTime;
+
+    private final long retentionSize;
+
+    private final Counter deletedCounter;
+
+    private volatile JournalSegment active;
+
+    public SseJournal(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) throws IOException {
+        ApplicationProperties.Stream.Journal properties = applicationProperties.getStream().getJournal();
+        this.directory = properties.getDirectory() != null && !properties.getDirectory().isBlank()
+            ? Paths.get(properties.getDirectory())
+            : null;
+        this.segmentSize = properties.getSegmentSize();
+        this.retentionTime = properties.getRetentionTime();
+        this.retentionSize = properties.getRetentionSize();
+        this.deletedCounter =
+            Counter
+                .builder("sse.journal.segments.deleted")
+                .description("Journal segments deleted by the retention")
+                .register(meterRegistry);
+        if (directory == null) {
+            return;
+        }
+        open();
+        Gauge.builder("sse.journal.size", this, SseJournal::size).description("Bytes written to the journal").register(meterRegistry);
+        Gauge.builder("sse.journal.segments", segments, Map::size).description("Journal segment files").register(meterRegistry);
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Long> baseSequences;
+        try (Stream<Path> files = Files.list(directory)) {
+            baseSequences =
+                files
+                    .map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(JournalSegment.LOG_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - JournalSegment.LOG_SUFFIX.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        for (long baseSequence : baseSequences) {
+            segments.put(baseSequence, JournalSegment.open(directory, baseSequence, segmentSize));
+        }
+        if (segments.isEmpty()) {
+            segments.put(0L, JournalSegment.open(directory, 0, segmentSize));
+        }
+        active = segments.lastEntry().getValue();
+        log.info("Opened the stream journal in {}, {} segments up to sequence {}", directory, segments.size(), nextSequence());
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Appends a message, rolling to a new segment when the active one is full.
+     *
+     * @param partition the Kafka partition of the message, or -1.
+     * @param offset the Kafka offset of the message, or -1.
+     * @param contentType the content type of the message, if known.
+     * @param key the key of the Kafka record of the message, if any.
+     */
+    public synchronized void append(int partition, long offset, @Nullable String contentType, @Nullable String key, ByteBuffer payload) {
+        if (directory == null) {
+            return;
+        }
+        long timestamp = System.currentTimeMillis();
+        byte[] contentTypeBytes = contentType != null ? contentType.getBytes(StandardCharsets.US_ASCII) : new byte[0];
+        byte[] keyBytes = key != null ? key.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if (contentTypeBytes.length > JournalSegment.MAX_FIELD_LENGTH || keyBytes.length > JournalSegment.MAX_FIELD_LENGTH) {
+            log.warn("Not journaling a message with a content type or key longer than {} bytes", JournalSegment.MAX_FIELD_LENGTH);
+            return;
+        }
+        if (active.append(timestamp, partition, offset, contentTypeBytes, keyBytes, payload)) {
+            return;
+        }
+        if (active.getEndSequence() == active.getBaseSequence()) {
+            log.warn("Not journaling a message of {} bytes, larger than a segment", payload.remaining());
+            return;
+        }
+        try {
+            roll();
+        } catch (IOException e) {
+            log.warn("Could not roll the stream journal, the message is not journaled: {}", e.getMessage());
+            return;
+        }
+        if (!active.append(timestamp, partition, offset, contentTypeBytes, keyBytes, payload)) {
+            log.warn("Not journaling a message of {} bytes, larger than a segment", payload.remaining());
+        }
+    }
+
+    private void roll() throws IOException {
+        active.flush();
+        JournalSegment segment = JournalSegment.open(directory, active.getEndSequence(), segmentSize);
+        segments.put(segment.getBaseSequence(), segment);
+        active = segment;
+        log.debug("Rolled the stream journal to segment {}", segment.getBaseSequence());
+        enforceRetention();
+    }
+
+    /**
+     * The sequence the next appended message will get.
+     */
+    public long nextSequence() {
+        JournalSegment current = active;
+        return current != null ? current.getEndSequence() : 0;
+    }
+
+    /**
+     * The sequence of the last message journaled with the given event id, made of its Kafka partition and offset.
+     *
+     * @return the sequence, or empty if no retained message has that id.
+     */
+    public OptionalLong find(String eventId) {
+        int separator = eventId.indexOf('-');
+        if (directory == null || separator < 1) {
+            return OptionalLong.empty();
+        }
+        int partition;
+        long offset;
+        try {
+            partition = Integer.parseInt(eventId.substring(0, separator));
+            offset = Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+        for (JournalSegment segment : segments.descendingMap().values()) {
+            long sequence = segment.find(partition, offset);
+            if (sequence >= 0) {
+                return OptionalLong.of(sequence);
+            }
+        }
+        return OptionalLong.empty();
+    }
+
+    /**
+     * Reads the retained messages with a sequence in the given range; reads may block on disk.
+     *
+     * @param from the first sequence, inclusive.
+     * @param to the last sequence, exclusive.
+     */
+    public Flux<JournalRecord> read(long from, long to) {
+        return Flux.generate(
+            () -> from,
+            (sequence, sink) -> {
+                Map.Entry<Long, JournalSegment> entry = segments.floorEntry(sequence);
+                if (sequence >= to || entry == null || sequence >= entry.getValue().getEndSequence()) {
+                    sink.complete();
+                    return sequence;
+                }
+                sink.next(entry.getValue().read(sequence));
+                return sequence + 1;
+            }
+        );
+    }
+
+    /**
+     * Deletes the oldest segments while they are past the retention time or the journal is past the retention size.
+     */
+    @Scheduled(
+        initialDelayString = "${application.stream.journal.retention-check-interval:PT1M}",
+        fixedDelayString = "${application.stream.journal.retention-check-interval:PT1M}"
+    )
+    public synchronized void enforceRetention() {
+        if (directory == null) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - retentionTime.toMillis();
+        long size = size();
+        for (JournalSegment segment : segments.values()) {
+            if (segment == active || (segment.getLastTimestamp() >= cutoff && size <= retentionSize)) {
+                break;
+            }
+            segments.remove(segment.getBaseSequence());
+            size -= segment.getSize();
+            try {
+                segment.delete();
+            } catch (IOException e) {
+                log.warn("Could not delete stream journal segment {}: {}", segment.getBaseSequence(), e.getMessage());
+            }
+            deletedCounter.increment();
+        }
+    }
+
+    private long size() {
+        long size = 0;
+        for (JournalSegment segment : segments.values()) {
+            size += segment.getSize();
+        }
+        return size;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        for (JournalSegment segment : segments.values()) {
+            segment.close();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.jawnz.back.service.stream;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+
+/**
+ * Selects the messages of a subscription by the key of their Kafka record, a prefix of that key, or the value of a header.
+ */
+public final class StreamFilter {
+
+    public enum Type {
+        KEY,
+        KEY_PREFIX,
+        HEADER,
+    }
+
+    private final Type type;
+
+    private final String header;
+
+    private final String value;
+
+    private StreamFilter(Type type, @Nullable String header, String value) {
+        this.type = type;
+        this.header = header;
+        this.value = Objects.requireNonNull(value);
+    }
+
+    public static StreamFilter key(String key) {
+        return new StreamFilter(Type.KEY, null, key);
+    }
+
+    public static StreamFilter keyPrefix(String prefix) {
+        return new StreamFilter(Type.KEY_PREFIX, null, prefix);
+    }
+
+    public static StreamFilter header(String name, String value) {
+        return new StreamFilter(Type.HEADER, Objects.requireNonNull(name), value);
+    }
+
+    /**
+     * The key of the Kafka record of a message, decoded as UTF-8 when received as bytes.
+     *
+     * @return the key, or {@code null} if the record has none.
+     */
+    @Nullable
+    public static String key(Message<?> message) {
+        return asString(message.getHeaders().get(KafkaHeaders.RECEIVED_MESSAGE_KEY));
+    }
+
+    @Nullable
+    static String header(Message<?> message, String name) {
+        return asString(message.getHeaders().get(name));
+    }
+
+    @Nullable
+    private static String asString(@Nullable Object value) {
+        if (value instanceof byte[]) {
+            return new String((byte[]) value, StandardCharsets.UTF_8);
+        }
+        return value != null ? value.toString() : null;
+    }
+
+    public boolean matches(Message<?> message) {
+        switch (type) {
+            case KEY:
+                return value.equals(key(message));
+            case KEY_PREFIX:
+                String key = key(message);
+                return key != null && key.startsWith(value);
+            default:
+                return value.equals(header(message, header));
+        }
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * The name of the header, for a {@link Type#HEADER} filter.
+     */
+    @Nullable
+    public String getHeader() {
+        return header;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "StreamFilter{type=" + type + (header != null ? ", header='" + header + "'" : "") + ", value='" + value + "'}";
+    }
+}
@@ -0,0 +1,229 @@
+package com.jawnz.back.service.stream;
+
+import com.jawnz.back.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Bounds the server-sent event streams, so that the connections of gone clients do not hold resources forever.
+ * <p>
+ * Streams are limited per node and per user. A stream starts with a {@code retry:} hint, gets a comment heartbeat
+ * while it has nothing to send, so that dead peers are detected by the failing writes, and is completed once it has
+ * sent no event for the idle timeout or has lived for the maximum lifetime; clients then reconnect after the hint.
+ * <p>
+ * Once {@link #drain drained}, when the application stops, every stream ends with a {@code shutdown} event whose
+ * {@code retry:} hint spreads the reconnections of the clients, to the other nodes.
+ */
+@Component
+public class StreamGovernor {
+
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final Logger log = LoggerFactory.getLogger(StreamGovernor.class);
+
+    private final int maxStreams;
+
+    private final int maxStreamsPerUser;
+
+    private final Duration heartbeatInterval;
+
+    private final Duration idleTimeout;
+
+    private final Duration maxLifetime;
+
+    private final byte[] retryHint;
+
+    private final long reconnectDelay;
+
+    private final Sinks.Empty<Void> draining = Sinks.empty();
+
+    private volatile boolean drained;
+
+    private final AtomicInteger activeStreams = new AtomicInteger();
+
+    private final Map<String, Integer> userStreams = new ConcurrentHashMap<>();
+
+    private final Counter idleEvictionCounter;
+
+    private final Counter lifetimeEvictionCounter;
+
+    private final Counter shutdownEvictionCounter;
+
+    private final Counter nodeRejectionCounter;
+
+    private final Counter userRejectionCounter;
+
+    public StreamGovernor(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        ApplicationProperties.Stream.Governance properties = applicationProperties.getStream().getGovernance();
+        this.maxStreams = properties.getMaxStreams();
+        this.maxStreamsPerUser = properties.getMaxStreamsPerUser();
+        this.heartbeatInterval = properties.getHeartbeatInterval();
+        this.idleTimeout = properties.getIdleTimeout();
+        this.maxLifetime = properties.getMaxLifetime();
+        this.retryHint = ("retry:" + properties.getRetry().toMillis() + "\n\n").getBytes(StandardCharsets.US_ASCII);
+        this.reconnectDelay = applicationProperties.getStream().getShutdown().getReconnectDelay().toMillis();
+        Gauge
+            .builder("sse.streams.active", activeStreams, AtomicInteger::get)
+            .description("Open event streams")
+            .register(meterRegistry);
+        this.idleEvictionCounter = evictionCounter(meterRegistry, "idle");
+        this.lifetimeEvictionCounter = evictionCounter(meterRegistry, "lifetime");
+        this.shutdownEvictionCounter = evictionCounter(meterRegistry, "shutdown");
+        this.nodeRejectionCounter = rejectionCounter(meterRegistry, "node");
+        this.userRejectionCounter = rejectionCounter(meterRegistry, "user");
+    }
+
+    private static Counter evictionCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter
+            .builder("sse.streams.evicted")
+            .description("Event streams completed by the server")
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String limit) {
+        return Counter
+            .builder("sse.streams.rejected")
+            .description("Event streams refused over a limit")
+            .tag("limit", limit)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Takes a stream slot of a user.
+     *
+     * @return the slot, to {@link #govern} the stream with, or {@code null} if the node or the user has too many streams.
+     */
+    @Nullable
+    public Lease tryOpen(String user) {
+        if (activeStreams.incrementAndGet() > maxStreams) {
+            activeStreams.decrementAndGet();
+            nodeRejectionCounter.increment();
+            log.debug("Refusing an event stream to {}, {} streams are open", user, maxStreams);
+            return null;
+        }
+        AtomicBoolean accepted = new AtomicBoolean();
+        userStreams.compute(
+            user,
+            (key, count) -> {
+                int current = count != null ? count : 0;
+                if (current >= maxStreamsPerUser) {
+                    return count;
+                }
+                accepted.set(true);
+                return current + 1;
+            }
+        );
+        if (!accepted.get()) {
+            activeStreams.decrementAndGet();
+            userRejectionCounter.increment();
+            log.debug("Refusing an event stream to {}, who has {} streams open", user, maxStreamsPerUser);
+            return null;
+        }
+        return new Lease(user);
+    }
+
+    /**
+     * Wraps the events of a stream with the retry hint, the heartbeats and the lifetime limits, releasing the slot
+     * once the stream ends.
+     */
+    public Flux<DataBuffer> govern(Lease lease, Flux<DataBuffer> events, DataBufferFactory bufferFactory) {
+        Sinks.Empty<Void> ended = Sinks.empty();
+        Flux<DataBuffer> limited = events
+            .timeout(
+                idleTimeout,
+                Flux.defer(() -> {
+                    evict(idleEvictionCounter, lease, "idle");
+                    return Flux.empty();
+                })
+            )
+            .takeUntilOther(Mono.delay(maxLifetime).doOnNext(tick -> evict(lifetimeEvictionCounter, lease, "lifetime")))
+            .takeUntilOther(draining.asMono())
+            .doFinally(signal -> ended.tryEmitEmpty());
+        // every event restarts the heartbeat timer, so that only idle streams get heartbeats
+        Flux<DataBuffer> heartbeated = limited.publish(shared ->
+            Flux.merge(
+                shared,
+                shared
+                    .map(event -> 0L)
+                    .startWith(0L)
+                    .switchMap(event -> Flux.interval(heartbeatInterval).onBackpressureDrop())
+                    .takeUntilOther(ended.asMono())
+                    .map(tick -> bufferFactory.wrap(HEARTBEAT))
+            )
+        );
+        return Flux
+            .concat(
+                Mono.fromSupplier(() -> bufferFactory.wrap(retryHint)),
+                heartbeated,
+                Mono.fromSupplier(() -> drained ? shutdownEvent(lease, bufferFactory) : null)
+            )
+            .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+            // released before the completion is passed on, and on cancel
+            .doOnTerminate(lease::close)
+            .doFinally(signal -> lease.close());
+    }
+
+    private DataBuffer shutdownEvent(Lease lease, DataBufferFactory bufferFactory) {
+        evict(shutdownEvictionCounter, lease, "shutdown");
+        long retry = reconnectDelay + ThreadLocalRandom.current().nextLong(reconnectDelay + 1);
+        return bufferFactory.wrap(("event:shutdown\nretry:" + retry + "\ndata:reconnect\n\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Ends every stream, those opened from now on included, with a {@code shutdown} event.
+     */
+    public void drain() {
+        drained = true;
+        draining.tryEmitEmpty();
+        log.info("Draining {} event streams", activeStreams.get());
+    }
+
+    private void evict(Counter counter, Lease lease, String reason) {
+        counter.increment();
+        log.debug("Completing an event stream of {}, {}", lease.user, reason);
+    }
+
+    public int getActiveStreams() {
+        return activeStreams.get();
+    }
+
+    /**
+     * A stream slot of a user, released once.
+     */
+    public final class Lease {
+
+        private final String user;
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Lease(String user) {
+            this.user = user;
+        }
+
+        private void close() {
+            if (closed.compareAndSet(false, true)) {
+                activeStreams.decrementAndGet();
+                userStreams.computeIfPresent(user, (key, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+    }
+}
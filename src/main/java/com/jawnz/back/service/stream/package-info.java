@@ -0,0 +1,4 @@
+/**
+ * Fan-out of the Kafka records consumed by the service to the HTTP streaming clients.
+ */
+package com.jawnz.back.service.stream;
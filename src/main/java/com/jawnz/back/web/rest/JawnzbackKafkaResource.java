@@ -1,56 +1,206 @@
 package com.jawnz.back.web.rest;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.jawnz.back.config.ApplicationProperties;
 import com.jawnz.back.config.KafkaSseConsumer;
-import com.jawnz.back.config.KafkaSseProducer;
-import java.util.HashMap;
-import java.util.Map;
+import com.jawnz.back.security.SecurityUtils;
+import com.jawnz.back.service.stream.BulkPublishResult;
+import com.jawnz.back.service.stream.ConsumerFlowControl;
+import com.jawnz.back.service.stream.KafkaSseHub;
+import com.jawnz.back.service.stream.KafkaSsePublisher;
+import com.jawnz.back.service.stream.KeyedDispatcher;
+import com.jawnz.back.service.stream.MessageBatcher;
+import com.jawnz.back.service.stream.MessageEnvelope;
+import com.jawnz.back.service.stream.PublishResult;
+import com.jawnz.back.service.stream.SseFrameEncoder;
+import com.jawnz.back.service.stream.StreamFilter;
+import com.jawnz.back.service.stream.StreamGovernor;
+import com.jawnz.back.web.rest.errors.BadRequestAlertException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cloud.stream.annotation.StreamListener;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.messaging.Message;
-import org.springframework.messaging.MessageChannel;
-import org.springframework.messaging.MessageHeaders;
-import org.springframework.messaging.support.GenericMessage;
-import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
 
 @RestController
 @RequestMapping("/api/jawnzback-kafka")
 public class JawnzbackKafkaResource {
 
+    private static final String ANONYMOUS_USER = "anonymous";
+
     private final Logger log = LoggerFactory.getLogger(JawnzbackKafkaResource.class);
 
-    private final MessageChannel output;
-    private Sinks.Many<Message<String>> sink = Sinks.many().unicast().onBackpressureBuffer();
+    private final KafkaSsePublisher kafkaSsePublisher;
+
+    private final KafkaSseHub kafkaSseHub;
+
+    private final ConsumerFlowControl consumerFlowControl;
+
+    private final KeyedDispatcher keyedDispatcher;
+
+    private final StreamGovernor streamGovernor;
+
+    private final ApplicationProperties.Stream.Batching batching;
 
-    public JawnzbackKafkaResource(@Qualifier(KafkaSseProducer.CHANNELNAME) MessageChannel output) {
-        this.output = output;
+    public JawnzbackKafkaResource(
+        KafkaSsePublisher kafkaSsePublisher,
+        KafkaSseHub kafkaSseHub,
+        ConsumerFlowControl consumerFlowControl,
+        KeyedDispatcher keyedDispatcher,
+        StreamGovernor streamGovernor,
+        ApplicationProperties applicationProperties
+    ) {
+        this.kafkaSsePublisher = kafkaSsePublisher;
+        this.kafkaSseHub = kafkaSseHub;
+        this.consumerFlowControl = consumerFlowControl;
+        this.keyedDispatcher = keyedDispatcher;
+        this.streamGovernor = streamGovernor;
+        this.batching = applicationProperties.getStream().getBatching();
     }
 
+    /**
+     * {@code POST  /publish} : publish a message to the Kafka topic.
+     *
+     * @param message the message to publish.
+     * @param ack whether to wait for the broker acknowledgement.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the acknowledgement in body when {@code ack} is set,
+     * {@code 204 (No Content)} otherwise, or with status {@code 502 (Bad Gateway)} if the broker rejected the message.
+     */
     @PostMapping("/publish")
-    public Mono<ResponseEntity<Void>> publish(@RequestParam String message) {
+    public Mono<ResponseEntity<PublishResult>> publish(@RequestParam String message, @RequestParam(defaultValue = "false") boolean ack) {
         log.debug("REST request the message : {} to send to Kafka topic", message);
-        Map<String, Object> map = new HashMap<>();
-        map.put(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.TEXT_PLAIN_VALUE);
-        MessageHeaders headers = new MessageHeaders(map);
-        output.send(new GenericMessage<>(message, headers));
-        return Mono.just(ResponseEntity.noContent().build());
+        if (!ack) {
+            kafkaSsePublisher.publishAndForget(message);
+            return Mono.just(ResponseEntity.noContent().build());
+        }
+        return kafkaSsePublisher
+            .publish(message)
+            .map(ResponseEntity::ok)
+            .onErrorMap(e -> new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Kafka rejected the message: " + e.getMessage(), e));
+    }
+
+    /**
+     * {@code POST  /publish/bulk} : publish every element of a JSON array or of a newline delimited JSON stream
+     * to the Kafka topic; string elements are published as is, others as JSON.
+     *
+     * @param messages the messages to publish, read as fast as Kafka acknowledges them.
+     * @param batchSize the number of acknowledgements counted per result.
+     * @return the acknowledgement counts per batch, streamed as the batches are acknowledged.
+     */
+    @PostMapping(value = "/publish/bulk", consumes = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+    public Flux<BulkPublishResult> publishBulk(@RequestBody Flux<JsonNode> messages, @RequestParam(defaultValue = "500") int batchSize) {
+        log.debug("REST request to publish messages in batches of {} to Kafka topic", batchSize);
+        if (batchSize < 1) {
+            throw new BadRequestAlertException("The batch size must be positive", "kafka", "batchsizeinvalid");
+        }
+        return kafkaSsePublisher.publishAll(messages.map(node -> node.isTextual() ? node.asText() : node.toString()), batchSize);
+    }
+
+    /**
+     * {@code GET  /consume} : stream the messages consumed from the Kafka topic as server-sent events.
+     *
+     * @param lastEventId the id of the last event received before reconnecting, to first replay the missed messages.
+     * @param key the key of the records to stream, if only those.
+     * @param keyPrefix the prefix of the keys of the records to stream, if only those.
+     * @param header the {@code name:value} of a header of the records to stream, if only those.
+     * @param batchMs if set, how long a message may wait for others to be sent with it, as one event.
+     * @param maxBatch if set, the maximum messages per event, sent as one event when full.
+     * @param format {@code json} to unwrap the payloads of the enveloped messages, which are otherwise sent as is.
+     * @return the events, with the Kafka partition and offset of their (last) record as id, written from the record bytes;
+     * batched events carry a JSON array of the payloads, comment heartbeats, and a final {@code shutdown} event when the
+     * node stops. Or with status {@code 400 (Bad Request)}
+     * if more than one filter is set, the batching is out of bounds or the format is unknown, or with status
+     * {@code 429 (Too Many Requests)} if the node or the user has too many streams open.
+     */
+    @GetMapping(value = "/consume", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<DataBuffer> consume(
+        @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+        @RequestParam(required = false) String key,
+        @RequestParam(required = false) String keyPrefix,
+        @RequestParam(required = false) String header,
+        @RequestParam(required = false) Integer batchMs,
+        @RequestParam(required = false) Integer maxBatch,
+        @RequestParam(required = false) String format,
+        ServerHttpResponse response
+    ) {
+        log.debug("REST request to consume records from Kafka topics after event {}", lastEventId);
+        StreamFilter filter = streamFilter(key, keyPrefix, header);
+        DataBufferFactory bufferFactory = response.bufferFactory();
+        Flux<Message<ByteBuffer>> messages = kafkaSseHub.subscribe(lastEventId, filter);
+        if ("json".equals(format)) {
+            messages = messages.map(MessageEnvelope::unwrap);
+        } else if (format != null) {
+            throw new BadRequestAlertException("The format must be json", "kafka", "formatinvalid");
+        }
+        if (batchMs == null && maxBatch == null) {
+            return governed(messages.map(message -> SseFrameEncoder.encode(bufferFactory, message)), bufferFactory);
+        }
+        Duration delay = batchMs != null ? Duration.ofMillis(batchMs) : batching.getMaxDelay();
+        int size = maxBatch != null ? maxBatch : batching.getMaxSize();
+        if (delay.isNegative() || delay.isZero() || delay.compareTo(batching.getMaxDelay()) > 0) {
+            throw new BadRequestAlertException(
+                "batchMs must be between 1 and " + batching.getMaxDelay().toMillis(),
+                "kafka",
+                "batchinvalid"
+            );
+        }
+        if (size < 1 || size > batching.getMaxSize()) {
+            throw new BadRequestAlertException("maxBatch must be between 1 and " + batching.getMaxSize(), "kafka", "batchinvalid");
+        }
+        return governed(
+            MessageBatcher.batch(messages, size, delay).map(batch -> SseFrameEncoder.encodeBatch(bufferFactory, batch)),
+            bufferFactory
+        );
+    }
+
+    private Flux<DataBuffer> governed(Flux<DataBuffer> events, DataBufferFactory bufferFactory) {
+        return SecurityUtils
+            .getCurrentUserLogin()
+            .defaultIfEmpty(ANONYMOUS_USER)
+            .flatMapMany(login -> {
+                StreamGovernor.Lease lease = streamGovernor.tryOpen(login);
+                if (lease == null) {
+                    return Flux.error(new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many event streams open"));
+                }
+                return streamGovernor.govern(lease, events, bufferFactory);
+            });
     }
 
-    @GetMapping("/consume")
-    public Flux<String> consume() {
-        log.debug("REST request to consume records from Kafka topics");
-        return sink.asFlux().map(m -> m.getPayload());
+    private static StreamFilter streamFilter(String key, String keyPrefix, String header) {
+        if ((key != null ? 1 : 0) + (keyPrefix != null ? 1 : 0) + (header != null ? 1 : 0) > 1) {
+            throw new BadRequestAlertException("Only one of key, keyPrefix and header can be set", "kafka", "filterinvalid");
+        }
+        if (key != null) {
+            return StreamFilter.key(key);
+        }
+        if (keyPrefix != null) {
+            return StreamFilter.keyPrefix(keyPrefix);
+        }
+        if (header != null) {
+            int separator = header.indexOf(':');
+            if (separator < 1) {
+                throw new BadRequestAlertException("The header filter must be name:value", "kafka", "filterinvalid");
+            }
+            return StreamFilter.header(header.substring(0, separator), header.substring(separator + 1));
+        }
+        return null;
     }
 
     @StreamListener(value = KafkaSseConsumer.CHANNELNAME, copyHeaders = "false")
-    public void consume(Message<String> message) {
-        log.debug("Got message from kafka stream: {}", message.getPayload());
-        sink.emitNext(message, Sinks.EmitFailureHandler.FAIL_FAST);
+    public void consume(Message<byte[]> message) {
+        log.debug("Got message of {} bytes from kafka stream", message.getPayload().length);
+        consumerFlowControl.recordLag(message);
+        keyedDispatcher.dispatch(message);
     }
 }
@@ -0,0 +1,375 @@
+package com.jawnz.back.web.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jawnz.back.config.ApplicationProperties;
+import com.jawnz.back.service.stream.KafkaSseHub;
+import com.jawnz.back.service.stream.MessageEnvelope;
+import com.jawnz.back.service.stream.StreamFilter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.ByteBuffer;
+import java.security.Principal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+/**
+ * Streams the messages of the {@link KafkaSseHub} over WebSocket, at {@code /api/jawnzback-kafka/ws}.
+ * <p>
+ * A connection multiplexes subscriptions, each named by the client:
+ * <ul>
+ *     <li>{@code {"type":"subscribe","subscription":"s1","credits":100,"lastEventId":"0-42"}} subscribes, resuming after an
+ *     event if {@code lastEventId} is set, and only to the records selected by a {@code filter} if set, one of
+ *     {@code {"key":"k"}}, {@code {"keyPrefix":"k"}} or {@code {"header":"name","value":"v"}}, and with the payloads of
+ *     the enveloped messages unwrapped if {@code "format":"json"} is set;</li>
+ *     <li>{@code {"type":"credit","subscription":"s1","credits":100}} allows that many more messages;</li>
+ *     <li>{@code {"type":"unsubscribe","subscription":"s1"}} cancels a subscription.</li>
+ * </ul>
+ * A subscription is only sent as many messages as it was granted credits, the others staying in its hub buffer;
+ * messages are sent in batch frames, see {@link WebSocketFrames}. Credits are spent as the frames are queued for the
+ * socket: a connection whose queue holds {@code max-pending-frames} frames, its client granting credits without reading,
+ * is closed with the {@code 1008} (policy violation) status.
+ * <p>
+ * The handshake goes through the security rules of {@code /api/**}; as browsers cannot set headers on it, the access
+ * token may also be passed as the {@code access_token} query parameter. Subscriptions are refused once the token has
+ * expired.
+ * <p>
+ * When the application stops, the connections are closed with the {@code 1012} (service restart) status, telling the
+ * clients to reconnect, resuming their subscriptions with {@code lastEventId}.
+ */
+@Component
+public class KafkaWebSocketHandler implements WebSocketHandler {
+
+    private final Logger log = LoggerFactory.getLogger(KafkaWebSocketHandler.class);
+
+    private final KafkaSseHub kafkaSseHub;
+
+    private final ObjectMapper objectMapper;
+
+    private final WebSocketFrames frames;
+
+    private final int maxSubscriptions;
+
+    private final int maxCredits;
+
+    private final int batchSize;
+
+    private final Duration batchWindow;
+
+    private final int maxPendingFrames;
+
+    private final AtomicInteger subscriptionCount = new AtomicInteger();
+
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+
+    public KafkaWebSocketHandler(
+        KafkaSseHub kafkaSseHub,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        ApplicationProperties.Stream.WebSocket properties = applicationProperties.getStream().getWebsocket();
+        this.kafkaSseHub = kafkaSseHub;
+        this.objectMapper = objectMapper;
+        this.frames = new WebSocketFrames(objectMapper.getFactory());
+        this.maxSubscriptions = properties.getMaxSubscriptions();
+        this.maxCredits = properties.getMaxCredits();
+        this.batchSize = properties.getBatchSize();
+        this.batchWindow = properties.getBatchWindow();
+        this.maxPendingFrames = properties.getMaxPendingFrames();
+        Gauge
+            .builder("websocket.subscriptions", subscriptionCount, AtomicInteger::get)
+            .description("Active WebSocket stream subscriptions")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> handle(WebSocketSession session) {
+        Connection connection = new Connection(session);
+        connections.add(connection);
+        Mono<Boolean> authorized = session
+            .getHandshakeInfo()
+            .getPrincipal()
+            .map(KafkaWebSocketHandler::isAuthorized)
+            .defaultIfEmpty(false);
+        Mono<Void> input = session
+            .receive()
+            .filter(message -> message.getType() == WebSocketMessage.Type.TEXT)
+            // read right away, the payload is released once the message is handled
+            .map(WebSocketMessage::getPayloadAsText)
+            .concatMap(request -> authorized.doOnNext(isAuthorized -> connection.handle(request, isAuthorized)))
+            .then()
+            .doFinally(signal -> connection.close());
+        return Mono.zip(input, session.send(connection.outbound())).then().doFinally(signal -> connections.remove(connection));
+    }
+
+    /**
+     * Closes every connection, telling the clients to reconnect.
+     */
+    public void shutdown() {
+        log.info("Closing {} WebSocket connections", connections.size());
+        for (Connection connection : connections) {
+            connection.session.close(CloseStatus.SERVICE_RESTARTED).subscribe();
+        }
+    }
+
+    private static boolean isAuthorized(Principal principal) {
+        if (!(principal instanceof Authentication) || !((Authentication) principal).isAuthenticated()) {
+            return false;
+        }
+        if (principal instanceof JwtAuthenticationToken) {
+            Instant expiresAt = ((JwtAuthenticationToken) principal).getToken().getExpiresAt();
+            return expiresAt == null || expiresAt.isAfter(Instant.now());
+        }
+        return true;
+    }
+
+    private final class Connection {
+
+        private final WebSocketSession session;
+
+        private final Map<String, StreamSubscription> subscriptions = new ConcurrentHashMap<>();
+
+        private final Sinks.Many<WebSocketMessage> outbound;
+
+        private boolean overflowed;
+
+        private Connection(WebSocketSession session) {
+            this.session = session;
+            this.outbound = Sinks.many().unicast().onBackpressureBuffer(Queues.<WebSocketMessage>get(maxPendingFrames).get());
+        }
+
+        private Flux<WebSocketMessage> outbound() {
+            return outbound.asFlux().doOnDiscard(WebSocketMessage.class, WebSocketMessage::release);
+        }
+
+        private void handle(String text, boolean authorized) {
+            JsonNode request;
+            try {
+                request = objectMapper.readTree(text);
+            } catch (JsonProcessingException e) {
+                error(null, "Invalid request");
+                return;
+            }
+            String type = request.path("type").asText();
+            String id = request.path("subscription").asText(null);
+            if (id == null) {
+                error(null, "Missing subscription");
+                return;
+            }
+            StreamSubscription subscription;
+            switch (type) {
+                case "subscribe":
+                    subscribe(id, request, authorized);
+                    break;
+                case "credit":
+                    subscription = subscriptions.get(id);
+                    if (subscription != null) {
+                        subscription.credit(request.path("credits").asLong());
+                    } else {
+                        error(id, "Unknown subscription");
+                    }
+                    break;
+                case "unsubscribe":
+                    subscription = subscriptions.remove(id);
+                    if (subscription != null) {
+                        subscription.dispose();
+                    }
+                    break;
+                default:
+                    error(id, "Unknown request type " + type);
+            }
+        }
+
+        private void subscribe(String id, JsonNode request, boolean authorized) {
+            if (!authorized) {
+                error(id, "Not authorized");
+                session.close(CloseStatus.POLICY_VIOLATION).subscribe();
+                return;
+            }
+            if (subscriptions.containsKey(id)) {
+                error(id, "Already subscribed");
+                return;
+            }
+            if (subscriptions.size() >= maxSubscriptions) {
+                error(id, "Too many subscriptions");
+                return;
+            }
+            JsonNode filterRequest = request.path("filter");
+            StreamFilter filter = null;
+            if (!filterRequest.isMissingNode()) {
+                filter = streamFilter(filterRequest);
+                if (filter == null) {
+                    error(id, "Invalid filter");
+                    return;
+                }
+            }
+            StreamSubscription subscription = new StreamSubscription(this, id, request.path("credits").asLong());
+            subscriptions.put(id, subscription);
+            log.debug("WebSocket subscription {} added", id);
+            Flux<Message<ByteBuffer>> messages = kafkaSseHub.subscribe(request.path("lastEventId").asText(null), filter);
+            if ("json".equals(request.path("format").asText(null))) {
+                messages = messages.map(MessageEnvelope::unwrap);
+            }
+            messages.subscribe(subscription);
+        }
+
+        @Nullable
+        private StreamFilter streamFilter(JsonNode request) {
+            if (request.path("key").isTextual()) {
+                return StreamFilter.key(request.get("key").asText());
+            }
+            if (request.path("keyPrefix").isTextual()) {
+                return StreamFilter.keyPrefix(request.get("keyPrefix").asText());
+            }
+            if (request.path("header").isTextual() && request.path("value").isTextual()) {
+                return StreamFilter.header(request.get("header").asText(), request.get("value").asText());
+            }
+            return null;
+        }
+
+        private void error(@Nullable String id, String message) {
+            send(frames.control(session.bufferFactory(), WebSocketFrames.ERROR, id, message));
+        }
+
+        private void send(DataBuffer buffer) {
+            // subscriptions send concurrently, the sink only takes one emission at a time
+            synchronized (outbound) {
+                Sinks.EmitResult result = outbound.tryEmitNext(new WebSocketMessage(WebSocketMessage.Type.TEXT, buffer));
+                if (result.isFailure()) {
+                    DataBufferUtils.release(buffer);
+                }
+                if (result == Sinks.EmitResult.FAIL_OVERFLOW && !overflowed) {
+                    overflowed = true;
+                    log.warn("Closing a WebSocket connection with {} frames pending", maxPendingFrames);
+                    session.close(CloseStatus.POLICY_VIOLATION.withReason("Too many pending frames")).subscribe();
+                }
+            }
+        }
+
+        private void close() {
+            subscriptions.values().forEach(StreamSubscription::dispose);
+            subscriptions.clear();
+            synchronized (outbound) {
+                outbound.tryEmitComplete();
+            }
+        }
+    }
+
+    /**
+     * Requests messages from the hub as the client grants credits, and sends them in batches.
+     */
+    private final class StreamSubscription extends BaseSubscriber<Message<ByteBuffer>> {
+
+        private final Connection connection;
+
+        private final String id;
+
+        private final long initialCredits;
+
+        private long outstandingCredits;
+
+        private List<Message<ByteBuffer>> batch = new ArrayList<>();
+
+        private Disposable scheduledFlush;
+
+        private StreamSubscription(Connection connection, String id, long initialCredits) {
+            this.connection = connection;
+            this.id = id;
+            this.initialCredits = initialCredits;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            subscriptionCount.incrementAndGet();
+            credit(initialCredits);
+        }
+
+        private synchronized void credit(long credits) {
+            long granted = Math.min(credits, maxCredits - outstandingCredits);
+            if (granted > 0) {
+                outstandingCredits += granted;
+                request(granted);
+            }
+        }
+
+        @Override
+        protected synchronized void hookOnNext(Message<ByteBuffer> message) {
+            outstandingCredits--;
+            batch.add(message);
+            if (batch.size() >= batchSize || batchWindow.isZero()) {
+                flush();
+            } else if (batch.size() == 1) {
+                scheduledFlush = Schedulers.parallel().schedule(this::flush, batchWindow.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private synchronized void flush() {
+            if (scheduledFlush != null) {
+                scheduledFlush.dispose();
+                scheduledFlush = null;
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<Message<ByteBuffer>> messages = batch;
+            batch = new ArrayList<>();
+            connection.send(frames.batch(connection.session.bufferFactory(), id, messages));
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            flush();
+            connection.subscriptions.remove(id, this);
+            connection.send(frames.control(connection.session.bufferFactory(), WebSocketFrames.COMPLETE, id, null));
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            log.warn("WebSocket subscription {} failed: {}", id, throwable.getMessage());
+            connection.subscriptions.remove(id, this);
+            connection.error(id, "Subscription failed");
+        }
+
+        @Override
+        protected void hookFinally(SignalType type) {
+            subscriptionCount.decrementAndGet();
+            synchronized (this) {
+                if (scheduledFlush != null) {
+                    scheduledFlush.dispose();
+                }
+            }
+            log.debug("WebSocket subscription {} removed", id);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.jawnz.back.web.websocket;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.jawnz.back.service.stream.KafkaSseHub;
+import com.jawnz.back.service.stream.SseFrameEncoder;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+
+/**
+ * Writes the JSON frames sent to the WebSocket clients straight into buffers.
+ * <p>
+ * A batch frame is {@code {"type":"batch","subscription":"...","events":[{"id":"...","contentType":"...","data":"..."}]}},
+ * the data being the payload as a string when textual, Base64-encoded otherwise.
+ */
+final class WebSocketFrames {
+
+    static final String BATCH = "batch";
+
+    static final String COMPLETE = "complete";
+
+    static final String ERROR = "error";
+
+    private final JsonFactory jsonFactory;
+
+    WebSocketFrames(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    DataBuffer batch(DataBufferFactory bufferFactory, String subscription, List<Message<ByteBuffer>> messages) {
+        int size = 64;
+        for (Message<ByteBuffer> message : messages) {
+            size += message.getPayload().remaining() + 64;
+        }
+        DataBuffer buffer = bufferFactory.allocateBuffer(size);
+        try (JsonGenerator generator = jsonFactory.createGenerator(buffer.asOutputStream())) {
+            generator.writeStartObject();
+            generator.writeStringField("type", BATCH);
+            generator.writeStringField("subscription", subscription);
+            generator.writeArrayFieldStart("events");
+            for (Message<ByteBuffer> message : messages) {
+                writeEvent(generator, message);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } catch (IOException e) {
+            DataBufferUtils.release(buffer);
+            throw new UncheckedIOException(e);
+        }
+        return buffer;
+    }
+
+    private static void writeEvent(JsonGenerator generator, Message<ByteBuffer> message) throws IOException {
+        Object contentType = message.getHeaders().get(MessageHeaders.CONTENT_TYPE);
+        generator.writeStartObject();
+        String id = KafkaSseHub.eventId(message);
+        if (id != null) {
+            generator.writeStringField("id", id);
+        }
+        if (contentType != null) {
+            generator.writeStringField("contentType", contentType.toString());
+        }
+        generator.writeFieldName("data");
+        SseFrameEncoder.writeData(generator, message);
+        generator.writeEndObject();
+    }
+
+    /**
+     * A frame without events, such as the completion of a subscription or an error.
+     */
+    DataBuffer control(DataBufferFactory bufferFactory, String type, @Nullable String subscription, @Nullable String message) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(128);
+        try (JsonGenerator generator = jsonFactory.createGenerator(buffer.asOutputStream())) {
+            generator.writeStartObject();
+            generator.writeStringField("type", type);
+            if (subscription != null) {
+                generator.writeStringField("subscription", subscription);
+            }
+            if (message != null) {
+                generator.writeStringField("message", message);
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            DataBufferUtils.release(buffer);
+            throw new UncheckedIOException(e);
+        }
+        return buffer;
+    }
+}
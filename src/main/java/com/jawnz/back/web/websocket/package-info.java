@@ -0,0 +1,4 @@
+/**
+ * WebSocket handlers.
+ */
+package com.jawnz.back.web.websocket;
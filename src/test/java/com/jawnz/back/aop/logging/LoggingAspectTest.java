@@ -0,0 +1,96 @@
+package com.jawnz.back.aop.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.jawnz.back.config.ApplicationProperties;
+import com.jawnz.back.service.stream.KafkaSseHub;
+import com.jawnz.back.service.stream.SseJournal;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.mock.env.MockEnvironment;
+
+/**
+ * Unit tests for {@link LoggingAspect}.
+ */
+class LoggingAspectTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private KafkaSseHub kafkaSseHub(double sampleRate) throws IOException {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getMethodTiming().setSampleRate(sampleRate);
+        KafkaSseHub target = new KafkaSseHub(applicationProperties, new SseJournal(applicationProperties, meterRegistry), meterRegistry);
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new LoggingAspect(new MockEnvironment(), applicationProperties, meterRegistry));
+        return proxyFactory.getProxy();
+    }
+
+    @Test
+    void shouldTimeSynchronousAndReactiveInvocations() throws Exception {
+        KafkaSseHub kafkaSseHub = kafkaSseHub(1);
+
+        kafkaSseHub.getSubscriberCount();
+        CompletableFuture<List<Message<ByteBuffer>>> received = kafkaSseHub.subscribe().take(1).collectList().toFuture();
+        Thread.sleep(20);
+        kafkaSseHub.publish(new GenericMessage<>("a".getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(received.get()).hasSize(1);
+        assertThat(
+            meterRegistry.get("method.invocations").tag("method", "getSubscriberCount").tag("outcome", "success").timer().count()
+        )
+            .isEqualTo(1);
+        assertThat(
+            meterRegistry
+                .get("method.invocations")
+                .tag("class", "KafkaSseHub")
+                .tag("method", "subscribe")
+                .tag("outcome", "cancel")
+                .timer()
+                .totalTime(TimeUnit.MILLISECONDS)
+        )
+            .isGreaterThanOrEqualTo(20);
+    }
+
+    @Test
+    void shouldRecordExceptionsWithoutLoggingThemOutsideDevelopment() throws IOException {
+        KafkaSseHub kafkaSseHub = kafkaSseHub(1);
+        Logger logger = (Logger) LoggerFactory.getLogger(KafkaSseHub.class);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        try {
+            assertThatThrownBy(() -> kafkaSseHub.publish(null)).isInstanceOf(NullPointerException.class);
+        } finally {
+            logger.detachAppender(appender);
+        }
+
+        assertThat(appender.list).isEmpty();
+        assertThat(meterRegistry.get("method.invocations").tag("method", "publish").tag("outcome", "error").timer().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotTimeWithoutSampling() throws IOException {
+        KafkaSseHub kafkaSseHub = kafkaSseHub(0);
+
+        kafkaSseHub.getSubscriberCount();
+
+        assertThat(meterRegistry.find("method.invocations").timers()).isEmpty();
+    }
+}
@@ -0,0 +1,59 @@
+package com.jawnz.back.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import reactor.core.publisher.Flux;
+
+/**
+ * Unit tests for {@link ElasticsearchClientFilters}.
+ */
+class ElasticsearchClientFiltersTest {
+
+    @Test
+    void shouldNameOperationsAfterTheirEndpoint() {
+        assertThat(ElasticsearchClientFilters.operation(URI.create("http://localhost:9200/user/_search?q=x"))).isEqualTo("search");
+        assertThat(ElasticsearchClientFilters.operation(URI.create("http://localhost:9200/_bulk"))).isEqualTo("bulk");
+        assertThat(ElasticsearchClientFilters.operation(URI.create("http://localhost:9200/user/_doc/42"))).isEqualTo("doc");
+        assertThat(ElasticsearchClientFilters.operation(URI.create("http://localhost:9200/user"))).isEqualTo("index");
+        assertThat(ElasticsearchClientFilters.operation(URI.create("http://localhost:9200/"))).isEqualTo("info");
+    }
+
+    @Test
+    void shouldGzipTheRequestBody() throws IOException {
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.POST, "/_bulk");
+        ElasticsearchClientFilters.GzipClientHttpRequest gzipRequest = new ElasticsearchClientFilters.GzipClientHttpRequest(request);
+        String body = "{\"index\":{\"_id\":\"1\"}}\n{\"login\":\"user\"}\n";
+
+        gzipRequest
+            .writeWith(
+                Flux
+                    .just(body.substring(0, 10), body.substring(10))
+                    .map(part -> request.bufferFactory().wrap(part.getBytes(StandardCharsets.UTF_8)))
+            )
+            .block();
+
+        assertThat(request.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        byte[] sent = DataBufferUtils
+            .join(request.getBody())
+            .map(buffer -> {
+                byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+                return bytes;
+            })
+            .block();
+        assertThat(request.getHeaders().getContentLength()).isEqualTo(sent.length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(sent))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(body);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.jawnz.back.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jawnz.back.domain.User;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentProperty;
+import org.springframework.data.elasticsearch.core.mapping.PropertyValueConverter;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+
+/**
+ * Unit tests for the date converters of {@link ElasticsearchConfiguration}.
+ */
+class ElasticsearchConfigurationTest {
+
+    private static final Instant INSTANT = Instant.parse("2026-10-19T10:15:30.123Z");
+
+    @Test
+    void shouldRoundTripInstantAsEpochMillis() {
+        Long written = new ElasticsearchConfiguration.InstantEpochMillisWritingConverter().convert(INSTANT);
+
+        assertThat(written).isEqualTo(INSTANT.toEpochMilli());
+        assertThat(new ElasticsearchConfiguration.InstantEpochMillisReadingConverter().convert(written)).isEqualTo(INSTANT);
+    }
+
+    @Test
+    void shouldRoundTripZonedDateTimeAsEpochMillis() {
+        ZonedDateTime zonedDateTime = new ElasticsearchConfiguration.ZonedDateTimeReadingConverter().convert(INSTANT.toString());
+
+        Long written = new ElasticsearchConfiguration.ZonedDateTimeEpochMillisWritingConverter().convert(zonedDateTime);
+
+        assertThat(new ElasticsearchConfiguration.ZonedDateTimeEpochMillisReadingConverter().convert(written)).isEqualTo(zonedDateTime);
+    }
+
+    @Test
+    void shouldRoundTripLocalDateAsEpochMillis() {
+        LocalDate localDate = LocalDate.of(2026, 10, 19);
+
+        Long written = new ElasticsearchConfiguration.LocalDateEpochMillisWritingConverter().convert(localDate);
+
+        assertThat(written).isEqualTo(Instant.parse("2026-10-19T00:00:00Z").toEpochMilli());
+        assertThat(new ElasticsearchConfiguration.LocalDateEpochMillisReadingConverter().convert(written)).isEqualTo(localDate);
+    }
+
+    @Test
+    void shouldReadEpochMillisParsedAsInteger() {
+        assertThat(new ElasticsearchConfiguration.LocalDateEpochMillisReadingConverter().convert(0)).isEqualTo(LocalDate.of(1970, 1, 1));
+    }
+
+    private static ElasticsearchPersistentProperty lastModifiedDate(ApplicationProperties.Search.DateEncoding dateEncoding) {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSearch().setDateEncoding(dateEncoding);
+        ElasticsearchConfiguration configuration = new ElasticsearchConfiguration(applicationProperties);
+        SimpleElasticsearchMappingContext mappingContext = configuration.elasticsearchMappingContext(
+            configuration.elasticsearchCustomConversions()
+        );
+        return mappingContext.getRequiredPersistentEntity(User.class).getRequiredPersistentProperty("lastModifiedDate");
+    }
+
+    @Test
+    void shouldWriteTheAuditDatesWithTheConfiguredEncoding() {
+        ElasticsearchPersistentProperty epochMillis = lastModifiedDate(ApplicationProperties.Search.DateEncoding.EPOCH_MILLIS);
+        ElasticsearchPersistentProperty iso = lastModifiedDate(ApplicationProperties.Search.DateEncoding.ISO);
+
+        assertThat(epochMillis.getPropertyValueConverter().write(INSTANT)).isEqualTo(INSTANT.toEpochMilli());
+        assertThat(iso.getPropertyValueConverter().write(INSTANT)).isEqualTo(INSTANT.toString());
+    }
+
+    @Test
+    void shouldReadTheAuditDatesInBothEncodings() {
+        PropertyValueConverter converter = lastModifiedDate(ApplicationProperties.Search.DateEncoding.ISO).getPropertyValueConverter();
+
+        assertThat(converter.read(INSTANT.toString())).isEqualTo(INSTANT);
+        assertThat(converter.read(INSTANT.toEpochMilli())).isEqualTo(INSTANT);
+        assertThat(converter.read(String.valueOf(INSTANT.toEpochMilli()))).isEqualTo(INSTANT);
+        assertThat(converter.read(0)).isEqualTo(Instant.EPOCH);
+    }
+}
@@ -0,0 +1,55 @@
+package com.jawnz.back.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.mock.env.MockEnvironment;
+
+/**
+ * Unit tests for {@link KafkaSenderConfiguration}.
+ */
+class KafkaSenderConfigurationTest {
+
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    private Map<String, Object> producerProperties(MockEnvironment environment) {
+        return KafkaSenderConfiguration.producerProperties(
+            environment,
+            new KafkaProperties(),
+            "jawnzback",
+            applicationProperties.getStream().getProducer()
+        );
+    }
+
+    @Test
+    void shouldConnectAsTheBinder() {
+        MockEnvironment environment = new MockEnvironment()
+            .withProperty("spring.cloud.stream.kafka.binder.brokers", "kafka-1:9093,kafka-2:9093")
+            .withProperty("spring.cloud.stream.kafka.binder.configuration.security.protocol", "SASL_SSL")
+            .withProperty("spring.cloud.stream.kafka.binder.configuration.sasl.mechanism", "SCRAM-SHA-512")
+            .withProperty("spring.cloud.stream.kafka.binder.configuration.group.id", "not-a-producer-property")
+            .withProperty("spring.cloud.stream.kafka.binder.producer-properties.client.id", "jawnzback-producer");
+
+        Map<String, Object> properties = producerProperties(environment);
+
+        assertThat(properties.get(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG)).isEqualTo("kafka-1:9093,kafka-2:9093");
+        assertThat(properties).containsEntry("security.protocol", "SASL_SSL").containsEntry("sasl.mechanism", "SCRAM-SHA-512");
+        assertThat(properties).containsEntry(ProducerConfig.CLIENT_ID_CONFIG, "jawnzback-producer").doesNotContainKey("group.id");
+    }
+
+    @Test
+    void shouldApplyTheSenderTuning() {
+        applicationProperties.getStream().getProducer().setAcks("1");
+
+        Map<String, Object> properties = producerProperties(new MockEnvironment());
+
+        // the brokers of spring.kafka, as a list
+        assertThat(properties.get(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG)).asString().contains("localhost:9092");
+        assertThat(properties)
+            .containsEntry(ProducerConfig.CLIENT_ID_CONFIG, "jawnzback-publisher")
+            .containsEntry(ProducerConfig.ACKS_CONFIG, "1");
+    }
+}
@@ -0,0 +1,79 @@
+package com.jawnz.back.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests for {@link MeteredConnectionFactory}.
+ */
+class MeteredConnectionFactoryTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ConnectionFactory delegate = mock(ConnectionFactory.class);
+
+    private final MeteredConnectionFactory connectionFactory = new MeteredConnectionFactory(delegate, meterRegistry);
+
+    private long acquisitions(String outcome) {
+        return meterRegistry.get("r2dbc.pool.acquire").tag("outcome", outcome).timer().count();
+    }
+
+    @Test
+    void shouldTimeAcquisitionsByOutcome() {
+        Mockito
+            .doReturn(Mono.just(mock(Connection.class)), Mono.error(new IllegalStateException("refused")), Mono.never())
+            .when(delegate)
+            .create();
+
+        assertThat(Mono.from(connectionFactory.create()).block()).isNotNull();
+        assertThatThrownBy(() -> Mono.from(connectionFactory.create()).block()).hasMessage("refused");
+        assertThat(Mono.from(connectionFactory.create()).timeout(Duration.ofMillis(10)).onErrorResume(e -> Mono.empty()).block()).isNull();
+
+        assertThat(acquisitions("success")).isEqualTo(1);
+        assertThat(acquisitions("error")).isEqualTo(1);
+        assertThat(acquisitions("cancel")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldTimeFromSubscription() {
+        Mockito.doReturn(Mono.just(mock(Connection.class))).when(delegate).create();
+
+        Mono<? extends Connection> acquisition = Mono.from(connectionFactory.create());
+
+        assertThat(acquisitions("success")).isZero();
+        acquisition.block();
+        acquisition.block();
+        assertThat(acquisitions("success")).isEqualTo(2);
+    }
+
+    @Test
+    void shouldUnwrapToThePool() {
+        assertThat(connectionFactory.unwrap()).isSameAs(delegate);
+    }
+
+    @Test
+    void shouldRecordTheConnectionLifecycle() {
+        MeteredConnectionFactory.ConnectionMetricsRecorder recorder = new MeteredConnectionFactory.ConnectionMetricsRecorder(meterRegistry);
+
+        recorder.recordAllocationSuccessAndLatency(5);
+        recorder.recordAllocationFailureAndLatency(7);
+        recorder.recordRecycled();
+        recorder.recordLifetimeDuration(1000);
+
+        assertThat(meterRegistry.get("r2dbc.pool.allocation").tag("outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("r2dbc.pool.allocation").tag("outcome", "error").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("r2dbc.pool.recycled").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("r2dbc.pool.lifetime").timer().totalTime(TimeUnit.SECONDS)).isEqualTo(1);
+    }
+}
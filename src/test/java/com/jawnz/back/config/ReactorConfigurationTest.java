@@ -0,0 +1,38 @@
+package com.jawnz.back.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jawnz.back.config.ApplicationProperties.Reactor.DebugMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Hooks;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests for {@link ReactorConfiguration}.
+ */
+class ReactorConfigurationTest {
+
+    @AfterEach
+    void resetHooks() {
+        Hooks.resetOnOperatorDebug();
+    }
+
+    private static Throwable errorOf(DebugMode debugMode) {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getReactor().setDebug(debugMode);
+        new ReactorConfiguration(applicationProperties);
+        return Mono.<Throwable>error(new IllegalStateException()).map(value -> value).onErrorResume(Mono::just).block();
+    }
+
+    @Test
+    void shouldCaptureAssemblyWithFullHooks() {
+        assertThat(errorOf(DebugMode.FULL).getSuppressed()).isNotEmpty();
+    }
+
+    @Test
+    void shouldFallBackToCheckpointsWithoutDebugAgent() {
+        assertThat(errorOf(DebugMode.AGENT).getSuppressed()).isEmpty();
+        assertThat(errorOf(DebugMode.OFF).getSuppressed()).isEmpty();
+    }
+}
@@ -0,0 +1,81 @@
+package com.jawnz.back.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.web.reactive.result.method.RequestMappingInfo;
+import org.springframework.web.reactive.result.method.RequestMappingInfoHandlerMapping;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+
+/**
+ * Unit tests for {@link UriTagLimiter}.
+ */
+class UriTagLimiterTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private void record(String name, String uri) {
+        Timer.builder(name).tag("uri", uri).tag("status", "200").register(meterRegistry).record(Duration.ofMillis(1));
+    }
+
+    private UriTagLimiter limiter(String... routes) throws NoSuchMethodException {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getMetrics().setMaxUriTags(3);
+        RequestMappingHandlerMapping handlerMapping = new RequestMappingHandlerMapping();
+        for (String route : routes) {
+            handlerMapping.registerMapping(RequestMappingInfo.paths(route).build(), this, Object.class.getMethod("toString"));
+        }
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("requestMappingHandlerMapping", handlerMapping));
+        UriTagLimiter limiter = new UriTagLimiter(
+            applicationProperties,
+            beanFactory.getBeanProvider(RequestMappingInfoHandlerMapping.class)
+        );
+        meterRegistry.config().meterFilter(limiter);
+        limiter.bindTo(meterRegistry);
+        return limiter;
+    }
+
+    @Test
+    void shouldOnlyKeepTheRouteTemplatesOfTheServerRequests() throws NoSuchMethodException {
+        limiter("/api/_search/users/{query}", "/api/users");
+
+        record("http.server.requests", "/api/_search/users/{query}");
+        record("http.server.requests", "/api/users");
+        record("http.server.requests", "NOT_FOUND");
+        record("http.server.requests", "/api/_search/users/jdoe");
+        record("http.server.requests", "/api/users/1");
+
+        assertThat(meterRegistry.find("http.server.requests").timers()).hasSize(4);
+        assertThat(meterRegistry.get("http.server.requests").tag("uri", UriTagLimiter.COLLAPSED).tag("status", "200").timer().count())
+            .isEqualTo(2);
+        assertThat(meterRegistry.get("http.server.requests").tag("uri", "NOT_FOUND").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("metrics.tags.distinct").gauge().value()).isEqualTo(3);
+        assertThat(meterRegistry.get("metrics.tags.collapsed").functionCounter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldCollapseTheUrisOfOtherMetersBeyondTheLimitOfEachMeter() throws NoSuchMethodException {
+        limiter();
+
+        for (int i = 0; i < 5; i++) {
+            record("http.client.requests", "/users/" + i);
+        }
+        record("http.client.requests", "/users/0");
+        record("http.client.other.requests", "/other");
+
+        assertThat(meterRegistry.find("http.client.requests").timers()).hasSize(4);
+        assertThat(meterRegistry.get("http.client.requests").tag("uri", UriTagLimiter.COLLAPSED).tag("status", "200").timer().count())
+            .isEqualTo(2);
+        assertThat(meterRegistry.get("http.client.requests").tag("uri", "/users/0").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("http.client.other.requests").tag("uri", "/other").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("metrics.tags.distinct").gauge().value()).isEqualTo(3);
+        assertThat(meterRegistry.get("metrics.tags.collapsed").functionCounter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("metrics.meters").gauge().value()).isGreaterThanOrEqualTo(8);
+    }
+}
@@ -0,0 +1,88 @@
+package com.jawnz.back.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.jawnz.back.domain.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests for {@link RepositoryMetricsAspect}.
+ */
+class RepositoryMetricsAspectTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final UserRepository target = mock(UserRepository.class);
+
+    private UserRepository userRepository() {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.addAspect(new RepositoryMetricsAspect(meterRegistry));
+        return proxyFactory.getProxy();
+    }
+
+    @Test
+    void shouldTimeInvocationsFromSubscriptionAndCountRows() {
+        when(target.findAllWithAuthorities(any())).thenReturn(Flux.just(new User(), new User(), new User()));
+        when(target.findOneByLogin("alice")).thenReturn(Mono.delay(Duration.ofMillis(20)).map(tick -> new User()));
+        UserRepository userRepository = userRepository();
+
+        userRepository.findAllWithAuthorities(Pageable.unpaged()).blockLast();
+        Mono<User> user = userRepository.findOneByLogin("alice");
+        user.block();
+        user.block();
+
+        assertThat(
+            meterRegistry
+                .get("repository.rows")
+                .tag("repository", "UserRepositoryInternal")
+                .tag("method", "findAllWithAuthorities")
+                .summary()
+                .totalAmount()
+        )
+            .isEqualTo(3);
+        assertThat(
+            meterRegistry
+                .get("repository.invocations")
+                .tag("repository", "UserRepository")
+                .tag("method", "findOneByLogin")
+                .tag("outcome", "success")
+                .timer()
+        )
+            .satisfies(timer -> {
+                assertThat(timer.count()).isEqualTo(2);
+                assertThat(timer.totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(40);
+            });
+    }
+
+    @Test
+    void shouldCountErrors() {
+        when(target.count()).thenReturn(Mono.error(new DataAccessResourceFailureException("down")));
+        UserRepository userRepository = userRepository();
+
+        userRepository.count().onErrorResume(e -> Mono.empty()).block();
+
+        assertThat(
+            meterRegistry
+                .get("repository.errors")
+                .tag("method", "count")
+                .tag("exception", "DataAccessResourceFailureException")
+                .counter()
+                .count()
+        )
+            .isEqualTo(1);
+        assertThat(meterRegistry.get("repository.invocations").tag("method", "count").tag("outcome", "error").timer().count())
+            .isEqualTo(1);
+    }
+}
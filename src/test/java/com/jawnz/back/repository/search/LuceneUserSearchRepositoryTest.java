@@ -0,0 +1,177 @@
+package com.jawnz.back.repository.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.jawnz.back.config.ApplicationProperties;
+import com.jawnz.back.domain.User;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * Unit tests for {@link LuceneUserSearchRepository}.
+ */
+class LuceneUserSearchRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    private ApplicationProperties applicationProperties;
+
+    private LuceneUserSearchRepository repository;
+
+    @BeforeEach
+    public void init() throws IOException {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getSearch().getEmbedded().setDirectory(directory.toString());
+        applicationProperties.getSearch().getEmbedded().setCommitInterval(Duration.ofHours(1));
+        repository = new LuceneUserSearchRepository(applicationProperties);
+    }
+
+    @AfterEach
+    public void close() throws IOException {
+        repository.close();
+    }
+
+    private static User user(int index, String lastName) {
+        User user = new User();
+        user.setId("id-" + index);
+        user.setLogin("user" + index);
+        user.setFirstName("John");
+        user.setLastName(lastName);
+        user.setEmail("user" + index + "@example.com");
+        user.setLangKey("en");
+        user.setActivated(true);
+        user.setLastModifiedDate(Instant.ofEpochMilli(1_000_000L + index));
+        return user;
+    }
+
+    @Test
+    void searchesByFieldAndAcrossTheDefaultFields() {
+        repository.save(user(1, "Doe")).block();
+        repository.save(user(2, "Smith")).block();
+
+        assertThat(repository.search("lastName:doe").map(User::getLogin).collectList().block()).containsExactly("user1");
+        assertThat(repository.search("smith").map(User::getLogin).collectList().block()).containsExactly("user2");
+        assertThat(repository.search("*example.com").count().block()).isEqualTo(2);
+        assertThat(repository.findById("id-1").map(User::getLastModifiedDate).block()).isEqualTo(Instant.ofEpochMilli(1_000_001L));
+    }
+
+    @Test
+    void rejectsAnInvalidQuery() {
+        assertThatThrownBy(() -> repository.search("lastName:(doe").blockLast())
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("lastName:(doe");
+    }
+
+    @Test
+    void namesTheSearchInTheErrorsUnlessTheDebugModeIsOff() throws IOException {
+        String checkpoint = "UserSearchRepository.search";
+        assertThatThrownBy(() -> repository.search("lastName:(doe").blockLast())
+            .satisfies(e -> assertThat(e.getSuppressed()).anySatisfy(s -> assertThat(s).hasMessageContaining(checkpoint)));
+
+        repository.close();
+        applicationProperties.getReactor().setDebug(ApplicationProperties.Reactor.DebugMode.OFF);
+        repository = new LuceneUserSearchRepository(applicationProperties);
+        assertThatThrownBy(() -> repository.search("lastName:(doe").blockLast())
+            .satisfies(e -> assertThat(e.getSuppressed()).noneSatisfy(s -> assertThat(s).hasMessageContaining(checkpoint)));
+    }
+
+    @Test
+    void pagesTheResults() {
+        repository.saveAll(IntStream.range(0, 5).mapToObj(i -> user(i, "Doe")).collect(Collectors.toList())).blockLast();
+
+        assertThat(repository.count().block()).isEqualTo(5);
+        assertThat(repository.search("doe", PageRequest.of(0, 2)).count().block()).isEqualTo(2);
+        assertThat(repository.search("doe", PageRequest.of(2, 2)).count().block()).isEqualTo(1);
+        assertThat(repository.search("doe", PageRequest.of(3, 2)).count().block()).isZero();
+        List<String> pages = IntStream
+            .range(0, 3)
+            .mapToObj(page -> repository.search("doe", PageRequest.of(page, 2)).map(User::getId).collectList().block())
+            .flatMap(List::stream)
+            .collect(Collectors.toList());
+        assertThat(pages).doesNotHaveDuplicates().hasSize(5);
+    }
+
+    @Test
+    void findsAllById() {
+        repository.saveAll(List.of(user(1, "Doe"), user(2, "Doe"), user(3, "Doe"))).blockLast();
+
+        assertThat(repository.findAllById(List.of("id-1", "id-3", "id-9")).map(User::getId).collectList().block())
+            .containsExactlyInAnyOrder("id-1", "id-3");
+        assertThat(repository.findAllById(List.of()).count().block()).isZero();
+    }
+
+    @Test
+    void deletesAndSavesAgain() {
+        repository.save(user(1, "Doe")).block();
+
+        repository.deleteById("id-1").block();
+        assertThat(repository.search("doe").count().block()).isZero();
+        assertThat(repository.count().block()).isZero();
+
+        repository.save(user(1, "Smith")).block();
+        repository.save(user(1, "Smith")).block();
+        assertThat(repository.search("doe").count().block()).isZero();
+        assertThat(repository.search("smith").map(User::getId).collectList().block()).containsExactly("id-1");
+    }
+
+    @Test
+    void commitsBatchesBeforeCompleting() throws IOException {
+        repository.save(user(1, "Doe")).block();
+        assertThat(committedDocuments()).isZero();
+
+        repository.saveAll(List.of(user(2, "Doe"))).blockLast();
+        assertThat(committedDocuments()).isEqualTo(2);
+    }
+
+    @Test
+    void keepsTheSingleWritesAcrossARestart() throws IOException {
+        repository.save(user(1, "Doe")).block();
+        repository.close();
+
+        repository = new LuceneUserSearchRepository(applicationProperties);
+
+        assertThat(repository.count().block()).isEqualTo(1);
+        assertThat(repository.findById("id-1").map(User::getLastName).block()).isEqualTo("Doe");
+    }
+
+    @Test
+    void commitsTheSingleWritesOnSchedule() throws Exception {
+        repository.close();
+        applicationProperties.getSearch().getEmbedded().setCommitInterval(Duration.ofMillis(10));
+        repository = new LuceneUserSearchRepository(applicationProperties);
+
+        repository.save(user(1, "Doe")).block();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (committedDocuments() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(committedDocuments()).isEqualTo(1);
+    }
+
+    private int committedDocuments() throws IOException {
+        try (Directory committed = new MMapDirectory(directory)) {
+            if (!DirectoryReader.indexExists(committed)) {
+                return 0;
+            }
+            try (DirectoryReader reader = DirectoryReader.open(committed)) {
+                return reader.numDocs();
+            }
+        }
+    }
+}
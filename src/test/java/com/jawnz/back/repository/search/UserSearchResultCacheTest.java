@@ -0,0 +1,105 @@
+package com.jawnz.back.repository.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jawnz.back.config.ApplicationProperties;
+import com.jawnz.back.domain.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+
+/**
+ * Unit tests for {@link UserSearchResultCache}.
+ */
+class UserSearchResultCacheTest {
+
+    private ApplicationProperties applicationProperties;
+
+    private UserSearchResultCache cache;
+
+    private AtomicInteger searches;
+
+    @BeforeEach
+    public void init() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getSearch().getCache().setRefreshInterval(Duration.ZERO);
+        cache = new UserSearchResultCache(applicationProperties, new SimpleMeterRegistry());
+        searches = new AtomicInteger();
+    }
+
+    @Test
+    void normalizedQueriesShareTheirResult() {
+        assertThat(search("  john   doe ", Pageable.unpaged())).isEqualTo("johndoe");
+        assertThat(search("john doe", Pageable.unpaged())).isEqualTo("johndoe");
+
+        assertThat(searches).hasValue(1);
+    }
+
+    @Test
+    void pagesAreCachedSeparately() {
+        search("john", PageRequest.of(0, 20));
+        search("john", PageRequest.of(1, 20));
+        search("john", PageRequest.of(0, 20));
+
+        assertThat(searches).hasValue(2);
+    }
+
+    @Test
+    void invalidateForcesANewSearch() {
+        search("john", Pageable.unpaged());
+        cache.invalidate();
+        search("john", Pageable.unpaged());
+
+        assertThat(searches).hasValue(2);
+    }
+
+    @Test
+    void searchesRightAfterAWriteAreNotCached() {
+        applicationProperties.getSearch().getCache().setRefreshInterval(Duration.ofHours(1));
+        cache = new UserSearchResultCache(applicationProperties, new SimpleMeterRegistry());
+
+        search("john", Pageable.unpaged());
+        cache.invalidate();
+        search("john", Pageable.unpaged());
+        search("john", Pageable.unpaged());
+
+        assertThat(searches).hasValue(3);
+    }
+
+    @Test
+    void disabledCacheAlwaysSearches() {
+        applicationProperties.getSearch().getCache().setEnabled(false);
+        cache = new UserSearchResultCache(applicationProperties, new SimpleMeterRegistry());
+
+        search("john", Pageable.unpaged());
+        search("john", Pageable.unpaged());
+
+        assertThat(searches).hasValue(2);
+    }
+
+    private String search(String query, Pageable pageable) {
+        return cache
+            .get(
+                query,
+                pageable,
+                () -> {
+                    searches.incrementAndGet();
+                    return Flux.just(user("john"), user("doe"));
+                }
+            )
+            .map(User::getLogin)
+            .reduce(String::concat)
+            .block();
+    }
+
+    private static User user(String login) {
+        User user = new User();
+        user.setLogin(login);
+        return user;
+    }
+}
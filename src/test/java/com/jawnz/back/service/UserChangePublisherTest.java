@@ -0,0 +1,137 @@
+package com.jawnz.back.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.jawnz.back.config.ApplicationProperties;
+import com.jawnz.back.domain.User;
+import com.jawnz.back.service.dto.UserChangeEventDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.AbstractReactiveTransactionManager;
+import org.springframework.transaction.reactive.GenericReactiveTransaction;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+
+/**
+ * Unit tests for {@link UserChangePublisher}.
+ */
+class UserChangePublisherTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final List<ProducerRecord<String, byte[]>> sent = new ArrayList<>();
+
+    private KafkaSender<String, byte[]> kafkaSender;
+
+    private UserChangeEventDTO event;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        kafkaSender = mock(KafkaSender.class);
+        when(kafkaSender.send(any()))
+            .thenAnswer(invocation ->
+                Flux
+                    .from((Publisher<SenderRecord<String, byte[], Object>>) invocation.getArgument(0))
+                    .doOnNext(record -> sent.add(record))
+                    .map(record -> (SenderResult<Object>) mock(SenderResult.class))
+            );
+        User user = new User();
+        user.setId("user-1");
+        user.setLastModifiedDate(Instant.ofEpochMilli(42));
+        event = new UserChangeEventDTO(user, Set.of(UserChangeEventDTO.EMAIL, UserChangeEventDTO.FIRST_NAME));
+    }
+
+    private UserChangePublisher publisher(boolean enabled) {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getUserEvents().setEnabled(enabled);
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        return new UserChangePublisher(kafkaSender, objectMapper, applicationProperties, meterRegistry);
+    }
+
+    @Test
+    void shouldPublishKeyedByUserIdOutsideOfTransaction() {
+        publisher(true).publishAfterCommit(event).block();
+
+        assertThat(sent).hasSize(1);
+        assertThat(sent.get(0).topic()).isEqualTo("user-events");
+        assertThat(sent.get(0).key()).isEqualTo("user-1");
+        assertThat(new String(sent.get(0).value(), StandardCharsets.UTF_8))
+            .contains("\"changedFields\":[\"email\",\"firstName\"]")
+            .contains("\"version\":42");
+        assertThat(meterRegistry.get("user.events").tag("outcome", "sent").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldPublishOnlyOnceCommitted() {
+        TransactionalOperator transactionalOperator = TransactionalOperator.create(new NoOpTransactionManager());
+        UserChangePublisher publisher = publisher(true);
+
+        transactionalOperator
+            .transactional(publisher.publishAfterCommit(event).then(Mono.fromRunnable(() -> assertThat(sent).isEmpty())))
+            .block();
+        assertThat(sent).hasSize(1);
+
+        Mono<Void> rolledBack = transactionalOperator.transactional(
+            publisher.publishAfterCommit(event).then(Mono.error(new IllegalStateException()))
+        );
+        assertThat(rolledBack.onErrorResume(IllegalStateException.class, e -> Mono.empty()).block()).isNull();
+        assertThat(sent).hasSize(1);
+    }
+
+    @Test
+    void shouldNotPublishWhenDisabled() {
+        publisher(false).publishAfterCommit(event).block();
+
+        verify(kafkaSender, never()).send(any());
+    }
+
+    private static class NoOpTransactionManager extends AbstractReactiveTransactionManager {
+
+        @Override
+        protected Object doGetTransaction(TransactionSynchronizationManager synchronizationManager) {
+            return new Object();
+        }
+
+        @Override
+        protected Mono<Void> doBegin(
+            TransactionSynchronizationManager synchronizationManager,
+            Object transaction,
+            TransactionDefinition definition
+        ) {
+            return Mono.empty();
+        }
+
+        @Override
+        protected Mono<Void> doCommit(TransactionSynchronizationManager synchronizationManager, GenericReactiveTransaction status) {
+            return Mono.empty();
+        }
+
+        @Override
+        protected Mono<Void> doRollback(TransactionSynchronizationManager synchronizationManager, GenericReactiveTransaction status) {
+            return Mono.empty();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.jawnz.back.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jawnz.back.IntegrationTest;
+import com.jawnz.back.config.Constants;
+import com.jawnz.back.domain.SearchWatermark;
+import com.jawnz.back.domain.User;
+import com.jawnz.back.repository.SearchWatermarkRepository;
+import com.jawnz.back.repository.UserRepository;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Integration tests for the watermark queries of {@link UserSearchReconciliationService}.
+ */
+@IntegrationTest
+class UserSearchReconciliationServiceIT {
+
+    private static final Instant T0 = Instant.parse("2026-10-01T00:00:00Z");
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SearchWatermarkRepository searchWatermarkRepository;
+
+    @Autowired
+    private DatabaseClient db;
+
+    @BeforeEach
+    public void init() {
+        userRepository.deleteAllUserAuthorities().block();
+        userRepository.deleteAll().block();
+        searchWatermarkRepository.deleteAll().block();
+    }
+
+    private void createUser(String id, Instant lastModifiedDate) {
+        User user = new User();
+        user.setId(id);
+        user.setLogin(id);
+        user.setActivated(true);
+        user.setCreatedBy(Constants.SYSTEM);
+        user.setLastModifiedDate(lastModifiedDate);
+        userRepository.create(user).block();
+    }
+
+    private List<String> modifiedBetween(Instant after, String afterId, int limit) {
+        return userRepository
+            .findAllModifiedBetween(after, afterId, T0.plusSeconds(60), limit)
+            .map(User::getId)
+            .collectList()
+            .block();
+    }
+
+    @Test
+    void findsTheUsersAfterThePositionInModificationThenIdOrder() {
+        createUser("c", T0);
+        createUser("a", T0);
+        createUser("b", T0.plusSeconds(1));
+        createUser("d", T0.plusSeconds(120));
+
+        assertThat(modifiedBetween(Instant.EPOCH, "", 10)).containsExactly("a", "c", "b");
+        assertThat(modifiedBetween(Instant.EPOCH, "", 1)).containsExactly("a");
+        assertThat(modifiedBetween(T0, "a", 10)).containsExactly("c", "b");
+        assertThat(modifiedBetween(T0, "c", 10)).containsExactly("b");
+        assertThat(modifiedBetween(T0.plusSeconds(1), "b", 10)).isEmpty();
+    }
+
+    @Test
+    void givesTheUsersWithoutModificationDateTheCurrentTime() {
+        db.sql("INSERT INTO jwn_user (id, login, activated, created_by) VALUES ('x', 'x', true, '" + Constants.SYSTEM + "')").then().block();
+
+        // a day ahead, whatever the time zone of the database session
+        List<User> users = userRepository
+            .findAllModifiedBetween(Instant.EPOCH, "", Instant.now().plus(1, ChronoUnit.DAYS), 10)
+            .collectList()
+            .block();
+
+        assertThat(users.stream().map(User::getId).collect(Collectors.toList())).containsExactly("x");
+        assertThat(users.get(0).getLastModifiedDate()).isNotNull();
+    }
+
+    @Test
+    void upsertsTheWatermark() {
+        searchWatermarkRepository.upsert(new SearchWatermark("user", T0, "a", "ISO")).block();
+        searchWatermarkRepository.upsert(new SearchWatermark("user", T0.plusSeconds(1), "b", "EPOCH_MILLIS")).block();
+
+        SearchWatermark watermark = searchWatermarkRepository.findById("user").block();
+        assertThat(watermark.getWatermark()).isEqualTo(T0.plusSeconds(1));
+        assertThat(watermark.getLastId()).isEqualTo("b");
+        assertThat(watermark.getDateEncoding()).isEqualTo("EPOCH_MILLIS");
+        assertThat(searchWatermarkRepository.count().block()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,253 @@
+package com.jawnz.back.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.jawnz.back.config.ApplicationProperties;
+import com.jawnz.back.domain.SearchWatermark;
+import com.jawnz.back.domain.User;
+import com.jawnz.back.repository.SearchWatermarkRepository;
+import com.jawnz.back.repository.UserRepository;
+import com.jawnz.back.repository.search.LuceneUserSearchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests for {@link UserSearchReconciliationService}, against an in-memory embedded index.
+ *
+ * @see UserSearchReconciliationServiceIT for the queries of the watermark.
+ */
+class UserSearchReconciliationServiceTest {
+
+    private static final Instant T0 = Instant.parse("2026-10-01T00:00:00Z");
+
+    private final List<User> users = new ArrayList<>();
+
+    private final AtomicReference<SearchWatermark> watermark = new AtomicReference<>();
+
+    private ApplicationProperties applicationProperties;
+
+    private LuceneUserSearchRepository userSearchRepository;
+
+    private SearchWatermarkRepository searchWatermarkRepository;
+
+    private UserSearchReconciliationService service;
+
+    @BeforeEach
+    public void init() throws IOException {
+        applicationProperties = new ApplicationProperties();
+        ApplicationProperties.Search.Reconciliation reconciliation = applicationProperties.getSearch().getReconciliation();
+        reconciliation.setBatchSize(2);
+        reconciliation.setMaxDocumentsPerSecond(Integer.MAX_VALUE);
+        reconciliation.setSettleTime(Duration.ZERO);
+        applicationProperties.getSearch().getEmbedded().setCommitInterval(Duration.ofHours(1));
+        userSearchRepository = new LuceneUserSearchRepository(applicationProperties);
+        service = service();
+    }
+
+    @AfterEach
+    public void close() throws IOException {
+        userSearchRepository.close();
+    }
+
+    /**
+     * A service over {@link #users}, scanned with the ordering of {@code findAllModifiedBetween}, and {@link #watermark}.
+     */
+    private UserSearchReconciliationService service() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findAllModifiedBetween(any(), anyString(), any(), anyInt()))
+            .thenAnswer(invocation -> {
+                Instant after = invocation.getArgument(0);
+                String afterId = invocation.getArgument(1);
+                Instant before = invocation.getArgument(2);
+                int limit = invocation.getArgument(3);
+                return Flux.fromIterable(
+                    users
+                        .stream()
+                        .filter(user -> {
+                            int position = user.getLastModifiedDate().compareTo(after);
+                            return position > 0 || (position == 0 && user.getId().compareTo(afterId) > 0);
+                        })
+                        .filter(user -> user.getLastModifiedDate().isBefore(before))
+                        .sorted(Comparator.comparing(User::getLastModifiedDate).thenComparing(User::getId))
+                        .limit(limit)
+                        .collect(Collectors.toList())
+                );
+            });
+        searchWatermarkRepository = mock(SearchWatermarkRepository.class);
+        when(searchWatermarkRepository.findById(anyString())).thenAnswer(invocation -> Mono.justOrEmpty(watermark.get()));
+        when(searchWatermarkRepository.upsert(any()))
+            .thenAnswer(invocation -> Mono.fromRunnable(() -> watermark.set(invocation.getArgument(0))));
+        return new UserSearchReconciliationService(
+            userRepository,
+            userSearchRepository,
+            searchWatermarkRepository,
+            applicationProperties,
+            new SimpleMeterRegistry()
+        );
+    }
+
+    private User user(String id, Instant lastModifiedDate) {
+        User user = new User();
+        user.setId(id);
+        user.setLogin(id);
+        user.setLastModifiedDate(lastModifiedDate);
+        users.add(user);
+        return user;
+    }
+
+    private long indexed() {
+        return userSearchRepository.count().block();
+    }
+
+    @Test
+    void advancesTheWatermarkPastTheIndexedUsers() {
+        user("a", T0);
+        user("b", T0.plusSeconds(1));
+        user("c", T0.plusSeconds(2));
+
+        assertThat(service.reconcile().block()).isEqualTo(3);
+        assertThat(indexed()).isEqualTo(3);
+        assertThat(watermark.get().getWatermark()).isEqualTo(T0.plusSeconds(2));
+        assertThat(watermark.get().getLastId()).isEqualTo("c");
+
+        assertThat(service.reconcile().block()).isZero();
+
+        user("d", T0.plusSeconds(3));
+        assertThat(service.reconcile().block()).isEqualTo(1);
+        assertThat(watermark.get().getLastId()).isEqualTo("d");
+    }
+
+    @Test
+    void breaksTimestampTiesById() {
+        // a batch ends in the middle of the users sharing a timestamp
+        user("c", T0);
+        user("a", T0);
+        user("b", T0);
+
+        assertThat(service.reconcile().block()).isEqualTo(3);
+        assertThat(watermark.get().getWatermark()).isEqualTo(T0);
+        assertThat(watermark.get().getLastId()).isEqualTo("c");
+
+        user("d", T0);
+        assertThat(service.reconcile().block()).isEqualTo(1);
+    }
+
+    @Test
+    void onlyReindexesTheStaleDocuments() {
+        User a = user("a", T0);
+        user("b", T0);
+        userSearchRepository.save(a).block();
+
+        assertThat(service.reconcile().block()).isEqualTo(1);
+        assertThat(indexed()).isEqualTo(2);
+    }
+
+    @Test
+    void doesNotIndexTheDeletedUsersAgain() {
+        User a = user("a", T0);
+        user("b", T0.plusSeconds(1));
+        service.reconcile().block();
+
+        // deleted from the database and from the index, as UserService does
+        users.remove(a);
+        userSearchRepository.delete(a).block();
+
+        assertThat(service.reconcile().block()).isZero();
+        assertThat(userSearchRepository.findById("a").block()).isNull();
+        assertThat(indexed()).isEqualTo(1);
+    }
+
+    @Test
+    void rebuildsAnEmptyIndexFromTheEpoch() {
+        user("a", T0);
+        user("b", T0.plusSeconds(1));
+        service.reconcile().block();
+
+        // e.g. a new in-memory index after a restart, while the watermark persisted
+        userSearchRepository.deleteAll().block();
+
+        assertThat(service.reconcile().block()).isEqualTo(2);
+        assertThat(indexed()).isEqualTo(2);
+        assertThat(watermark.get().getLastId()).isEqualTo("b");
+    }
+
+    @Test
+    void leavesTheUnsettledUsersForTheNextRun() {
+        applicationProperties.getSearch().getReconciliation().setSettleTime(Duration.ofMinutes(1));
+        service = service();
+        user("a", Instant.now().minusSeconds(120));
+        user("b", Instant.now());
+
+        assertThat(service.reconcile().block()).isEqualTo(1);
+        assertThat(watermark.get().getLastId()).isEqualTo("a");
+    }
+
+    @Test
+    void reindexesEveryUserWhenTheDateEncodingChanges() {
+        user("a", T0);
+        user("b", T0.plusSeconds(1));
+        user("c", T0.plusSeconds(2));
+        service.reconcile().block();
+        // watermarks written before the encoding was recorded are ISO ones
+        watermark.set(new SearchWatermark(UserSearchReconciliationService.WATERMARK_NAME, T0.plusSeconds(2), "c", null));
+
+        applicationProperties.getSearch().setDateEncoding(ApplicationProperties.Search.DateEncoding.EPOCH_MILLIS);
+        service = service();
+
+        // every document is up to date, but written with the previous encoding
+        assertThat(service.reconcile().block()).isEqualTo(3);
+        assertThat(watermark.get().getDateEncoding()).isEqualTo("EPOCH_MILLIS");
+        assertThat(watermark.get().getLastId()).isEqualTo("c");
+
+        assertThat(service.reconcile().block()).isZero();
+    }
+
+    @Test
+    void keepsThePreviousDateEncodingUntilTheRewriteCompletes() {
+        user("a", T0);
+        user("b", T0.plusSeconds(1));
+        user("c", T0.plusSeconds(2));
+        service.reconcile().block();
+        applicationProperties.getSearch().setDateEncoding(ApplicationProperties.Search.DateEncoding.EPOCH_MILLIS);
+        service = service();
+        List<SearchWatermark> upserted = new ArrayList<>();
+        when(searchWatermarkRepository.upsert(any()))
+            .thenAnswer(invocation -> {
+                SearchWatermark saved = invocation.getArgument(0);
+                upserted.add(saved);
+                if (upserted.size() == 1) {
+                    watermark.set(saved);
+                    return Mono.empty();
+                }
+                return Mono.error(new IllegalStateException("interrupted"));
+            });
+
+        assertThatThrownBy(() -> service.reconcile().block()).hasMessage("interrupted");
+        assertThat(watermark.get().getLastId()).isEqualTo("b");
+        assertThat(watermark.get().getDateEncoding()).isEqualTo("ISO");
+
+        // the rewrite starts over from the epoch
+        when(searchWatermarkRepository.upsert(any()))
+            .thenAnswer(invocation -> Mono.fromRunnable(() -> watermark.set(invocation.getArgument(0))));
+        assertThat(service.reconcile().block()).isEqualTo(3);
+        assertThat(watermark.get().getDateEncoding()).isEqualTo("EPOCH_MILLIS");
+    }
+}
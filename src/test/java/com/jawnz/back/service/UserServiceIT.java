@@ -9,6 +9,7 @@ import static org.mockito.Mockito.when;
 
 import com.jawnz.back.IntegrationTest;
 import com.jawnz.back.config.Constants;
+import com.jawnz.back.domain.Authority;
 import com.jawnz.back.domain.User;
 import com.jawnz.back.repository.UserRepository;
 import com.jawnz.back.repository.search.UserSearchRepository;
@@ -157,8 +158,22 @@ class UserServiceIT {
         assertThat(userDTO.getLangKey()).isEqualTo("en");
     }
 
+    @Test
+    void testSyncsTheAuthoritiesOfAnExistingUserWithTheIdP() {
+        userService.getUserFromAuthentication(createMockOAuth2AuthenticationToken(userDetails)).block();
+
+        userService.getUserFromAuthentication(createMockOAuth2AuthenticationToken(userDetails, AuthoritiesConstants.ADMIN)).block();
+
+        User synced = userService.getUserWithAuthoritiesByLogin(DEFAULT_LOGIN).block();
+        assertThat(synced.getAuthorities()).extracting(Authority::getName).containsExactly(AuthoritiesConstants.ADMIN);
+    }
+
     private OAuth2AuthenticationToken createMockOAuth2AuthenticationToken(Map<String, Object> userDetails) {
-        Collection<GrantedAuthority> authorities = Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.ANONYMOUS));
+        return createMockOAuth2AuthenticationToken(userDetails, AuthoritiesConstants.ANONYMOUS);
+    }
+
+    private OAuth2AuthenticationToken createMockOAuth2AuthenticationToken(Map<String, Object> userDetails, String authority) {
+        Collection<GrantedAuthority> authorities = Collections.singletonList(new SimpleGrantedAuthority(authority));
         UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = new UsernamePasswordAuthenticationToken(
             "anonymous",
             "anonymous",
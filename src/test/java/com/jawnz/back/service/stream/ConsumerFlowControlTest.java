@@ -0,0 +1,65 @@
+package com.jawnz.back.service.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.stream.binding.BindingsLifecycleController;
+import org.springframework.cloud.stream.binding.BindingsLifecycleController.State;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.support.GenericMessage;
+
+/**
+ * Unit tests for {@link ConsumerFlowControl}.
+ */
+class ConsumerFlowControlTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final BindingsLifecycleController bindingsLifecycleController = mock(BindingsLifecycleController.class);
+
+    private final ConsumerFlowControl flowControl = new ConsumerFlowControl("binding-in", bindingsLifecycleController, meterRegistry);
+
+    @Test
+    void shouldPauseOnceAndRecordPauseTime() {
+        flowControl.demandChanged(false);
+        flowControl.demandChanged(false);
+
+        assertThat(flowControl.isPaused()).isTrue();
+        assertThat(meterRegistry.get("sse.consumer.state").gauge().value()).isEqualTo(1);
+        verify(bindingsLifecycleController, times(1)).changeState("binding-in", State.PAUSED);
+
+        flowControl.demandChanged(true);
+        flowControl.demandChanged(true);
+
+        assertThat(flowControl.isPaused()).isFalse();
+        verify(bindingsLifecycleController, times(1)).changeState("binding-in", State.RESUMED);
+        assertThat(meterRegistry.get("sse.consumer.paused").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldIgnoreDemandOnceStopped() {
+        flowControl.demandChanged(false);
+        flowControl.stop();
+        flowControl.demandChanged(true);
+
+        assertThat(flowControl.isPaused()).isFalse();
+        verify(bindingsLifecycleController).changeState("binding-in", State.STOPPED);
+        verify(bindingsLifecycleController, times(0)).changeState("binding-in", State.RESUMED);
+    }
+
+    @Test
+    void shouldRecordLagOfKafkaRecords() {
+        flowControl.recordLag(new GenericMessage<>("a", Map.of(KafkaHeaders.RECEIVED_TIMESTAMP, System.currentTimeMillis() - 1000)));
+        flowControl.recordLag(new GenericMessage<>("b"));
+
+        assertThat(meterRegistry.get("sse.consumer.lag").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("sse.consumer.lag").timer().totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(1000);
+    }
+}
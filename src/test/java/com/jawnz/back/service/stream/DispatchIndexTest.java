@@ -0,0 +1,58 @@
+package com.jawnz.back.service.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.GenericMessage;
+
+/**
+ * Unit tests for {@link DispatchIndex}.
+ */
+class DispatchIndexTest {
+
+    private final DispatchIndex<String> index = new DispatchIndex<>();
+
+    private List<String> collect(String key, Map<String, Object> headers) {
+        Map<String, Object> all = new HashMap<>(headers);
+        all.put(KafkaHeaders.RECEIVED_MESSAGE_KEY, key.getBytes(StandardCharsets.UTF_8));
+        Message<byte[]> message = new GenericMessage<>(new byte[0], all);
+        List<String> matches = new ArrayList<>();
+        index.collect(message, StreamFilter.key(message), matches);
+        return matches;
+    }
+
+    @Test
+    void shouldCollectTheSubscribersOfEachFilter() {
+        index.add(null, "all");
+        index.add(StreamFilter.key("user-1"), "key");
+        index.add(StreamFilter.keyPrefix("user-"), "prefix");
+        index.add(StreamFilter.keyPrefix("u"), "shortPrefix");
+        index.add(StreamFilter.keyPrefix("user-1-long"), "longPrefix");
+        index.add(StreamFilter.header("region", "eu"), "header");
+
+        assertThat(collect("user-1", Map.of("region", "eu"))).containsExactlyInAnyOrder("all", "key", "prefix", "shortPrefix", "header");
+        assertThat(collect("user-2", Map.of("region", "us"))).containsExactlyInAnyOrder("all", "prefix", "shortPrefix");
+        assertThat(collect("order-1", Map.of())).containsExactly("all");
+    }
+
+    @Test
+    void shouldNoLongerCollectRemovedSubscribers() {
+        index.add(StreamFilter.keyPrefix("user-"), "first");
+        index.add(StreamFilter.keyPrefix("user-"), "second");
+        index.add(StreamFilter.header("region", "eu"), "header");
+
+        index.remove(StreamFilter.keyPrefix("user-"), "first");
+        assertThat(collect("user-1", Map.of())).containsExactly("second");
+
+        index.remove(StreamFilter.keyPrefix("user-"), "second");
+        index.remove(StreamFilter.header("region", "eu"), "header");
+        assertThat(collect("user-1", Map.of("region", "eu"))).isEmpty();
+    }
+}
@@ -0,0 +1,283 @@
+package com.jawnz.back.service.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import com.jawnz.back.config.ApplicationProperties;
+import com.jawnz.back.config.ApplicationProperties.Stream.OverflowPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.reactivestreams.Subscription;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.GenericMessage;
+import reactor.core.publisher.BaseSubscriber;
+
+/**
+ * Unit tests for {@link KafkaSseHub}.
+ */
+class KafkaSseHubTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path journalDirectory;
+
+    private KafkaSseHub hub(OverflowPolicy overflowPolicy) throws IOException {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getStream().setBufferSize(2);
+        applicationProperties.getStream().setOverflowPolicy(overflowPolicy);
+        return hub(applicationProperties);
+    }
+
+    private KafkaSseHub hub(ApplicationProperties applicationProperties) throws IOException {
+        return new KafkaSseHub(applicationProperties, new SseJournal(applicationProperties, meterRegistry), meterRegistry);
+    }
+
+    private static Message<byte[]> kafkaMessage(String payload, long offset) {
+        return new GenericMessage<>(
+            payload.getBytes(StandardCharsets.UTF_8),
+            Map.of(KafkaHeaders.RECEIVED_PARTITION_ID, 0, KafkaHeaders.OFFSET, offset)
+        );
+    }
+
+    private static Message<byte[]> keyedMessage(String payload, String key, long offset) {
+        return new GenericMessage<>(
+            payload.getBytes(StandardCharsets.UTF_8),
+            Map.of(KafkaHeaders.RECEIVED_PARTITION_ID, 0, KafkaHeaders.OFFSET, offset, KafkaHeaders.RECEIVED_MESSAGE_KEY, key)
+        );
+    }
+
+    private static void publish(KafkaSseHub hub, String... payloads) {
+        for (String payload : payloads) {
+            hub.publish(new GenericMessage<>(payload.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Test
+    void shouldDeliverToEverySubscriber() throws IOException {
+        KafkaSseHub hub = hub(OverflowPolicy.DROP_OLDEST);
+        TestSubscriber first = TestSubscriber.subscribe(hub, Long.MAX_VALUE);
+        TestSubscriber second = TestSubscriber.subscribe(hub, Long.MAX_VALUE);
+
+        publish(hub, "a", "b");
+
+        assertThat(first.received).containsExactly("a", "b");
+        assertThat(second.received).containsExactly("a", "b");
+        assertThat(hub.getSubscriberCount()).isEqualTo(2);
+        first.dispose();
+        assertThat(hub.getSubscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDropOldestWhenBufferIsFull() throws IOException {
+        KafkaSseHub hub = hub(OverflowPolicy.DROP_OLDEST);
+        TestSubscriber subscriber = TestSubscriber.subscribe(hub, 0);
+
+        publish(hub, "a", "b", "c");
+
+        assertThat(meterRegistry.get("sse.buffer.depth").tag("aggregate", "max").gauge().value()).isEqualTo(2);
+        subscriber.request(2);
+        assertThat(subscriber.received).containsExactly("b", "c");
+        assertThat(meterRegistry.get("sse.messages.dropped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDropNewestWhenBufferIsFull() throws IOException {
+        KafkaSseHub hub = hub(OverflowPolicy.DROP_NEWEST);
+        TestSubscriber subscriber = TestSubscriber.subscribe(hub, 0);
+
+        publish(hub, "a", "b", "c");
+
+        subscriber.request(2);
+        assertThat(subscriber.received).containsExactly("a", "b");
+        assertThat(meterRegistry.get("sse.messages.dropped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReplayMissedMessagesBeforeLiveOnes() throws IOException {
+        KafkaSseHub hub = hub(OverflowPolicy.DROP_OLDEST);
+        for (int offset = 0; offset < 3; offset++) {
+            hub.publish(kafkaMessage("m" + offset, offset));
+        }
+        TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+        hub.subscribe("0-0").subscribe(subscriber);
+
+        publish(hub, "live");
+
+        assertThat(subscriber.received).containsExactly("m1", "m2", "live");
+        assertThat(meterRegistry.get("sse.replay.requests").tag("outcome", "hit").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldResumeAfterAnyReceivedEventWithMessagesPublishedConcurrently() throws Exception {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getStream().setReplayCapacity(4000);
+        applicationProperties.getStream().setBufferSize(4000);
+        KafkaSseHub hub = hub(applicationProperties);
+        TestSubscriber subscriber = TestSubscriber.subscribe(hub, Long.MAX_VALUE);
+        List<Thread> publishers = new ArrayList<>();
+        for (int partition = 0; partition < 4; partition++) {
+            int publisher = partition;
+            publishers.add(
+                new Thread(() -> {
+                    for (long offset = 0; offset < 1000; offset++) {
+                        hub.publish(
+                            new GenericMessage<>(
+                                (publisher + "-" + offset).getBytes(StandardCharsets.UTF_8),
+                                Map.of(KafkaHeaders.RECEIVED_PARTITION_ID, publisher, KafkaHeaders.OFFSET, offset)
+                            )
+                        );
+                    }
+                })
+            );
+        }
+        publishers.forEach(Thread::start);
+        for (Thread publisher : publishers) {
+            publisher.join();
+        }
+
+        assertThat(subscriber.received).hasSize(4000);
+        for (int received = 500; received < 4000; received += 500) {
+            TestSubscriber resumed = new TestSubscriber(Long.MAX_VALUE);
+            hub.subscribe(subscriber.received.get(received - 1)).subscribe(resumed);
+            assertThat(resumed.received).isEqualTo(subscriber.received.subList(received, 4000));
+            resumed.dispose();
+        }
+    }
+
+    @Test
+    void shouldOnlyStreamLiveMessagesWhenLastEventIsNoLongerKept() throws IOException {
+        KafkaSseHub hub = hub(OverflowPolicy.DROP_OLDEST);
+        publish(hub, "a");
+        TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+        hub.subscribe("0-42").subscribe(subscriber);
+
+        publish(hub, "live");
+
+        assertThat(subscriber.received).containsExactly("live");
+        assertThat(meterRegistry.get("sse.replay.requests").tag("outcome", "miss").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReplayFromJournalMessagesNoLongerInRing() throws IOException {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getStream().setReplayCapacity(1);
+        applicationProperties.getStream().getJournal().setDirectory(journalDirectory.toString());
+        KafkaSseHub hub = hub(applicationProperties);
+        for (int offset = 0; offset < 3; offset++) {
+            hub.publish(kafkaMessage("m" + offset, offset));
+        }
+        TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+        hub.subscribe("0-0").subscribe(subscriber);
+
+        publish(hub, "live");
+
+        await().untilAsserted(() -> assertThat(subscriber.received).containsExactly("m1", "m2", "live"));
+        assertThat(meterRegistry.get("sse.replay.requests").tag("outcome", "journal").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSignalDemandFromTheLeastFilledBuffer() throws IOException {
+        KafkaSseHub hub = hub(OverflowPolicy.DROP_OLDEST);
+        List<Boolean> demands = new CopyOnWriteArrayList<>();
+        hub.setDemandListener(demands::add);
+        TestSubscriber first = TestSubscriber.subscribe(hub, 0);
+        TestSubscriber second = TestSubscriber.subscribe(hub, 0);
+
+        publish(hub, "a");
+        second.request(1);
+        publish(hub, "b");
+
+        assertThat(demands).isEmpty();
+        publish(hub, "c");
+        assertThat(demands).containsExactly(false);
+        assertThat(hub.isSaturated()).isTrue();
+
+        first.request(2);
+        assertThat(demands).containsExactly(false, true);
+        assertThat(hub.isSaturated()).isFalse();
+        second.dispose();
+        assertThat(demands).containsExactly(false, true);
+    }
+
+    @Test
+    void shouldOnlyDeliverTheMessagesSelectedByTheFilter() throws IOException {
+        KafkaSseHub hub = hub(OverflowPolicy.DROP_OLDEST);
+        hub.publish(keyedMessage("m0", "user-1", 0));
+        TestSubscriber byKey = new TestSubscriber(Long.MAX_VALUE);
+        hub.subscribe(null, StreamFilter.key("user-1")).subscribe(byKey);
+        TestSubscriber byPrefix = new TestSubscriber(Long.MAX_VALUE);
+        hub.subscribe("0-0", StreamFilter.keyPrefix("user-")).subscribe(byPrefix);
+
+        hub.publish(keyedMessage("m1", "user-2", 1));
+        hub.publish(keyedMessage("m2", "user-1", 2));
+        hub.publish(keyedMessage("m3", "order-1", 3));
+
+        assertThat(byKey.received).containsExactly("m2");
+        assertThat(byPrefix.received).containsExactly("m1", "m2");
+        byKey.dispose();
+        hub.publish(keyedMessage("m4", "user-1", 4));
+        assertThat(byKey.received).containsExactly("m2");
+        assertThat(byPrefix.received).containsExactly("m1", "m2", "m4");
+    }
+
+    @Test
+    void shouldDisconnectWhenBufferIsFull() throws IOException {
+        KafkaSseHub hub = hub(OverflowPolicy.DISCONNECT);
+        TestSubscriber slow = TestSubscriber.subscribe(hub, 0);
+        TestSubscriber fast = TestSubscriber.subscribe(hub, Long.MAX_VALUE);
+
+        publish(hub, "a", "b", "c");
+
+        assertThat(slow.completed).isTrue();
+        assertThat(fast.received).containsExactly("a", "b", "c");
+        assertThat(hub.getSubscriberCount()).isEqualTo(1);
+    }
+
+    private static class TestSubscriber extends BaseSubscriber<Message<ByteBuffer>> {
+
+        private final List<String> received = new CopyOnWriteArrayList<>();
+
+        private final long initialRequest;
+
+        private volatile boolean completed;
+
+        private TestSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        static TestSubscriber subscribe(KafkaSseHub hub, long initialRequest) {
+            TestSubscriber subscriber = new TestSubscriber(initialRequest);
+            hub.subscribe().subscribe(subscriber);
+            return subscriber;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            if (initialRequest > 0) {
+                subscription.request(initialRequest);
+            }
+        }
+
+        @Override
+        protected void hookOnNext(Message<ByteBuffer> message) {
+            received.add(StandardCharsets.UTF_8.decode(message.getPayload().duplicate()).toString());
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.jawnz.back.service.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.GenericMessage;
+
+/**
+ * Unit tests for {@link KeyedDispatcher}.
+ */
+class KeyedDispatcherTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static Message<byte[]> message(String key, int sequence) {
+        return new GenericMessage<>(
+            String.valueOf(sequence).getBytes(StandardCharsets.UTF_8),
+            Map.of(KafkaHeaders.RECEIVED_MESSAGE_KEY, key.getBytes(StandardCharsets.UTF_8))
+        );
+    }
+
+    private static Message<byte[]> message(String key, int sequence, Acknowledgment acknowledgment) {
+        return new GenericMessage<>(
+            String.valueOf(sequence).getBytes(StandardCharsets.UTF_8),
+            Map.of(KafkaHeaders.RECEIVED_MESSAGE_KEY, key.getBytes(StandardCharsets.UTF_8), KafkaHeaders.ACKNOWLEDGMENT, acknowledgment)
+        );
+    }
+
+    @Test
+    void shouldKeepTheOrderOfEachKey() throws InterruptedException {
+        Map<String, List<Integer>> received = new ConcurrentHashMap<>();
+        KeyedDispatcher dispatcher = new KeyedDispatcher(
+            4,
+            8,
+            message ->
+                received
+                    .computeIfAbsent(StreamFilter.key(message), key -> new CopyOnWriteArrayList<>())
+                    .add(Integer.valueOf(new String(message.getPayload(), StandardCharsets.UTF_8))),
+            meterRegistry
+        );
+
+        for (int sequence = 0; sequence < 100; sequence++) {
+            dispatcher.dispatch(message("key-" + sequence % 10, sequence));
+        }
+        dispatcher.close();
+
+        assertThat(received).hasSize(10);
+        received.values().forEach(sequences -> assertThat(sequences).hasSize(10).isSorted());
+        assertThat(meterRegistry.find("sse.dispatch.latency").timers()).hasSize(4);
+        await()
+            .untilAsserted(() ->
+                assertThat(meterRegistry.find("sse.dispatch.latency").timers().stream().mapToLong(timer -> timer.count()).sum())
+                    .isEqualTo(100)
+            );
+        assertThat(meterRegistry.get("sse.dispatch.queue.depth").tag("worker", "0").gauge().value()).isZero();
+    }
+
+    @Test
+    void shouldAwaitThePublicationOfDispatchedMessages() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        List<Message<byte[]>> published = new CopyOnWriteArrayList<>();
+        KeyedDispatcher dispatcher = new KeyedDispatcher(
+            2,
+            8,
+            message -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                published.add(message);
+            },
+            meterRegistry
+        );
+
+        dispatcher.dispatch(message("a", 0));
+        dispatcher.dispatch(message("b", 1));
+
+        assertThat(dispatcher.awaitIdle(Duration.ofMillis(50))).isFalse();
+        latch.countDown();
+        assertThat(dispatcher.awaitIdle(Duration.ofSeconds(5))).isTrue();
+        assertThat(published).hasSize(2);
+        dispatcher.close();
+    }
+
+    @Test
+    void shouldPublishOnTheCallingThreadWithoutWorkers() {
+        List<String> threads = new CopyOnWriteArrayList<>();
+        KeyedDispatcher dispatcher = new KeyedDispatcher(0, 8, message -> threads.add(Thread.currentThread().getName()), meterRegistry);
+
+        dispatcher.dispatch(message("key", 0));
+
+        assertThat(threads).containsExactly(Thread.currentThread().getName());
+    }
+
+    @Test
+    void shouldAcknowledgeOnceTheMessageIsPublished() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        List<Integer> acknowledged = new CopyOnWriteArrayList<>();
+        KeyedDispatcher dispatcher = new KeyedDispatcher(
+            2,
+            8,
+            message -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            },
+            meterRegistry
+        );
+
+        dispatcher.dispatch(message("a", 0, () -> acknowledged.add(0)));
+        dispatcher.dispatch(message("b", 1, () -> acknowledged.add(1)));
+
+        // queued messages are not acknowledged, so they are consumed again after a crash
+        assertThat(dispatcher.awaitIdle(Duration.ofMillis(50))).isFalse();
+        assertThat(acknowledged).isEmpty();
+        latch.countDown();
+        assertThat(dispatcher.awaitIdle(Duration.ofSeconds(5))).isTrue();
+        assertThat(acknowledged).containsExactlyInAnyOrder(0, 1);
+        dispatcher.close();
+    }
+
+    @Test
+    void shouldAcknowledgeAMessageWhosePublicationFailed() throws InterruptedException {
+        AtomicBoolean acknowledged = new AtomicBoolean();
+        KeyedDispatcher dispatcher = new KeyedDispatcher(
+            1,
+            8,
+            message -> {
+                throw new IllegalStateException("publication failed");
+            },
+            meterRegistry
+        );
+
+        dispatcher.dispatch(message("a", 0, () -> acknowledged.set(true)));
+
+        assertThat(dispatcher.awaitIdle(Duration.ofSeconds(5))).isTrue();
+        assertThat(acknowledged).isTrue();
+        dispatcher.close();
+    }
+
+    @Test
+    void shouldAcknowledgeOnTheCallingThreadWithoutWorkers() {
+        List<String> events = new CopyOnWriteArrayList<>();
+        KeyedDispatcher dispatcher = new KeyedDispatcher(0, 8, message -> events.add("published"), meterRegistry);
+
+        dispatcher.dispatch(message("key", 0, () -> events.add("acknowledged")));
+
+        assertThat(events).containsExactly("published", "acknowledged");
+        assertThat(dispatcher.awaitIdle(Duration.ZERO)).isTrue();
+    }
+}
@@ -0,0 +1,61 @@
+package com.jawnz.back.service.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.GenericMessage;
+import reactor.core.publisher.Flux;
+
+/**
+ * Unit tests for {@link MessageBatcher}.
+ */
+class MessageBatcherTest {
+
+    private static Flux<Message<ByteBuffer>> messages(String... payloads) {
+        return Flux.just(payloads).map(payload -> new GenericMessage<>(StandardCharsets.UTF_8.encode(payload)));
+    }
+
+    private static List<String> payloads(List<Message<ByteBuffer>> batch) {
+        return batch
+            .stream()
+            .map(message -> StandardCharsets.UTF_8.decode(message.getPayload().duplicate()).toString())
+            .collect(Collectors.toList());
+    }
+
+    @Test
+    void shouldEmitFullBatchesThenTheRestOnCompletion() {
+        List<List<String>> batches = MessageBatcher
+            .batch(messages("a", "b", "c"), 2, Duration.ofHours(1))
+            .map(MessageBatcherTest::payloads)
+            .collectList()
+            .block();
+
+        assertThat(batches).containsExactly(List.of("a", "b"), List.of("c"));
+    }
+
+    @Test
+    void shouldEmitPartialBatchOnceTheDelayElapsed() {
+        List<String> batch = MessageBatcher
+            .batch(messages("a").concatWith(Flux.never()), 500, Duration.ofMillis(10))
+            .map(MessageBatcherTest::payloads)
+            .blockFirst(Duration.ofSeconds(5));
+
+        assertThat(batch).containsExactly("a");
+    }
+
+    @Test
+    void shouldOnlyRequestTheMessagesOfRequestedBatches() {
+        List<Long> requests = new CopyOnWriteArrayList<>();
+
+        MessageBatcher.batch(messages("a", "b", "c", "d", "e").doOnRequest(requests::add), 2, Duration.ofHours(1)).take(1).blockLast();
+
+        assertThat(requests).containsExactly(2L);
+    }
+}
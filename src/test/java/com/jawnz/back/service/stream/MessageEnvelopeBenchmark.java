@@ -0,0 +1,101 @@
+package com.jawnz.back.service.stream;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.apache.kafka.common.utils.ByteUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.MessageHeaders;
+
+/**
+ * Compares the size and the encoding and decoding throughput of a {@link MessageEnvelope} with the raw record published
+ * before the envelope, whose value is the payload and whose content type and headers are Kafka record headers.
+ * <p>
+ * Run with {@code ./mvnw test -Dtest=MessageEnvelopeBenchmark -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class MessageEnvelopeBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 200_000;
+
+    private static final int ITERATIONS = 1_000_000;
+
+    private static final String CONTENT_TYPE = "application/json";
+
+    private final Logger log = LoggerFactory.getLogger(MessageEnvelopeBenchmark.class);
+
+    private final String payload =
+        "{\"id\":\"3f2c1a9e-6b1d-4a55-9a0e-2c7d1f0b8e41\",\"type\":\"profile.updated\",\"login\":\"jdoe\"," +
+        "\"changes\":{\"firstName\":\"John\",\"lastName\":\"Doe\",\"langKey\":\"en\"},\"version\":1697712000000}";
+
+    private final Map<String, String> headers = Map.of("region", "eu-west-1", "source", "jawnzback");
+
+    @Test
+    void compareWithRawRecord() {
+        byte[] raw = encodeRaw();
+        byte[] envelope = encodeEnvelope();
+        log.info(
+            "Record size: raw value {} bytes and headers {} bytes, envelope value {} bytes and headers {} bytes",
+            raw.length,
+            recordHeadersSize(Map.of(MessageHeaders.CONTENT_TYPE, CONTENT_TYPE), headers),
+            envelope.length,
+            recordHeadersSize(Map.of(MessageHeaders.CONTENT_TYPE, MessageEnvelope.MIME_TYPE_VALUE))
+        );
+
+        run("raw encode", this::encodeRaw);
+        run("envelope encode", this::encodeEnvelope);
+        run("raw decode", () -> raw);
+        run("envelope decode", () -> MessageEnvelope.decode(envelope).getPayload());
+    }
+
+    /**
+     * The value of the raw record, its content type and headers being record headers.
+     */
+    private byte[] encodeRaw() {
+        return payload.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] encodeEnvelope() {
+        return new MessageEnvelope(CONTENT_TYPE, headers, payload.getBytes(StandardCharsets.UTF_8)).encode();
+    }
+
+    /**
+     * The size of headers in a Kafka record: their count, then the length and bytes of each key and value.
+     */
+    @SafeVarargs
+    private static int recordHeadersSize(Map<String, String>... headerMaps) {
+        int count = 0;
+        int size = 0;
+        for (Map<String, String> headerMap : headerMaps) {
+            for (Map.Entry<String, String> header : headerMap.entrySet()) {
+                byte[] key = header.getKey().getBytes(StandardCharsets.UTF_8);
+                byte[] value = header.getValue().getBytes(StandardCharsets.UTF_8);
+                size += ByteUtils.sizeOfVarint(key.length) + key.length + ByteUtils.sizeOfVarint(value.length) + value.length;
+                count++;
+            }
+        }
+        return ByteUtils.sizeOfVarint(count) + size;
+    }
+
+    private void run(String name, Supplier<byte[]> operation) {        long sink = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink += operation.get().length;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += operation.get().length;
+        }
+        long elapsed = System.nanoTime() - start;
+        log.info(
+            "{}: {} ops/s ({} ns/op, checksum {})",
+            name,
+            ITERATIONS * TimeUnit.SECONDS.toNanos(1) / elapsed,
+            elapsed / ITERATIONS,
+            sink
+        );
+    }
+}
@@ -0,0 +1,79 @@
+package com.jawnz.back.service.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.GenericMessage;
+
+/**
+ * Unit tests for {@link MessageEnvelope}.
+ */
+class MessageEnvelopeTest {
+
+    @Test
+    void shouldDecodeWhatItEncodes() {
+        byte[] payload = new byte[300];
+        payload[299] = 1;
+        MessageEnvelope envelope = new MessageEnvelope("application/json", Map.of("région", "eu"), payload);
+
+        byte[] encoded = envelope.encode();
+        MessageEnvelope decoded = MessageEnvelope.decode(encoded);
+
+        assertThat(encoded).hasSize(2 + 1 + 16 + 1 + 1 + 7 + 1 + 2 + 300);
+        assertThat(decoded.getContentType()).isEqualTo("application/json");
+        assertThat(decoded.getHeaders()).containsExactly(Map.entry("région", "eu"));
+        assertThat(decoded.getPayload()).isEqualTo(payload);
+    }
+
+    @Test
+    void shouldWriteVarintsOnAsFewBytesAsNeeded() {
+        byte[] target = new byte[5];
+
+        assertThat(MessageEnvelope.writeVarint(target, 0, 127)).isEqualTo(1);
+        assertThat(MessageEnvelope.writeVarint(target, 0, 300)).isEqualTo(2);
+        assertThat(target[0]).isEqualTo((byte) 0xac);
+        assertThat(target[1]).isEqualTo((byte) 0x02);
+        assertThat(MessageEnvelope.varintSize(Integer.MAX_VALUE)).isEqualTo(5);
+    }
+
+    @Test
+    void shouldRejectUnknownVersionAndTruncatedEnvelope() {
+        byte[] encoded = new MessageEnvelope("text/plain", Map.of(), new byte[0]).encode();
+        byte[] truncated = new byte[] { MessageEnvelope.MAGIC, MessageEnvelope.VERSION, 10, 'a' };
+
+        encoded[1] = 2;
+
+        assertThatThrownBy(() -> MessageEnvelope.decode(encoded))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("version 2");
+        assertThatThrownBy(() -> MessageEnvelope.decode(truncated)).isInstanceOf(IllegalArgumentException.class);
+        byte[] text = "text".getBytes(StandardCharsets.UTF_8);
+        assertThatThrownBy(() -> MessageEnvelope.decode(text)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldUnwrapEnvelopedMessagesOnly() {
+        byte[] payload = "{\"a\":1}".getBytes(StandardCharsets.UTF_8);
+        Message<ByteBuffer> enveloped = new GenericMessage<>(
+            ByteBuffer.wrap(new MessageEnvelope("application/json", Map.of("region", "eu"), payload).encode()),
+            Map.of(MessageHeaders.CONTENT_TYPE, MessageEnvelope.MIME_TYPE_VALUE.getBytes(StandardCharsets.UTF_8), KafkaHeaders.OFFSET, 42L)
+        );
+        Message<ByteBuffer> text = new GenericMessage<>(ByteBuffer.wrap(payload), Map.of(MessageHeaders.CONTENT_TYPE, "text/plain"));
+
+        Message<ByteBuffer> unwrapped = MessageEnvelope.unwrap(enveloped);
+
+        assertThat(unwrapped.getPayload()).isEqualTo(ByteBuffer.wrap(payload));
+        assertThat(unwrapped.getHeaders()).containsEntry(MessageHeaders.CONTENT_TYPE, "application/json").containsEntry("region", "eu");
+        assertThat(unwrapped.getHeaders()).containsEntry(KafkaHeaders.OFFSET, 42L);
+        assertThat(MessageEnvelope.unwrap(text)).isSameAs(text);
+        assertThat(MessageEnvelope.isEnvelope(MessageEnvelope.MIME_TYPE_VALUE + ";v=1")).isTrue();
+        assertThat(MessageEnvelope.isEnvelope(MessageEnvelope.MIME_TYPE_VALUE + "-other")).isFalse();
+    }
+}
@@ -0,0 +1,44 @@
+package com.jawnz.back.service.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link ReplayRing}.
+ */
+class ReplayRingTest {
+
+    @Test
+    void shouldReturnMessagesAfterId() {
+        ReplayRing<String> ring = new ReplayRing<>(3);
+        ring.add("0-1", "a");
+        ring.add("0-2", "b");
+        ring.add("0-3", "c");
+
+        assertThat(ring.after("0-1")).contains(List.of("b", "c"));
+        assertThat(ring.after("0-3")).contains(List.of());
+    }
+
+    @Test
+    void shouldForgetOverwrittenMessages() {
+        ReplayRing<String> ring = new ReplayRing<>(2);
+        ring.add("0-1", "a");
+        ring.add("0-2", "b");
+        ring.add("1-1", "c");
+
+        assertThat(ring.size()).isEqualTo(2);
+        assertThat(ring.after("0-1")).isEmpty();
+        assertThat(ring.after("0-2")).contains(List.of("c"));
+    }
+
+    @Test
+    void shouldKeepNothingWithoutCapacity() {
+        ReplayRing<String> ring = new ReplayRing<>(0);
+        ring.add("0-1", "a");
+
+        assertThat(ring.size()).isZero();
+        assertThat(ring.after("0-1")).isEmpty();
+    }
+}
@@ -0,0 +1,92 @@
+package com.jawnz.back.service.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Unit tests for {@link SseFrameEncoder}.
+ */
+class SseFrameEncoderTest {
+
+    private static String encode(byte[] payload, Map<String, Object> headers) {
+        Message<ByteBuffer> message = new GenericMessage<>(ByteBuffer.wrap(payload), headers);
+        DataBuffer buffer = SseFrameEncoder.encode(DefaultDataBufferFactory.sharedInstance, message);
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void shouldWriteTextualPayloadWithIdAndOneDataLinePerLine() {
+        String frame = encode(
+            "{\"a\":1}\r\n{\"b\":2}".getBytes(StandardCharsets.UTF_8),
+            Map.of(KafkaHeaders.RECEIVED_PARTITION_ID, 1, KafkaHeaders.OFFSET, 42L, MessageHeaders.CONTENT_TYPE, "application/json")
+        );
+
+        assertThat(frame).isEqualTo("id:1-42\ndata:{\"a\":1}\ndata:{\"b\":2}\n\n");
+    }
+
+    @Test
+    void shouldWriteTheLinesOfAReadOnlyViewWithoutTheBytesAroundIt() {
+        ByteBuffer file = ByteBuffer.allocateDirect(16);
+        file.put("--a\nb--".getBytes(StandardCharsets.UTF_8)).position(2).limit(5);
+        Message<ByteBuffer> message = new GenericMessage<>(file.slice().asReadOnlyBuffer());
+
+        DataBuffer buffer = SseFrameEncoder.encode(DefaultDataBufferFactory.sharedInstance, message);
+
+        assertThat(buffer.toString(StandardCharsets.UTF_8)).isEqualTo("data:a\ndata:b\n\n");
+        assertThat(message.getPayload().remaining()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldBase64EncodeBinaryPayload() {
+        String frame = encode(new byte[] { 0, '\n', (byte) 0xff }, Map.of(MessageHeaders.CONTENT_TYPE, "application/octet-stream"));
+
+        assertThat(frame).isEqualTo("data:AAr/\n\n");
+    }
+
+    @Test
+    void shouldWriteBatchAsOneEventWithJsonArrayAndLastId() {
+        DataBuffer buffer = SseFrameEncoder.encodeBatch(
+            DefaultDataBufferFactory.sharedInstance,
+            List.of(
+                new GenericMessage<>(
+                    ByteBuffer.wrap("{\"a\":\n1}".getBytes(StandardCharsets.UTF_8)),
+                    Map.of(KafkaHeaders.RECEIVED_PARTITION_ID, 1, KafkaHeaders.OFFSET, 41L)
+                ),
+                new GenericMessage<>(
+                    ByteBuffer.wrap(new byte[] { 0, '\n', (byte) 0xff }),
+                    Map.of(
+                        KafkaHeaders.RECEIVED_PARTITION_ID,
+                        1,
+                        KafkaHeaders.OFFSET,
+                        42L,
+                        MessageHeaders.CONTENT_TYPE,
+                        "application/octet-stream"
+                    )
+                )
+            )
+        );
+
+        assertThat(buffer.toString(StandardCharsets.UTF_8)).isEqualTo("id:1-42\ndata:[\"{\\\"a\\\":\\n1}\",\"AAr/\"]\n\n");
+    }
+
+    @Test
+    void shouldTakeContentTypeFromHeaders() {
+        assertThat(SseFrameEncoder.isTextual(null)).isTrue();
+        assertThat(SseFrameEncoder.isTextual("text/plain;charset=UTF-8")).isTrue();
+        assertThat(SseFrameEncoder.isTextual(MimeTypeUtils.parseMimeType("application/vnd.event+json"))).isTrue();
+        assertThat(SseFrameEncoder.isTextual("application/x-protobuf")).isFalse();
+        assertThat(SseFrameEncoder.isTextual("not a type")).isFalse();
+    }
+}
@@ -0,0 +1,154 @@
+package com.jawnz.back.service.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jawnz.back.config.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for {@link SseJournal}.
+ */
+class SseJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private SseJournal journal(int segmentSize) throws IOException {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getStream().getJournal().setDirectory(directory.toString());
+        applicationProperties.getStream().getJournal().setSegmentSize(segmentSize);
+        applicationProperties.getStream().getJournal().setRetentionSize(200);
+        applicationProperties.getStream().getJournal().setRetentionTime(Duration.ofHours(1));
+        return new SseJournal(applicationProperties, new SimpleMeterRegistry());
+    }
+
+    private static void append(SseJournal journal, int count) {
+        for (int offset = 0; offset < count; offset++) {
+            journal.append(0, offset, "text/plain", "k" + offset, ByteBuffer.wrap(("m" + offset).getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    private static List<String> read(SseJournal journal, long from) {
+        return journal
+            .read(from, journal.nextSequence())
+            .map(record -> StandardCharsets.UTF_8.decode(record.getPayload()).toString())
+            .collectList()
+            .block();
+    }
+
+    @Test
+    void shouldBeDisabledWithoutDirectory() throws IOException {
+        SseJournal journal = new SseJournal(new ApplicationProperties(), new SimpleMeterRegistry());
+        journal.append(0, 0, null, null, ByteBuffer.wrap(new byte[] { 1 }));
+
+        assertThat(journal.isEnabled()).isFalse();
+        assertThat(journal.nextSequence()).isZero();
+        assertThat(journal.find("0-0")).isEmpty();
+    }
+
+    @Test
+    void shouldReadAfterEventIdAcrossSegments() throws IOException {
+        SseJournal journal = journal(100);
+        append(journal, 5);
+
+        assertThat(listSegments()).hasSizeGreaterThan(1);
+        assertThat(journal.find("0-1")).hasValue(1);
+        assertThat(journal.find("1-1")).isEmpty();
+        assertThat(journal.find("invalid")).isEmpty();
+        assertThat(read(journal, 2)).containsExactly("m2", "m3", "m4");
+    }
+
+    @Test
+    void shouldFindOffsetsAppendedOutOfOrderAcrossPartitions() throws IOException {
+        SseJournal journal = journal(1024 * 1024);
+        long[][] records = { { 0, 10 }, { 1, 10 }, { 0, 12 }, { 0, 11 }, { 1, 5 }, { 0, 12 } };
+        for (long[] record : records) {
+            journal.append((int) record[0], record[1], null, null, ByteBuffer.wrap(new byte[] { 1 }));
+        }
+
+        assertThat(journal.find("0-10")).hasValue(0);
+        assertThat(journal.find("1-10")).hasValue(1);
+        assertThat(journal.find("0-11")).hasValue(3);
+        assertThat(journal.find("1-5")).hasValue(4);
+        assertThat(journal.find("0-12")).hasValue(5);
+        assertThat(journal.find("0-13")).isEmpty();
+        assertThat(journal.find("1-7")).isEmpty();
+    }
+
+    @Test
+    void shouldKeepKeysLongerThanASignedShort() throws IOException {
+        SseJournal journal = journal(1024 * 1024);
+        String longKey = "k".repeat(40 * 1024);
+        journal.append(0, 0, "text/plain", longKey, ByteBuffer.wrap("m0".getBytes(StandardCharsets.UTF_8)));
+        journal.append(0, 1, "text/plain", "k1", ByteBuffer.wrap("m1".getBytes(StandardCharsets.UTF_8)));
+
+        List<JournalRecord> records = journal.read(0, journal.nextSequence()).collectList().block();
+
+        assertThat(records).hasSize(2);
+        assertThat(records.get(0).getKey()).isEqualTo(longKey);
+        assertThat(records.get(0).getContentType()).isEqualTo("text/plain");
+        assertThat(StandardCharsets.UTF_8.decode(records.get(0).getPayload()).toString()).isEqualTo("m0");
+        assertThat(records.get(1).getKey()).isEqualTo("k1");
+        assertThat(read(journal, 0)).containsExactly("m0", "m1");
+    }
+
+    @Test
+    void shouldNotJournalKeysLongerThanAnUnsignedShort() throws IOException {
+        SseJournal journal = journal(1024 * 1024);
+        journal.append(0, 0, "text/plain", "k".repeat(JournalSegment.MAX_FIELD_LENGTH + 1), ByteBuffer.wrap(new byte[] { 1 }));
+        append(journal, 1);
+
+        assertThat(journal.nextSequence()).isEqualTo(1);
+        assertThat(read(journal, 0)).containsExactly("m0");
+    }
+
+    @Test
+    void shouldRecoverAfterRestart() throws IOException {
+        SseJournal journal = journal(100);
+        append(journal, 5);
+        journal.close();
+
+        SseJournal reopened = journal(100);
+
+        assertThat(reopened.nextSequence()).isEqualTo(5);
+        assertThat(reopened.find("0-3")).hasValue(3);
+        JournalRecord record = reopened.read(4, 5).blockFirst();
+        assertThat(record.getContentType()).isEqualTo("text/plain");
+        assertThat(record.getKey()).isEqualTo("k4");
+        reopened.append(0, 5, null, null, ByteBuffer.wrap("m5".getBytes(StandardCharsets.UTF_8)));
+        assertThat(read(reopened, 3)).containsExactly("m3", "m4", "m5");
+    }
+
+    @Test
+    void shouldDeleteOldestSegmentsBeyondRetentionSize() throws IOException {
+        SseJournal journal = journal(100);
+        append(journal, 20);
+
+        journal.enforceRetention();
+
+        List<String> segments = listSegments();
+        assertThat(segments).hasSizeLessThan(10).doesNotContain("00000000000000000000.log");
+        assertThat(journal.find("0-0")).isEmpty();
+        assertThat(journal.find("0-19")).hasValue(19);
+    }
+
+    private List<String> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .map(file -> file.getFileName().toString())
+                .filter(name -> name.endsWith(JournalSegment.LOG_SUFFIX))
+                .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.jawnz.back.service.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jawnz.back.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+/**
+ * Unit tests for {@link StreamGovernor}.
+ */
+class StreamGovernorTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+
+    private StreamGovernor governor(Duration heartbeatInterval, Duration idleTimeout, Duration maxLifetime) {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        ApplicationProperties.Stream.Governance governance = applicationProperties.getStream().getGovernance();
+        governance.setMaxStreams(3);
+        governance.setMaxStreamsPerUser(2);
+        governance.setHeartbeatInterval(heartbeatInterval);
+        governance.setIdleTimeout(idleTimeout);
+        governance.setMaxLifetime(maxLifetime);
+        governance.setRetry(Duration.ofSeconds(2));
+        return new StreamGovernor(applicationProperties, meterRegistry);
+    }
+
+    private List<String> frames(Flux<DataBuffer> stream) {
+        return stream.map(buffer -> buffer.toString(StandardCharsets.UTF_8)).collectList().block(Duration.ofSeconds(5));
+    }
+
+    private DataBuffer event(String data) {
+        return bufferFactory.wrap(("data:" + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldLimitStreamsPerNodeAndPerUser() {
+        StreamGovernor governor = governor(Duration.ofHours(1), Duration.ofHours(1), Duration.ofHours(1));
+
+        StreamGovernor.Lease first = governor.tryOpen("alice");
+        assertThat(first).isNotNull();
+        assertThat(governor.tryOpen("alice")).isNotNull();
+        assertThat(governor.tryOpen("alice")).isNull();
+        assertThat(governor.tryOpen("bob")).isNotNull();
+        assertThat(governor.tryOpen("carol")).isNull();
+
+        assertThat(meterRegistry.get("sse.streams.active").gauge().value()).isEqualTo(3);
+        assertThat(meterRegistry.get("sse.streams.rejected").tag("limit", "user").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("sse.streams.rejected").tag("limit", "node").counter().count()).isEqualTo(1);
+        frames(governor.govern(first, Flux.empty(), bufferFactory));
+        assertThat(governor.getActiveStreams()).isEqualTo(2);
+        assertThat(governor.tryOpen("alice")).isNotNull();
+    }
+
+    @Test
+    void shouldHintRetryThenSendEvents() {
+        StreamGovernor governor = governor(Duration.ofHours(1), Duration.ofHours(1), Duration.ofHours(1));
+
+        List<String> frames = frames(governor.govern(governor.tryOpen("alice"), Flux.just(event("a")), bufferFactory));
+
+        assertThat(frames).containsExactly("retry:2000\n\n", "data:a\n\n");
+    }
+
+    @Test
+    void shouldSendHeartbeatsAndEvictIdleStream() {
+        StreamGovernor governor = governor(Duration.ofMillis(20), Duration.ofMillis(150), Duration.ofHours(1));
+
+        List<String> frames = frames(governor.govern(governor.tryOpen("alice"), Flux.never(), bufferFactory));
+
+        assertThat(frames).first().isEqualTo("retry:2000\n\n");
+        assertThat(frames).contains(":\n\n");
+        assertThat(meterRegistry.get("sse.streams.evicted").tag("reason", "idle").counter().count()).isEqualTo(1);
+        assertThat(governor.getActiveStreams()).isZero();
+    }
+
+    @Test
+    void shouldNotSendHeartbeatsWhileEventsFlow() {
+        StreamGovernor governor = governor(Duration.ofMillis(100), Duration.ofHours(1), Duration.ofHours(1));
+
+        Flux<DataBuffer> events = Flux.interval(Duration.ofMillis(20)).take(25).map(tick -> event(String.valueOf(tick)));
+        List<String> frames = frames(governor.govern(governor.tryOpen("alice"), events, bufferFactory));
+
+        assertThat(frames).hasSize(26).doesNotContain(":\n\n");
+        assertThat(governor.getActiveStreams()).isZero();
+    }
+
+    @Test
+    void shouldCompleteStreamAfterMaxLifetime() {
+        StreamGovernor governor = governor(Duration.ofHours(1), Duration.ofHours(1), Duration.ofMillis(50));
+
+        Flux<DataBuffer> events = Flux.interval(Duration.ofMillis(10)).map(tick -> event(String.valueOf(tick)));
+        List<String> frames = frames(governor.govern(governor.tryOpen("alice"), events, bufferFactory));
+
+        assertThat(frames).hasSizeGreaterThan(1);
+        assertThat(meterRegistry.get("sse.streams.evicted").tag("reason", "lifetime").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("sse.streams.evicted").tag("reason", "idle").counter().count()).isZero();
+    }
+
+    @Test
+    void shouldEndStreamsWithReconnectHintOnDrain() throws Exception {
+        StreamGovernor governor = governor(Duration.ofHours(1), Duration.ofHours(1), Duration.ofHours(1));
+
+        CompletableFuture<List<String>> frames = governor
+            .govern(governor.tryOpen("alice"), Flux.never(), bufferFactory)
+            .map(buffer -> buffer.toString(StandardCharsets.UTF_8))
+            .collectList()
+            .toFuture();
+        governor.drain();
+
+        assertThat(frames.get()).hasSize(2).last().asString().startsWith("event:shutdown\nretry:").endsWith("\ndata:reconnect\n\n");
+        assertThat(frames(governor.govern(governor.tryOpen("bob"), Flux.never(), bufferFactory))).hasSize(2);
+        assertThat(meterRegistry.get("sse.streams.evicted").tag("reason", "shutdown").counter().count()).isEqualTo(2);
+        assertThat(governor.getActiveStreams()).isZero();
+    }
+}
@@ -1,21 +1,28 @@
 package com.jawnz.back.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 
 import com.jawnz.back.IntegrationTest;
 import com.jawnz.back.config.EmbeddedKafka;
 import com.jawnz.back.config.KafkaSseConsumer;
-import com.jawnz.back.config.KafkaSseProducer;
+import com.jawnz.back.service.stream.KafkaSseHub;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.BlockingQueue;
+import java.util.UUID;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
-import org.springframework.cloud.stream.test.binder.MessageCollector;
 import org.springframework.http.MediaType;
+import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageHeaders;
@@ -23,6 +30,8 @@ import org.springframework.messaging.support.GenericMessage;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.util.MimeTypeUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @IntegrationTest
 @AutoConfigureMockMvc
@@ -33,24 +42,91 @@ class JawnzbackKafkaResourceIT {
     @Autowired
     private WebTestClient client;
 
-    @Autowired
-    @Qualifier(KafkaSseProducer.CHANNELNAME)
-    private MessageChannel output;
-
     @Autowired
     @Qualifier(KafkaSseConsumer.CHANNELNAME)
     private MessageChannel input;
 
     @Autowired
-    private MessageCollector collector;
+    private KafkaSseHub kafkaSseHub;
+
+    @Value("${spring.cloud.stream.kafka.binder.brokers}")
+    private String brokers;
 
     @Test
-    void producesMessages() throws InterruptedException {
-        client.post().uri("/api/jawnzback-kafka/publish?message=value-produce").exchange().expectStatus().isNoContent();
+    void producesMessages() {
+        String value = "value-produce-" + UUID.randomUUID();
+
+        client.post().uri("/api/jawnzback-kafka/publish?message=" + value).exchange().expectStatus().isNoContent();
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, brokers);
+        properties.put(ConsumerConfig.GROUP_ID_CONFIG, "jawnzback-it-" + UUID.randomUUID());
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        List<String> received = new ArrayList<>();
+        try (
+            KafkaConsumer<String, String> consumer = new KafkaConsumer<>(properties, new StringDeserializer(), new StringDeserializer())
+        ) {
+            consumer.subscribe(List.of("sse-topic"));
+            await()
+                .atMost(Duration.ofSeconds(30))
+                .until(() -> {
+                    consumer.poll(Duration.ofMillis(200)).forEach(record -> received.add(record.value()));
+                    return received.contains(value);
+                });
+        }
+    }
+
+    @Test
+    void producesMessagesWithAcknowledgement() {
+        client
+            .post()
+            .uri("/api/jawnzback-kafka/publish?message=value-produce&ack=true")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.topic")
+            .isEqualTo("sse-topic")
+            .jsonPath("$.offset")
+            .isNumber()
+            .jsonPath("$.latencyMillis")
+            .isNumber();
+    }
 
-        BlockingQueue<Message<?>> messages = collector.forChannel(output);
-        GenericMessage<String> payload = (GenericMessage<String>) messages.take();
-        assertThat(payload.getPayload()).isEqualTo("value-produce");
+    @Test
+    void producesMessagesInBulkFromNdjson() {
+        client
+            .post()
+            .uri("/api/jawnzback-kafka/publish/bulk?batchSize=2")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .bodyValue("\"value-1\"\n{\"value\":2}\n\"value-3\"\n")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$[0].acknowledged")
+            .isEqualTo(2)
+            .jsonPath("$[1].acknowledged")
+            .isEqualTo(1)
+            .jsonPath("$[1].failed")
+            .isEqualTo(0);
+    }
+
+    @Test
+    void producesMessagesInBulkFromJsonArray() {
+        client
+            .post()
+            .uri("/api/jawnzback-kafka/publish/bulk")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("[\"value-1\", \"value-2\"]")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$[0].batch")
+            .isEqualTo(0)
+            .jsonPath("$[0].acknowledged")
+            .isEqualTo(2);
     }
 
     @Test
@@ -59,7 +135,14 @@ class JawnzbackKafkaResourceIT {
         map.put(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.TEXT_PLAIN_VALUE);
         MessageHeaders headers = new MessageHeaders(map);
         Message<String> testMessage = new GenericMessage<>("value-consume", headers);
-        input.send(testMessage);
+        // messages are only delivered to the subscribers present when they are consumed
+        Mono
+            .fromRunnable(() -> {
+                await().atMost(Duration.ofSeconds(10)).until(() -> kafkaSseHub.getSubscriberCount() > 0);
+                input.send(testMessage);
+            })
+            .subscribeOn(Schedulers.boundedElastic())
+            .subscribe();
         String value = client
             .get()
             .uri("/api/jawnzback-kafka/consume")
@@ -74,4 +157,27 @@ class JawnzbackKafkaResourceIT {
             .blockFirst(Duration.ofSeconds(10));
         assertThat(value).isEqualTo("value-consume");
     }
+
+    @Test
+    void resumesAfterLastEventId() {
+        for (long offset = 100; offset < 102; offset++) {
+            Map<String, Object> map = new HashMap<>();
+            map.put(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.TEXT_PLAIN_VALUE);
+            map.put(KafkaHeaders.RECEIVED_PARTITION_ID, 0);
+            map.put(KafkaHeaders.OFFSET, offset);
+            input.send(new GenericMessage<>("value-" + offset, new MessageHeaders(map)));
+        }
+        String value = client
+            .get()
+            .uri("/api/jawnzback-kafka/consume")
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .header("Last-Event-ID", "0-100")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(String.class)
+            .getResponseBody()
+            .blockFirst(Duration.ofSeconds(10));
+        assertThat(value).isEqualTo("value-101");
+    }
 }
@@ -0,0 +1,207 @@
+package com.jawnz.back.web.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jawnz.back.config.ApplicationProperties;
+import com.jawnz.back.service.stream.KafkaSseHub;
+import com.jawnz.back.service.stream.SseJournal;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.StreamSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.HandshakeInfo;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Unit tests for {@link KafkaWebSocketHandler}.
+ */
+class KafkaWebSocketHandlerTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Sinks.Many<WebSocketMessage> input = Sinks.many().unicast().onBackpressureBuffer();
+
+    private final List<JsonNode> frames = new CopyOnWriteArrayList<>();
+
+    private final List<CloseStatus> closeStatuses = new CopyOnWriteArrayList<>();
+
+    private ApplicationProperties applicationProperties;
+
+    private KafkaSseHub kafkaSseHub;
+
+    private long offset;
+
+    @BeforeEach
+    public void init() throws IOException {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getStream().getWebsocket().setBatchWindow(Duration.ZERO);
+        kafkaSseHub = new KafkaSseHub(applicationProperties, new SseJournal(applicationProperties, meterRegistry), meterRegistry);
+    }
+
+    /**
+     * Connects a client reading its frames if {@code reading}, or never reading them otherwise.
+     */
+    private void connect(Principal principal, boolean reading) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        URI uri = URI.create("ws://localhost/api/jawnzback-kafka/ws");
+        when(session.getHandshakeInfo()).thenReturn(new HandshakeInfo(uri, new HttpHeaders(), Mono.just(principal), null));
+        when(session.bufferFactory()).thenReturn(DefaultDataBufferFactory.sharedInstance);
+        when(session.receive()).thenReturn(input.asFlux());
+        when(session.send(any()))
+            .thenAnswer(invocation -> {
+                Publisher<WebSocketMessage> outbound = invocation.getArgument(0);
+                if (!reading) {
+                    // subscribed, without any demand
+                    Flux.from(outbound).subscribe(new BaseSubscriber<>() {
+                        @Override
+                        protected void hookOnSubscribe(Subscription subscription) {}
+                    });
+                    return Mono.never();
+                }
+                return Flux.from(outbound).doOnNext(message -> frames.add(read(message))).then();
+            });
+        when(session.close(any()))
+            .thenAnswer(invocation -> {
+                closeStatuses.add(invocation.getArgument(0));
+                input.tryEmitComplete();
+                return Mono.empty();
+            });
+        new KafkaWebSocketHandler(kafkaSseHub, objectMapper, applicationProperties, meterRegistry).handle(session).subscribe();
+    }
+
+    private JsonNode read(WebSocketMessage message) {
+        try {
+            return objectMapper.readTree(message.getPayloadAsText());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            message.release();
+        }
+    }
+
+    private static Principal token(Instant expiresAt) {
+        Jwt jwt = Jwt
+            .withTokenValue("token")
+            .header("alg", "none")
+            .subject("user")
+            .issuedAt(expiresAt.minusSeconds(3600))
+            .expiresAt(expiresAt)
+            .build();
+        return new JwtAuthenticationToken(jwt, List.of());
+    }
+
+    private void request(String request) {
+        byte[] bytes = request.getBytes(StandardCharsets.UTF_8);
+        input.tryEmitNext(new WebSocketMessage(WebSocketMessage.Type.TEXT, DefaultDataBufferFactory.sharedInstance.wrap(bytes)));
+    }
+
+    private void publish(int count) {
+        for (int i = 0; i < count; i++) {
+            kafkaSseHub.publish(
+                new GenericMessage<>(
+                    ("m" + offset).getBytes(StandardCharsets.UTF_8),
+                    Map.of(KafkaHeaders.RECEIVED_PARTITION_ID, 0, KafkaHeaders.OFFSET, offset++)
+                )
+            );
+        }
+    }
+
+    private long events(String subscription) {
+        return frames
+            .stream()
+            .filter(frame -> "batch".equals(frame.path("type").asText()) && subscription.equals(frame.path("subscription").asText()))
+            .flatMap(frame -> StreamSupport.stream(frame.get("events").spliterator(), false))
+            .count();
+    }
+
+    private double subscriptions() {
+        return meterRegistry.get("websocket.subscriptions").gauge().value();
+    }
+
+    @Test
+    void sendsAsManyMessagesAsGrantedCredits() {
+        connect(token(Instant.now().plusSeconds(3600)), true);
+        request("{\"type\":\"subscribe\",\"subscription\":\"s1\",\"credits\":2}");
+
+        publish(5);
+        await().untilAsserted(() -> assertThat(events("s1")).isEqualTo(2));
+
+        request("{\"type\":\"credit\",\"subscription\":\"s1\",\"credits\":2}");
+        await().untilAsserted(() -> assertThat(events("s1")).isEqualTo(4));
+        assertThat(closeStatuses).isEmpty();
+    }
+
+    @Test
+    void multiplexesAndUnsubscribes() {
+        connect(token(Instant.now().plusSeconds(3600)), true);
+        request("{\"type\":\"subscribe\",\"subscription\":\"s1\",\"credits\":10}");
+        request("{\"type\":\"subscribe\",\"subscription\":\"s2\",\"credits\":10}");
+        assertThat(subscriptions()).isEqualTo(2);
+
+        publish(1);
+        await().untilAsserted(() -> assertThat(events("s2")).isEqualTo(1));
+
+        request("{\"type\":\"unsubscribe\",\"subscription\":\"s2\"}");
+        assertThat(subscriptions()).isEqualTo(1);
+        assertThat(kafkaSseHub.getSubscriberCount()).isEqualTo(1);
+
+        publish(1);
+        await().untilAsserted(() -> assertThat(events("s1")).isEqualTo(2));
+        assertThat(events("s2")).isEqualTo(1);
+    }
+
+    @Test
+    void refusesSubscriptionsOnceTheTokenHasExpired() {
+        connect(token(Instant.now().minusSeconds(1)), true);
+        request("{\"type\":\"subscribe\",\"subscription\":\"s1\",\"credits\":10}");
+
+        await().untilAsserted(() -> assertThat(closeStatuses).containsExactly(CloseStatus.POLICY_VIOLATION));
+        assertThat(frames).anySatisfy(frame -> assertThat(frame.path("message").asText()).isEqualTo("Not authorized"));
+        assertThat(kafkaSseHub.getSubscriberCount()).isZero();
+    }
+
+    @Test
+    void closesAConnectionWhoseClientDoesNotRead() {
+        applicationProperties.getStream().getWebsocket().setMaxPendingFrames(4);
+        connect(token(Instant.now().plusSeconds(3600)), false);
+        request("{\"type\":\"subscribe\",\"subscription\":\"s1\",\"credits\":100}");
+
+        publish(10);
+
+        await().untilAsserted(() -> assertThat(closeStatuses).hasSize(1));
+        assertThat(closeStatuses.get(0).getCode()).isEqualTo(CloseStatus.POLICY_VIOLATION.getCode());
+        assertThat(subscriptions()).isZero();
+    }
+}
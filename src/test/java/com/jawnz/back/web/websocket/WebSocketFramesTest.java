@@ -0,0 +1,61 @@
+package com.jawnz.back.web.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.GenericMessage;
+
+/**
+ * Unit tests for {@link WebSocketFrames}.
+ */
+class WebSocketFramesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final WebSocketFrames frames = new WebSocketFrames(objectMapper.getFactory());
+
+    private JsonNode read(DataBuffer buffer) throws Exception {
+        return objectMapper.readTree(buffer.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldBatchTextualAndBinaryEvents() throws Exception {
+        List<Message<ByteBuffer>> messages = List.of(
+            new GenericMessage<>(
+                ByteBuffer.wrap("{\"quote\":\"é\\\"\"}".getBytes(StandardCharsets.UTF_8)),
+                Map.of(KafkaHeaders.RECEIVED_PARTITION_ID, 0, KafkaHeaders.OFFSET, 7L, MessageHeaders.CONTENT_TYPE, "application/json")
+            ),
+            new GenericMessage<>(ByteBuffer.wrap(new byte[] { 0, 1, 2 }), Map.of(MessageHeaders.CONTENT_TYPE, "application/octet-stream"))
+        );
+
+        JsonNode frame = read(frames.batch(DefaultDataBufferFactory.sharedInstance, "s1", messages));
+
+        assertThat(frame.get("type").asText()).isEqualTo("batch");
+        assertThat(frame.get("subscription").asText()).isEqualTo("s1");
+        assertThat(frame.get("events")).hasSize(2);
+        assertThat(frame.get("events").get(0).get("id").asText()).isEqualTo("0-7");
+        assertThat(frame.get("events").get(0).get("data").asText()).isEqualTo("{\"quote\":\"é\\\"\"}");
+        assertThat(frame.get("events").get(1).has("id")).isFalse();
+        assertThat(frame.get("events").get(1).get("data").binaryValue()).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    void shouldWriteControlFrames() throws Exception {
+        JsonNode frame = read(frames.control(DefaultDataBufferFactory.sharedInstance, WebSocketFrames.ERROR, null, "Invalid request"));
+
+        assertThat(frame.get("type").asText()).isEqualTo("error");
+        assertThat(frame.has("subscription")).isFalse();
+        assertThat(frame.get("message").asText()).isEqualTo("Invalid request");
+    }
+}